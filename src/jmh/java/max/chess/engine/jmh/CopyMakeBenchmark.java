@@ -0,0 +1,111 @@
+package max.chess.engine.jmh;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.game.PositionStack;
+import max.chess.engine.movegen.MoveGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copy-make (PositionStack) against make/unmake (Game.playMove/undoMove): a single make/undo per legal move
+ * of the corpus, and a perft 3 of every corpus position (leaves bulk-counted, so make/undo dominates).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyMakeBenchmark {
+    private static final int PERFT_DEPTH = 3;
+
+    private PositionCorpus corpus;
+    private PositionStack[] stacks;
+    private final int[][] moveBuffers = new int[PERFT_DEPTH][218];
+
+    @Setup
+    public void setup() {
+        corpus = new PositionCorpus();
+        stacks = new PositionStack[corpus.size()];
+        for (int i = 0; i < corpus.size(); i++) stacks[i] = new PositionStack(corpus.games[i], 64);
+    }
+
+    @Benchmark
+    public long makeUnmake() {
+        long acc = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            Game game = corpus.games[i];
+            for (int move : corpus.legalMoves[i]) {
+                long undo = game.playMove(move);
+                acc ^= game.zobristKey();
+                game.undoMove(undo);
+            }
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public long copyMake() {
+        long acc = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            Game game = corpus.games[i];
+            PositionStack stack = stacks[i];
+            for (int move : corpus.legalMoves[i]) {
+                stack.playMove(move);
+                acc ^= game.zobristKey();
+                stack.undoMove();
+            }
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public long perftMakeUnmake() {
+        long nodes = 0;
+        for (Game game : corpus.games) nodes += perftMakeUnmake(game, PERFT_DEPTH, 0);
+        return nodes;
+    }
+
+    @Benchmark
+    public long perftCopyMake() {
+        long nodes = 0;
+        for (int i = 0; i < corpus.size(); i++) nodes += perftCopyMake(corpus.games[i], stacks[i], PERFT_DEPTH, 0);
+        return nodes;
+    }
+
+    private long perftMakeUnmake(Game game, int depth, int ply) {
+        if (depth == 1) return MoveGenerator.countMoves(game);
+        int[] moves = moveBuffers[ply];
+        int n = MoveGenerator.generateMoves(game, moves);
+        long nodes = 0;
+        for (int i = 0; i < n; i++) {
+            long undo = game.playMove(moves[i]);
+            nodes += perftMakeUnmake(game, depth - 1, ply + 1);
+            game.undoMove(undo);
+        }
+        return nodes;
+    }
+
+    private long perftCopyMake(Game game, PositionStack stack, int depth, int ply) {
+        if (depth == 1) return MoveGenerator.countMoves(game);
+        int[] moves = moveBuffers[ply];
+        int n = MoveGenerator.generateMoves(game, moves);
+        long nodes = 0;
+        for (int i = 0; i < n; i++) {
+            stack.playMove(moves[i]);
+            nodes += perftCopyMake(game, stack, depth - 1, ply + 1);
+            stack.undoMove();
+        }
+        return nodes;
+    }
+}
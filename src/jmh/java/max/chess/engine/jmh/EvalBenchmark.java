@@ -0,0 +1,61 @@
+package max.chess.engine.jmh;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.search.evaluator.PawnEval;
+import max.chess.engine.search.evaluator.PositionEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Static evaluation of the corpus positions and of their children (one op = whole corpus).
+ * The pawn hash is warm after the first pass, as it is during a real search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvalBenchmark {
+    private PositionCorpus corpus;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        corpus = new PositionCorpus();
+        PawnEval.clearPawnHash();
+    }
+
+    @Benchmark
+    public int evaluateRoots() {
+        int acc = 0;
+        for (Game game : corpus.games) {
+            acc += PositionEvaluator.evaluatePosition(game);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public int evaluateChildren() {
+        int acc = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            Game game = corpus.games[i];
+            for (int move : corpus.legalMoves[i]) {
+                long undo = game.playMove(move);
+                acc += PositionEvaluator.evaluatePosition(game);
+                game.undoMove(undo);
+            }
+        }
+        return acc;
+    }
+}
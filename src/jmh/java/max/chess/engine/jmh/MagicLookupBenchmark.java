@@ -0,0 +1,56 @@
+package max.chess.engine.jmh;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.movegen.pieces.Bishop;
+import max.chess.engine.movegen.pieces.Rook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Rook/bishop magic lookups for every square against every corpus occupancy. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MagicLookupBenchmark {
+    private long[] occupancies;
+
+    @Setup
+    public void setup() {
+        PositionCorpus corpus = new PositionCorpus();
+        occupancies = new long[corpus.size()];
+        for (int i = 0; i < corpus.size(); i++) {
+            Game game = corpus.games[i];
+            occupancies[i] = game.board().gameBB;
+        }
+    }
+
+    @Benchmark
+    public long rookAttacks() {
+        long acc = 0;
+        for (long occ : occupancies) {
+            for (int sq = 0; sq < 64; sq++) acc ^= Rook.getAttackBB(sq, occ);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public long bishopAttacks() {
+        long acc = 0;
+        for (long occ : occupancies) {
+            for (int sq = 0; sq < 64; sq++) acc ^= Bishop.getAttackBB(sq, occ);
+        }
+        return acc;
+    }
+}
@@ -0,0 +1,45 @@
+package max.chess.engine.jmh;
+
+import max.chess.engine.game.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Game.playMove/undoMove of every legal move of every corpus position (one op = whole corpus). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MakeUnmakeBenchmark {
+    private PositionCorpus corpus;
+
+    @Setup
+    public void setup() {
+        corpus = new PositionCorpus();
+    }
+
+    @Benchmark
+    public long playUndo() {
+        long acc = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            Game game = corpus.games[i];
+            for (int move : corpus.legalMoves[i]) {
+                long undo = game.playMove(move);
+                acc ^= game.zobristKey();
+                game.undoMove(undo);
+            }
+        }
+        return acc;
+    }
+}
@@ -0,0 +1,51 @@
+package max.chess.engine.jmh;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.movegen.MoveGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Legal move generation over the whole corpus (one op = every corpus position once). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenBenchmark {
+    private PositionCorpus corpus;
+    private final int[] buffer = new int[256];
+
+    @Setup
+    public void setup() {
+        corpus = new PositionCorpus();
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        int total = 0;
+        for (Game game : corpus.games) {
+            total += MoveGenerator.generateMoves(game, buffer);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int countMoves() {
+        int total = 0;
+        for (Game game : corpus.games) {
+            total += MoveGenerator.countMoves(game);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,32 @@
+package max.chess.engine.jmh;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.search.Bench;
+import max.chess.engine.utils.notations.FENUtils;
+
+import java.util.Arrays;
+
+/**
+ * Realistic positions shared by all micro-benchmarks: the bench suite (openings, middlegames,
+ * endgames) with the legal moves of each position precomputed.
+ */
+public final class PositionCorpus {
+    public final Game[] games;
+    public final int[][] legalMoves;
+
+    public PositionCorpus() {
+        String[] fens = Bench.positions();
+        games = new Game[fens.length];
+        legalMoves = new int[fens.length][];
+        int[] buf = new int[256];
+        for (int i = 0; i < fens.length; i++) {
+            games[i] = FENUtils.getBoardFrom(fens[i]);
+            int n = games[i].getLegalMoves(buf);
+            legalMoves[i] = Arrays.copyOf(buf, n);
+        }
+    }
+
+    public int size() {
+        return games.length;
+    }
+}
@@ -0,0 +1,75 @@
+package max.chess.engine.jmh;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.search.transpositiontable.TranspositionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TT store/probe with the zobrist keys of the corpus children (realistic key distribution).
+ * One op = one pass over all keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranspositionTableBenchmark {
+    @Param({"16", "256"})
+    public int sizeMb;
+
+    private TranspositionTable tt;
+    private final TranspositionTable.Hit hit = new TranspositionTable.Hit();
+    private long[] keys;
+    private int[] moves;
+
+    @Setup
+    public void setup() {
+        PositionCorpus corpus = new PositionCorpus();
+        int n = 0;
+        for (int[] legal : corpus.legalMoves) n += legal.length;
+        keys = new long[n];
+        moves = new int[n];
+        int k = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            Game game = corpus.games[i];
+            for (int move : corpus.legalMoves[i]) {
+                long undo = game.playMove(move);
+                keys[k] = game.zobristKey();
+                moves[k++] = move;
+                game.undoMove(undo);
+            }
+        }
+        tt = new TranspositionTable(sizeMb);
+        store();
+    }
+
+    @Benchmark
+    public int store() {
+        for (int i = 0; i < keys.length; i++) {
+            tt.store(keys[i], moves[i], (i & 7) + 1, i & 255, TranspositionTable.TT_EXACT, 0);
+        }
+        return keys.length;
+    }
+
+    @Benchmark
+    public int probe() {
+        int found = 0;
+        for (long key : keys) {
+            if (tt.probe(key, 1, 0, hit)) found++;
+        }
+        return found;
+    }
+}
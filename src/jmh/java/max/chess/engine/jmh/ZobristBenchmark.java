@@ -0,0 +1,62 @@
+package max.chess.engine.jmh;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.game.ZobristHashKeys;
+import max.chess.engine.movegen.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zobrist maintenance: incremental per-move updates (what make/unmake does) versus a full
+ * recomputation from the board (what the book probe and debug checks do).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZobristBenchmark {
+    private PositionCorpus corpus;
+
+    @Setup
+    public void setup() {
+        corpus = new PositionCorpus();
+    }
+
+    @Benchmark
+    public long incrementalMoveUpdate() {
+        long acc = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            Game game = corpus.games[i];
+            long key = game.zobristKey();
+            int color = game.currentPlayer;
+            for (int move : corpus.legalMoves[i]) {
+                byte piece = Move.getPieceType(move);
+                long k = ZobristHashKeys.switchPiecePresence(key, piece, color, Move.getStartPosition(move));
+                k = ZobristHashKeys.switchPiecePresence(k, piece, color, Move.getEndPosition(move));
+                acc ^= ZobristHashKeys.switchPlayer(k);
+            }
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public long fullRecompute() {
+        long acc = 0;
+        for (Game game : corpus.games) {
+            acc ^= ZobristHashKeys.getHashKey(game);
+        }
+        return acc;
+    }
+}
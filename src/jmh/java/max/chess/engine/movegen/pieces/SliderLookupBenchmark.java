@@ -0,0 +1,124 @@
+package max.chess.engine.movegen.pieces;
+
+import max.chess.engine.common.Pext;
+import max.chess.engine.jmh.PositionCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slider lookups for every square against every corpus occupancy: Rook/Bishop (separate MASK/MAGIC/SHIFT/OFFSET
+ * arrays), SliderAttacks (packed records, one shared table) and PEXT indexing through the deprecated FFM binding.
+ * Without the native library (or off x86) the PEXT variant runs the same bit loop in Java, which is reported
+ * in the setup output. Lives in the pieces package for the package-private magic accessors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SliderLookupBenchmark {
+    private long[] occupancies;
+
+    private boolean nativePext;
+    private final long[] rookMasks = new long[64];
+    private final int[] rookPextOffsets = new int[64];
+    private long[] rookPextTable;
+
+    @Setup
+    public void setup() {
+        PositionCorpus corpus = new PositionCorpus();
+        occupancies = new long[corpus.size()];
+        for (int i = 0; i < corpus.size(); i++) occupancies[i] = corpus.games[i].board().gameBB;
+        SliderAttacks.warmUp();
+
+        try {
+            nativePext = Pext.isBmi2();
+        } catch (Throwable t) {
+            nativePext = false;
+        }
+        System.out.println("PEXT: " + (nativePext ? "native (FFM)" : "software fallback"));
+
+        int total = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            rookMasks[sq] = Rook.relevantMask(sq);
+            rookPextOffsets[sq] = total;
+            total += 1 << Long.bitCount(rookMasks[sq]);
+        }
+        rookPextTable = new long[total];
+        for (int sq = 0; sq < 64; sq++) {
+            long mask = rookMasks[sq];
+            long subset = 0L;
+            while (true) {
+                rookPextTable[rookPextOffsets[sq] + (int) pext(subset, mask)] = Rook.slidingAttacks(sq, subset);
+                if (subset == mask) break;
+                subset = (subset - mask) & mask;
+            }
+        }
+    }
+
+    @Benchmark
+    public long rookMagic() {
+        long acc = 0;
+        for (long occ : occupancies) {
+            for (int sq = 0; sq < 64; sq++) acc ^= Rook.getAttackBB(sq, occ);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public long rookPacked() {
+        long acc = 0;
+        for (long occ : occupancies) {
+            for (int sq = 0; sq < 64; sq++) acc ^= SliderAttacks.rookAttacks(sq, occ);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public long rookPext() {
+        long acc = 0;
+        for (long occ : occupancies) {
+            for (int sq = 0; sq < 64; sq++) acc ^= rookPextTable[rookPextOffsets[sq] + (int) pext(occ, rookMasks[sq])];
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public long bishopMagic() {
+        long acc = 0;
+        for (long occ : occupancies) {
+            for (int sq = 0; sq < 64; sq++) acc ^= Bishop.getAttackBB(sq, occ);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public long bishopPacked() {
+        long acc = 0;
+        for (long occ : occupancies) {
+            for (int sq = 0; sq < 64; sq++) acc ^= SliderAttacks.bishopAttacks(sq, occ);
+        }
+        return acc;
+    }
+
+    private long pext(long src, long mask) {
+        if (nativePext) return Pext.pext64(src, mask);
+        long out = 0, bit = 1;
+        for (long m = mask; m != 0; m &= (m - 1)) {
+            if ((src & m & -m) != 0) out |= bit;
+            bit <<= 1;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,71 @@
+package max.chess.engine.search;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.jmh.PositionCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Static exchange evaluation of every tactical move of the corpus.
+ * Lives in the search package because MoveOrdering and StaticExchange are package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeeBenchmark {
+    private Game[] games;
+    private int[][] captures;
+
+    @Setup
+    public void setup() {
+        PositionCorpus corpus = new PositionCorpus();
+        games = corpus.games;
+        captures = new int[corpus.size()][];
+        for (int i = 0; i < corpus.size(); i++) {
+            int[] legal = corpus.legalMoves[i];
+            int[] tactical = new int[legal.length];
+            int n = 0;
+            for (int move : legal) {
+                if (MoveOrdering.isTactical(games[i], move)) tactical[n++] = move;
+            }
+            captures[i] = Arrays.copyOf(tactical, n);
+        }
+    }
+
+    @Benchmark
+    public int see() {
+        int acc = 0;
+        for (int i = 0; i < games.length; i++) {
+            Game game = games[i];
+            for (int move : captures[i]) acc += StaticExchange.see(game, move);
+        }
+        return acc;
+    }
+
+    // What the search asks: the pruning tests only need the sign against a threshold
+    @Benchmark
+    public int seeGE() {
+        int acc = 0;
+        for (int i = 0; i < games.length; i++) {
+            Game game = games[i];
+            for (int move : captures[i]) {
+                if (StaticExchange.seeGE(game, move, 0)) acc++;
+            }
+        }
+        return acc;
+    }
+}
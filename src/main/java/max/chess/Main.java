@@ -1,5 +1,7 @@
 package max.chess;
 
+import max.chess.engine.book.polyglot.PolyglotBookBuilder;
+import max.chess.engine.record.PgnExport;
 import max.chess.engine.uci.UciEngine;
 import max.chess.engine.uci.UciEngineImpl;
 import max.chess.engine.uci.UciServer;
@@ -7,5 +9,34 @@ import max.chess.engine.uci.UciServer;
 public class Main {
     public static void main(String[] args) {
         UciEngine engine = new UciEngineImpl(); // your implementation
+        if (args.length > 0 && args[0].equals("bench")) {
+            // CLI: bench [depth] [threads] [hashMb]
+            engine.bench(intArg(args, 1), intArg(args, 2), intArg(args, 3), System.out::println);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("makebook")) {
+            // CLI: makebook <games.pgn> <book.bin> [minGames] [maxPly] [threads]
+            try {
+                PolyglotBookBuilder.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            } catch (java.io.IOException e) {
+                System.err.println("makebook failed: " + e.getMessage());
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("pgnexport")) {
+            // CLI: pgnexport <games.log> <games.pgn> [event]
+            try {
+                PgnExport.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            } catch (java.io.IOException e) {
+                System.err.println("pgnexport failed: " + e.getMessage());
+            }
+            return;
+        }
         new UciServer("MaxBot", "Max", engine).run();
-    }}
\ No newline at end of file
+    }
+
+    private static int intArg(String[] args, int i) {
+        if (i >= args.length) return 0;
+        try { return Integer.parseInt(args[i]); } catch (NumberFormatException e) { return 0; }
+    }
+}
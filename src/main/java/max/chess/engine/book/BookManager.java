@@ -1,10 +1,14 @@
 package max.chess.engine.book;
 
+import max.chess.engine.book.polyglot.MergedPolyglotBook;
+import max.chess.engine.book.polyglot.PolyglotBook;
 import max.chess.engine.game.Game;
 import max.chess.engine.utils.notations.MoveIOUtils;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 
@@ -13,60 +17,82 @@ public final class BookManager {
     private volatile BookPolicy policy = BookPolicy.defaults();
     private volatile boolean enabled = true;
     private volatile int pliesPlayed = 0;
+    private volatile BookMergePolicy mergePolicy = BookMergePolicy.FIRST_HIT;
 
     public void setEnabled(boolean v) { enabled = v; }
     public void setPolicy(BookPolicy p) { policy = p; }
     public void setPliesPlayed(int plies) { pliesPlayed = Math.max(0, plies); }
 
-    /** Accepts 'classpath:...' or a filesystem path (file or directory). */
+    /**
+     * Accepts 'classpath:...' or a filesystem path (file or directory); several of them separated by ';' are
+     * probed together, in that order, combined with the merge policy.
+     */
     public void loadAuto(String resourceOrPath) {
         close();
         if (resourceOrPath == null || resourceOrPath.isBlank()) return;
 
-        try {
-            if (resourceOrPath.startsWith("classpath:")) {
-                String res = resourceOrPath.substring("classpath:".length());
-                var cl = Thread.currentThread().getContextClassLoader();
-                var url = cl.getResource(res);
-                if (url == null) return;
-
-                // If it's a directory on the filesystem (dev), list .bin; otherwise treat as file resource
-                if ("file".equalsIgnoreCase(url.getProtocol())) {
-                    var p = java.nio.file.Paths.get(url.toURI());
-                    if (java.nio.file.Files.isDirectory(p)) {
-                        var bin = resolveBin(p);
-                        if (bin != null) {
-                            book = new max.chess.engine.book.polyglot.PolyglotBook(bin);
-                            return;
-                        }
-                    }
-                }
-
-                try (var in = cl.getResourceAsStream(res)) {
-                    if (in != null) book = new max.chess.engine.book.polyglot.PolyglotBook(in);
-                }
-                return;
+        List<PolyglotBook> books = new ArrayList<>();
+        for (String spec : resourceOrPath.split(";")) {
+            if (spec.isBlank()) continue;
+            try {
+                PolyglotBook b = openOne(spec.trim());
+                if (b != null) books.add(b);
+            } catch (Exception ignore) {
+                // noop: this book is skipped
             }
+        }
+        if (!books.isEmpty()) book = new MergedPolyglotBook(books, mergePolicy, MergedPolyglotBook.DEFAULT_CACHE_SIZE);
+    }
 
-            // Filesystem path
-            var path = java.nio.file.Paths.get(resourceOrPath);
-            java.nio.file.Path bin = java.nio.file.Files.isDirectory(path) ? resolveBin(path) : path;
-            if (bin != null) book = new max.chess.engine.book.polyglot.PolyglotBook(bin);
-        } catch (Exception ignore) {
-            // noop: no book loaded
+    private static PolyglotBook openOne(String resourceOrPath) throws Exception {
+        if (resourceOrPath.startsWith("classpath:")) {
+            String res = resourceOrPath.substring("classpath:".length());
+            var cl = Thread.currentThread().getContextClassLoader();
+            var url = cl.getResource(res);
+            if (url == null) return null;
+
+            // On the filesystem (dev) map the file, or the first .bin of a directory, in place;
+            // a resource inside a jar gets extracted to a temp file by the book
+            if ("file".equalsIgnoreCase(url.getProtocol())) {
+                var bin = resolveBin(java.nio.file.Paths.get(url.toURI()));
+                if (bin != null) return new PolyglotBook(bin);
+            }
+
+            try (var in = cl.getResourceAsStream(res)) {
+                return in != null ? new PolyglotBook(in) : null;
+            }
         }
+
+        // Filesystem path
+        var path = java.nio.file.Paths.get(resourceOrPath);
+        java.nio.file.Path bin = java.nio.file.Files.isDirectory(path) ? resolveBin(path) : path;
+        return bin != null ? new PolyglotBook(bin) : null;
     }
 
     public void loadFile(java.nio.file.Path file) throws java.io.IOException {
         close();
-        book = new max.chess.engine.book.polyglot.PolyglotBook(file);
+        book = new MergedPolyglotBook(List.of(new PolyglotBook(file)), mergePolicy, MergedPolyglotBook.DEFAULT_CACHE_SIZE);
     }
 
     public void loadClasspath(String resPath) throws java.io.IOException {
         close();
-        var in = Thread.currentThread().getContextClassLoader().getResourceAsStream(resPath);
-        if (in == null) throw new java.io.IOException("Resource not found: " + resPath);
-        book = new max.chess.engine.book.polyglot.PolyglotBook(in);
+        try (var in = Thread.currentThread().getContextClassLoader().getResourceAsStream(resPath)) {
+            if (in == null) throw new java.io.IOException("Resource not found: " + resPath);
+            book = new MergedPolyglotBook(List.of(new PolyglotBook(in)), mergePolicy, MergedPolyglotBook.DEFAULT_CACHE_SIZE);
+        }
+    }
+
+    /** Applies to the loaded books right away (their probe cache is dropped) and to later loads. */
+    public void setMergePolicy(BookMergePolicy p) {
+        mergePolicy = p;
+        if (book instanceof MergedPolyglotBook merged) merged.setMergePolicy(p);
+    }
+
+    /** Reads the mapped books in; no-op when nothing is loaded. */
+    public void prefault() {
+        if (book instanceof MergedPolyglotBook merged) {
+            try { merged.prefault(); } catch (RuntimeException ignored) { /* closed by a concurrent load */ }
+        }
     }
 
     public void close() {
@@ -82,7 +108,8 @@ public final class BookManager {
         if (pliesPlayed > policy.maxPlies()) return Optional.empty();
 
         long seed = System.nanoTime() ^ Thread.currentThread().getId();
-        return book.pickMove(game, policy, seed).map(MoveIOUtils::writeAlgebraicNotation);
+        int move = book.probeMove(game, policy, seed);
+        return move == 0 ? Optional.empty() : Optional.of(MoveIOUtils.writeAlgebraicNotation(move));
     }
 
     private static java.nio.file.Path resolveBin(java.nio.file.Path hint) throws java.io.IOException {
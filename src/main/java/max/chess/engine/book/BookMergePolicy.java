@@ -0,0 +1,24 @@
+package max.chess.engine.book;
+
+import java.util.Locale;
+
+/** How the candidate moves of several books are combined for one position. */
+public enum BookMergePolicy {
+    /** Moves of the first book, in load order, that knows the position. */
+    FIRST_HIT,
+    /** Union of the moves, weights added up across books. */
+    WEIGHT_SUM,
+    /** Union of the moves, each with its largest weight. */
+    MAX_WEIGHT;
+
+    /** Accepts the UCI spellings "first", "sum" and "max" as well as the constant names. */
+    public static BookMergePolicy parse(String value, BookMergePolicy fallback) {
+        if (value == null) return fallback;
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "first", "first_hit", "firsthit" -> FIRST_HIT;
+            case "sum", "weight_sum", "weightsum" -> WEIGHT_SUM;
+            case "max", "max_weight", "maxweight" -> MAX_WEIGHT;
+            default -> fallback;
+        };
+    }
+}
@@ -5,8 +5,13 @@ import max.chess.engine.game.Game;
 import java.util.Optional;
 
 public interface OpeningBook extends AutoCloseable {
-    /** Returns a legal move (engine int) from the book for this game, or empty if not found / out of policy. */
-    Optional<Integer> pickMove(Game game, BookPolicy policy, long rngSeed);
+    /** Returns a legal move (engine int) from the book for this game, or 0 if not found / out of policy. */
+    int probeMove(Game game, BookPolicy policy, long rngSeed);
+    /** Boxed variant of {@link #probeMove}. */
+    default Optional<Integer> pickMove(Game game, BookPolicy policy, long rngSeed) {
+        int move = probeMove(game, policy, rngSeed);
+        return move == 0 ? Optional.empty() : Optional.of(move);
+    }
     /** @return true if the book has loaded data and is operational. */
     boolean isLoaded();
     @Override void close();
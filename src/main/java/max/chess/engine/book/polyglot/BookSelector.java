@@ -0,0 +1,70 @@
+package max.chess.engine.book.polyglot;
+
+import max.chess.engine.book.BookPolicy;
+import max.chess.engine.game.Game;
+
+/**
+ * Move choice among the book entries of a position, shared by {@link PolyglotBook} (a range of the mapped file)
+ * and {@link MergedPolyglotBook} (merged candidates). With no randomness the heaviest move wins (or the lowest
+ * packed move when the mainline is not preferred); otherwise moves are sampled on their tempered weight w^alpha,
+ * in two passes over the entries instead of a candidate list.
+ */
+final class BookSelector {
+    /** Entries {@code [from, to)} of one position. */
+    interface Entries {
+        /** The packed engine move of the entry, 0 if it is not legal in the game. */
+        int move(Game game, long i);
+
+        int weight(long i);
+    }
+
+    private BookSelector() {}
+
+    static int select(Game game, BookPolicy policy, long rngSeed, Entries entries, long from, long to) {
+        if (policy.randomnessPct() <= 0) { // deterministic
+            int best = 0, bestWeight = -1;
+            for (long i = from; i < to; i++) {
+                int weight = entries.weight(i);
+                if (weight < policy.minWeight()) continue;
+                int mv = entries.move(game, i);
+                if (mv == 0) continue;
+                boolean better = policy.preferMainline()
+                        ? weight > bestWeight
+                        : best == 0 || mv < best;
+                if (better) { best = mv; bestWeight = weight; }
+            }
+            return best;
+        }
+
+        double alpha = 1.0 / Math.max(1e-9, (policy.randomnessPct() / 100.0) * 3.0);
+        double sum = 0;
+        for (long i = from; i < to; i++) {
+            int weight = entries.weight(i);
+            if (weight < policy.minWeight() || entries.move(game, i) == 0) continue;
+            sum += Math.pow(weight, alpha);
+        }
+        if (sum <= 0) return 0;
+
+        double r = unitDouble(rngSeed ^ game.zobristKey()) * sum;
+        int last = 0;
+        for (long i = from; i < to; i++) {
+            int weight = entries.weight(i);
+            if (weight < policy.minWeight()) continue;
+            int mv = entries.move(game, i);
+            if (mv == 0) continue;
+            last = mv;
+            r -= Math.pow(weight, alpha);
+            if (r <= 0) return mv;
+        }
+        return last;
+    }
+
+    // SplitMix64 finalizer, top 53 bits as a double in [0, 1)
+    static double unitDouble(long seed) {
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (z >>> 11) * 0x1.0p-53;
+    }
+}
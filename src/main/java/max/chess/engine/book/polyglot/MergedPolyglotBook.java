@@ -0,0 +1,146 @@
+package max.chess.engine.book.polyglot;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import max.chess.engine.book.BookMergePolicy;
+import max.chess.engine.book.BookPolicy;
+import max.chess.engine.book.OpeningBook;
+import max.chess.engine.game.Game;
+import max.chess.engine.movegen.MoveGenerator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Several Polyglot books probed as one, in load order, combined with a {@link BookMergePolicy}.
+ * <p>
+ * The merged (engine move, weight) candidates of the last probed keys are kept in a small LRU cache, misses
+ * included: the early positions every game goes through cost one lookup per engine process. Entries are merged on
+ * the engine move they decode to, so a castle written king-takes-rook in one book and as the king's two-square
+ * step in another is one candidate.
+ */
+public final class MergedPolyglotBook implements OpeningBook {
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private static final Candidates NONE = new Candidates(new int[0], new int[0]);
+
+    // Legal engine moves of the position and their merged weights
+    private record Candidates(int[] moves, int[] weights) implements BookSelector.Entries {
+        // still checked: a cached key could be a zobrist collision
+        @Override public int move(Game game, long i) {
+            final int mv = moves[(int) i];
+            return MoveGenerator.isLegal(game, mv) ? mv : 0;
+        }
+
+        @Override public int weight(long i) { return weights[(int) i]; }
+    }
+
+    private final List<PolyglotBook> books;
+    private final int cacheSize;
+    private final Long2ObjectLinkedOpenHashMap<Candidates> cache = new Long2ObjectLinkedOpenHashMap<>();
+    private volatile BookMergePolicy mergePolicy;
+
+    public MergedPolyglotBook(List<PolyglotBook> books, BookMergePolicy mergePolicy, int cacheSize) {
+        this.books = List.copyOf(books);
+        this.mergePolicy = mergePolicy;
+        this.cacheSize = Math.max(0, cacheSize);
+    }
+
+    public void setMergePolicy(BookMergePolicy mergePolicy) {
+        if (this.mergePolicy == mergePolicy) return;
+        synchronized (cache) {
+            this.mergePolicy = mergePolicy;
+            cache.clear();
+        }
+    }
+
+    public int size() { return books.size(); }
+
+    @Override public boolean isLoaded() {
+        for (PolyglotBook b : books) {
+            if (b.isLoaded()) return true;
+        }
+        return false;
+    }
+
+    /** {@link PolyglotBook#prefault} on every book. */
+    public void prefault() {
+        for (PolyglotBook b : books) b.prefault();
+    }
+
+    @Override public void close() {
+        for (PolyglotBook b : books) b.close();
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /** Same selection as {@link PolyglotBook#probeMove}, over the merged candidates. */
+    @Override
+    public int probeMove(Game game, BookPolicy policy, long rngSeed) {
+        final Candidates c = candidates(game);
+        return BookSelector.select(game, policy, rngSeed, c, 0, c.moves().length);
+    }
+
+    private Candidates candidates(Game game) {
+        final long key = game.zobristKey();
+        if (cacheSize > 0) {
+            synchronized (cache) {
+                Candidates hit = cache.getAndMoveToLast(key);
+                if (hit != null) return hit;
+            }
+        }
+        final BookMergePolicy policy = mergePolicy;
+        final Candidates c = merge(game, key, policy);
+        if (cacheSize > 0) {
+            synchronized (cache) {
+                // a policy change in between cleared the cache: don't put back a stale merge
+                if (policy == mergePolicy) {
+                    cache.putAndMoveToLast(key, c);
+                    if (cache.size() > cacheSize) cache.removeFirst();
+                }
+            }
+        }
+        return c;
+    }
+
+    private Candidates merge(Game game, long key, BookMergePolicy policy) {
+        int[] moves = null;
+        int[] weights = null;
+        int n = 0;
+        for (PolyglotBook book : books) {
+            long i = book.lowerBound(key);
+            if (i >= book.entryCount() || book.getKey(i) != key) continue;
+            if (moves == null) {
+                moves = new int[8];
+                weights = new int[8];
+            }
+            for (; i < book.entryCount() && book.getKey(i) == key; i++) {
+                // engine moves: the same castle may be king-takes-rook in one book and two squares in another
+                final int move = PolyglotBook.toEngineMove(game, book.getMove(i));
+                if (move == 0) continue;
+                final int weight = book.getWeight(i);
+                int at = -1;
+                if (policy != BookMergePolicy.FIRST_HIT) {
+                    for (int j = 0; j < n; j++) {
+                        if (moves[j] == move) { at = j; break; }
+                    }
+                }
+                if (at >= 0) {
+                    weights[at] = policy == BookMergePolicy.WEIGHT_SUM
+                            ? weights[at] + weight
+                            : Math.max(weights[at], weight);
+                    continue;
+                }
+                if (n == moves.length) {
+                    moves = Arrays.copyOf(moves, n * 2);
+                    weights = Arrays.copyOf(weights, n * 2);
+                }
+                moves[n] = move;
+                weights[n] = weight;
+                n++;
+            }
+            if (policy == BookMergePolicy.FIRST_HIT) break;
+        }
+        return n == 0 ? NONE : new Candidates(Arrays.copyOf(moves, n), Arrays.copyOf(weights, n));
+    }
+}
@@ -3,192 +3,183 @@ package max.chess.engine.book.polyglot;
 import max.chess.engine.book.BookPolicy;
 import max.chess.engine.book.OpeningBook;
 import max.chess.engine.game.Game;
-import max.chess.engine.game.ZobristHashKeys;
+import max.chess.engine.game.board.Board;
 import max.chess.engine.movegen.Move;
 import max.chess.engine.movegen.MoveGenerator;
 import max.chess.engine.utils.PieceUtils;
 
 import java.io.IOException;
-import java.util.*;
-
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Polyglot book read from a memory-mapped {@link MemorySegment}: no 2 GB cap, entries are addressed by long index.
+ * <p>
+ * The first key of every 4 KB page of the file is kept on the heap (8 bytes per 256 entries). A probe searches
+ * that index, then only the one page that can hold the first entry of the key, so it touches one or two pages of
+ * the mapping instead of log2(N) of them.
+ */
 public final class PolyglotBook implements OpeningBook {
     private static final int ENTRY_BYTES = 16;
-
-    private final java.nio.file.Path file; // may be null for classpath stream
-    private final java.nio.channels.FileChannel ch; // may be null
-    private final java.nio.ByteBuffer buf;
-    private final int entryCount;
+    private static final int PAGE_ENTRIES = 4096 / ENTRY_BYTES;
+
+    private static final ValueLayout.OfLong KEY = ValueLayout.JAVA_LONG.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfShort U16 = ValueLayout.JAVA_SHORT.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Path file;
+    private final boolean deleteOnClose; // extracted classpath copy
+    private final Arena arena;
+    private final MemorySegment seg;
+    private final long entryCount;
+    private final long[] pageKeys;       // first key of each page
+    private final BookSelector.Entries entries = new BookSelector.Entries() {
+        @Override public int move(Game game, long i) { return toEngineMove(game, getMove(i)); }
+        @Override public int weight(long i) { return getWeight(i); }
+    };
 
     /** Filesystem-backed, memory-mapped. */
-    public PolyglotBook(java.nio.file.Path file) throws java.io.IOException {
-        this.file = file;
-        this.ch = java.nio.channels.FileChannel.open(file);
-        long size = ch.size();
-        if (size % ENTRY_BYTES != 0) throw new java.io.IOException("Invalid polyglot size: " + size);
-        this.entryCount = (int) (size / ENTRY_BYTES);
-        this.buf = ch.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, 0, size).order(java.nio.ByteOrder.BIG_ENDIAN);
+    public PolyglotBook(Path file) throws IOException {
+        this(file, false);
     }
 
-    /** Classpath-backed: read bytes into a direct buffer. */
-    public PolyglotBook(java.io.InputStream in) throws java.io.IOException {
-        this.file = null;
-        this.ch = null;
-        byte[] bytes = in.readAllBytes();
-        if (bytes.length % ENTRY_BYTES != 0) throw new java.io.IOException("Invalid polyglot size: " + bytes.length);
-        this.entryCount = bytes.length / ENTRY_BYTES;
-        var bb = java.nio.ByteBuffer.allocateDirect(bytes.length).order(java.nio.ByteOrder.BIG_ENDIAN);
-        bb.put(bytes).flip();
-        this.buf = bb;
+    /** Classpath-backed: extracted to a temp file that is mapped, and deleted on close. */
+    public PolyglotBook(InputStream in) throws IOException {
+        this(extract(in), true);
     }
 
-    @Override public boolean isLoaded() { return entryCount > 0; }
-
-    @Override public void close() {
-        try { if (ch != null) ch.close(); } catch (java.io.IOException ignored) {}
-    }
-
-    @Override
-    public Optional<Integer> pickMove(Game game, BookPolicy policy, long rngSeed) {
-        long key = polyglotKey(game);
-        int lo = lowerBound(key), hi = upperBound(key);
-        if (lo >= hi) return Optional.empty();
-
-        // Gather candidates, map to legal engine moves with weights
-        int[] legal = MoveGenerator.generateMoves(game);
-        List<Entry> choices = new ArrayList<>(hi - lo);
-        for (int i = lo; i < hi; i++) {
-            long k = getKey(i);
-            if (k != key) break;
-            int pMove = getMove(i);
-            int weight = getWeight(i);
-
-            if (weight < policy.minWeight()) continue;
-            int mv = toEngineMove(pMove, legal);
-            if (mv != 0) choices.add(new Entry(mv, weight));
+    private PolyglotBook(Path file, boolean deleteOnClose) throws IOException {
+        this.file = file;
+        this.deleteOnClose = deleteOnClose;
+        this.arena = Arena.ofShared();
+        try (FileChannel ch = FileChannel.open(file)) {
+            long size = ch.size();
+            if (size % ENTRY_BYTES != 0) throw new IOException("Invalid polyglot size: " + size);
+            // the mapping stays valid once the channel is closed
+            this.seg = ch.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+            this.entryCount = size / ENTRY_BYTES;
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            if (deleteOnClose) Files.deleteIfExists(file);
+            throw e;
         }
-        if (choices.isEmpty()) return Optional.empty();
-
-        if (policy.randomnessPct() <= 0) { // deterministic
-            choices.sort((a, b) -> {
-                if (policy.preferMainline()) return Integer.compare(b.w, a.w);
-                return Integer.compare(a.mv, b.mv);
-            });
-            return Optional.of(choices.get(0).mv);
-        } else {
-            // tempered weight sampling: w^alpha
-            double alpha = 1.0 / Math.max(1e-9, (policy.randomnessPct() / 100.0) * 3.0);
-            double sum = 0;
-            for (Entry e : choices) { e.score = Math.pow(e.w, alpha); sum += e.score; }
-            double r = new java.util.Random(rngSeed ^ key).nextDouble() * sum;
-            for (Entry e : choices) { r -= e.score; if (r <= 0) return Optional.of(e.mv); }
-            return Optional.of(choices.get(choices.size() - 1).mv);
+        this.pageKeys = new long[(int) ((entryCount + PAGE_ENTRIES - 1) / PAGE_ENTRIES)];
+        for (int p = 0; p < pageKeys.length; p++) {
+            pageKeys[p] = getKey((long) p * PAGE_ENTRIES);
         }
     }
 
-    /* ---------------- implementation details ---------------- */
-
-    private static final class Entry {
-        private final int mv;
-        private final int w;
-
-        double score;
-
-        private Entry(int mv, int w) {
-            this.mv = mv;
-            this.w = w;
-        }
-
-        public int mv() {
-            return mv;
+    private static Path extract(InputStream in) throws IOException {
+        Path tmp = Files.createTempFile("polyglot-book", ".bin");
+        try {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
         }
+        tmp.toFile().deleteOnExit();
+        return tmp;
+    }
 
-        public int w() {
-            return w;
-        }
+    @Override public boolean isLoaded() { return entryCount > 0; }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == this) return true;
-            if (obj == null || obj.getClass() != this.getClass()) return false;
-            var that = (Entry) obj;
-            return this.mv == that.mv &&
-                this.w == that.w;
-        }
+    long entryCount() { return entryCount; }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(mv, w);
-        }
+    /** Reads the whole mapping in (one touch per page), so that the first probes of a game do not fault. */
+    public void prefault() {
+        if (arena.scope().isAlive()) seg.load();
+    }
 
-        @Override
-        public String toString() {
-            return "Entry[" +
-                "mv=" + mv + ", " +
-                "w=" + w + ']';
+    @Override public void close() {
+        if (!arena.scope().isAlive()) return;
+        arena.close();
+        if (deleteOnClose) {
+            try { Files.deleteIfExists(file); } catch (IOException ignored) {}
         }
     }
 
-    private long polyglotKey(Game g) {
-        // Your ZobristHashKeys is already the canonical Polyglot table (781 keys),
-        // with the same offsets. We reuse it directly.
-        return ZobristHashKeys.getHashKey(g);
+    /**
+     * Allocation-free: the key is the incremental one of the game, entries are decoded and checked one by one
+     * with {@link MoveGenerator#isLegal} instead of being matched against a generated move list. The choice
+     * itself is {@link BookSelector#select}.
+     */
+    @Override
+    public int probeMove(Game game, BookPolicy policy, long rngSeed) {
+        // Game's incremental key follows the Polyglot spec, en passant file included
+        final long key = game.zobristKey();
+        final long lo = lowerBound(key);
+        if (lo >= entryCount || getKey(lo) != key) return 0;
+
+        long hi = lo + 1;
+        while (hi < entryCount && getKey(hi) == key) hi++;
+        return BookSelector.select(game, policy, rngSeed, entries, lo, hi);
     }
 
-    private long getKey(int idx) {
-        int off = idx * ENTRY_BYTES;
-        return buf.getLong(off);
+    /* ---------------- implementation details ---------------- */
+
+    long getKey(long idx) {
+        return seg.get(KEY, idx * ENTRY_BYTES);
     }
-    private int getMove(int idx) {
-        int off = idx * ENTRY_BYTES + 8;
-        return buf.getShort(off) & 0xFFFF;
+    int getMove(long idx) {
+        return seg.get(U16, idx * ENTRY_BYTES + 8) & 0xFFFF;
     }
-    private int getWeight(int idx) {
-        int off = idx * ENTRY_BYTES + 10;
-        return buf.getShort(off) & 0xFFFF;
+    int getWeight(long idx) {
+        return seg.get(U16, idx * ENTRY_BYTES + 10) & 0xFFFF;
     }
-    private int lowerBound(long key) {
-        int lo = 0, hi = entryCount;
+
+    /** First entry whose key is not below {@code key} (unsigned order), or entryCount. */
+    long lowerBound(long key) {
+        // last page starting below the key: the run of 'key' can only begin inside it
+        int lo = 0, hi = pageKeys.length;
         while (lo < hi) {
             int mid = (lo + hi) >>> 1;
-            long k = getKey(mid);
-            int cmp = Long.compareUnsigned(k, key);
-            if (cmp < 0) lo = mid + 1; else hi = mid;
+            if (Long.compareUnsigned(pageKeys[mid], key) < 0) lo = mid + 1; else hi = mid;
         }
-        return lo;
-    }
-    private int upperBound(long key) {
-        int lo = 0, hi = entryCount;
-        while (lo < hi) {
-            int mid = (lo + hi) >>> 1;
-            long k = getKey(mid);
-            int cmp = Long.compareUnsigned(k, key);
-            if (cmp <= 0) lo = mid + 1; else hi = mid;
+        if (lo == 0) return 0;
+
+        long first = (long) (lo - 1) * PAGE_ENTRIES;
+        long l = first + 1, h = Math.min(first + PAGE_ENTRIES, entryCount);
+        while (l < h) {
+            long mid = (l + h) >>> 1;
+            if (Long.compareUnsigned(getKey(mid), key) < 0) l = mid + 1; else h = mid;
         }
-        return lo;
+        return l;
     }
 
-    /** Convert 16-bit polyglot move to our engine move by matching against legals. */
-    private static int toEngineMove(int poly, int[] legalMoves) {
-        int from = (poly >>> 6) & 0x3F;
-        int to   =  poly        & 0x3F;
-        int promoNibble = (poly >>> 12) & 0xF;
-        byte promo = switch (promoNibble) {
-            case 1 -> PieceUtils.KNIGHT;
-            case 2 -> PieceUtils.BISHOP;
-            case 3 -> PieceUtils.ROOK;
-            case 4 -> PieceUtils.QUEEN;
-            default -> PieceUtils.NONE;
-        };
-
-        // Match against legal list
-        for (int mv : legalMoves) {
-            if (Move.getStartPosition(mv) != from) continue;
-            if (Move.getEndPosition(mv) != to) continue;
-            // Promotion piece is stored in the promotion nibble, not the piece-type nibble
-            byte mvPromo = Move.getPromotion(mv);
-            if (mvPromo != promo) continue;
-            return mv;
+    /**
+     * Convert a 16-bit polyglot move to our engine move, or 0 if it is not legal here.
+     * Polyglot writes castling as the king taking its own rook (e1h1); plain e1g1 is accepted too.
+     */
+    static int toEngineMove(Game game, int poly) {
+        final int from = (poly >>> 6) & 0x3F;
+        final int to   =  poly        & 0x3F;
+        final Board board = game.board();
+        final byte pieceType = board.getPieceTypeAt(from);
+        if (pieceType == PieceUtils.NONE || board.getPieceColorAt(from) != game.currentPlayer) return 0;
+
+        final int mv;
+        if (pieceType == PieceUtils.KING && (from == 4 || from == 60) && (to == from + 3 || to == from + 2)) {
+            mv = from == 4 ? Move.CASTLE_KING_SIDE_WHITE_MOVE : Move.CASTLE_KING_SIDE_BLACK_MOVE;
+        } else if (pieceType == PieceUtils.KING && (from == 4 || from == 60) && (to == from - 4 || to == from - 2)) {
+            mv = from == 4 ? Move.CASTLE_QUEEN_SIDE_WHITE_MOVE : Move.CASTLE_QUEEN_SIDE_BLACK_MOVE;
+        } else if (pieceType == PieceUtils.PAWN && to == board.enPassantIndex && ((to - from) & 7) != 0) {
+            mv = Move.asBytesEnPassant(from, to);
+        } else {
+            byte promo = switch ((poly >>> 12) & 0x7) {
+                case 1 -> PieceUtils.KNIGHT;
+                case 2 -> PieceUtils.BISHOP;
+                case 3 -> PieceUtils.ROOK;
+                case 4 -> PieceUtils.QUEEN;
+                default -> PieceUtils.NONE;
+            };
+            mv = Move.asBytes(from, to, pieceType, promo);
         }
-        return 0;
+        return MoveGenerator.isLegal(game, mv) ? mv : 0;
     }
 }
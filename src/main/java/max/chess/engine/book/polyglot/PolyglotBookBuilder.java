@@ -0,0 +1,512 @@
+package max.chess.engine.book.polyglot;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import max.chess.engine.game.Game;
+import max.chess.engine.movegen.Move;
+import max.chess.engine.utils.ColorUtils;
+import max.chess.engine.utils.PieceUtils;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.engine.utils.notations.MoveIOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compiles PGN game collections into a Polyglot book.
+ * <p>
+ * The PGN is memory-mapped and cut into one slice per thread on {@code [Event} boundaries. Each thread replays its
+ * games with {@link MoveIOUtils#parseSanMove} and counts, per (position key, move), the games and the score of the
+ * side that played it (win 2, draw 1). When a thread's table outgrows its share of {@link #maxEntriesInMemory} it is
+ * sorted and spilled to a run file; the final pass k-way merges the runs (and the tables still in memory), drops
+ * moves seen in fewer than {@link #minGames} games or that never scored, and writes the book sorted by key, heaviest
+ * move first.
+ * <p>
+ * Games without a result ({@code *}) and games with a move that does not parse are skipped.
+ */
+public final class PolyglotBookBuilder {
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private int minGames = 1;
+    private int maxPly = 40;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long maxEntriesInMemory = 8_000_000;
+    private Path tempDir;
+
+    public record Stats(long games, long skippedGames, long entries) {}
+
+    /** Moves played in fewer games are left out of the book. */
+    public PolyglotBookBuilder minGames(int v) { minGames = Math.max(1, v); return this; }
+    /** Only the first plies of each game are recorded. */
+    public PolyglotBookBuilder maxPly(int v) { maxPly = Math.max(1, v); return this; }
+    public PolyglotBookBuilder threads(int v) { threads = Math.max(1, v); return this; }
+    /** Distinct (key, move) pairs held on the heap across all threads before spilling sorted runs to disk. */
+    public PolyglotBookBuilder maxEntriesInMemory(long v) { maxEntriesInMemory = Math.max(1, v); return this; }
+    /** Where run files go; the system temp directory by default. */
+    public PolyglotBookBuilder tempDir(Path v) { tempDir = v; return this; }
+
+    public Stats build(Path pgn, Path out) throws IOException {
+        final List<Path> runs = new ArrayList<>();
+        final List<Worker> workers = new ArrayList<>();
+        try (Arena arena = Arena.ofShared(); FileChannel ch = FileChannel.open(pgn)) {
+            final MemorySegment seg = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size(), arena);
+            final long[] bounds = slice(seg, threads);
+            final int perWorker = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, maxEntriesInMemory / threads));
+
+            final ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                final List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    if (bounds[t] >= bounds[t + 1]) continue;
+                    Worker w = new Worker(seg, bounds[t], bounds[t + 1], perWorker, runs);
+                    workers.add(w);
+                    futures.add(pool.submit(() -> { w.run(); return null; }));
+                }
+                for (Future<?> f : futures) f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while parsing " + pgn, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                throw new IOException("Failed to parse " + pgn, e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        try {
+            final List<Cursor> cursors = new ArrayList<>();
+            long games = 0, skipped = 0;
+            for (Worker w : workers) {
+                games += w.games;
+                skipped += w.skipped;
+                if (w.table.size() > 0) cursors.add(w.table.sortedCursor());
+            }
+            for (Path run : runs) cursors.add(new RunCursor(run));
+            long entries = merge(cursors, out);
+            return new Stats(games, skipped, entries);
+        } finally {
+            for (Path run : runs) Files.deleteIfExists(run);
+        }
+    }
+
+    /** CLI: {@code makebook <games.pgn> <book.bin> [minGames] [maxPly] [threads]} */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: makebook <games.pgn> <book.bin> [minGames] [maxPly] [threads]");
+            return;
+        }
+        PolyglotBookBuilder builder = new PolyglotBookBuilder();
+        if (args.length > 2) builder.minGames(Integer.parseInt(args[2]));
+        if (args.length > 3) builder.maxPly(Integer.parseInt(args[3]));
+        if (args.length > 4) builder.threads(Integer.parseInt(args[4]));
+        long t0 = System.nanoTime();
+        Stats stats = builder.build(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("games " + stats.games() + " skipped " + stats.skippedGames()
+                + " entries " + stats.entries() + " time_ms " + (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /* ---------------- parsing ---------------- */
+
+    // Slice boundaries, each one moved forward to the start of a "[Event" line
+    private static long[] slice(MemorySegment seg, int parts) {
+        final long size = seg.byteSize();
+        final long[] bounds = new long[parts + 1];
+        bounds[parts] = size;
+        for (int t = 1; t < parts; t++) {
+            long pos = Math.max(bounds[t - 1], size * t / parts);
+            while (pos < size && !(byteAt(seg, pos) == '[' && (pos == 0 || byteAt(seg, pos - 1) == '\n') && startsWith(seg, pos, "[Event "))) {
+                pos++;
+            }
+            bounds[t] = pos;
+        }
+        return bounds;
+    }
+
+    private static byte byteAt(MemorySegment seg, long pos) {
+        return seg.get(ValueLayout.JAVA_BYTE, pos);
+    }
+
+    private static boolean startsWith(MemorySegment seg, long pos, String s) {
+        if (pos + s.length() > seg.byteSize()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (byteAt(seg, pos + i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private final class Worker {
+        private final MemorySegment seg;
+        private final long start, end;
+        private final int maxEntries;
+        private final List<Path> runs;
+        private final Table table = new Table();
+        private final StringBuilder token = new StringBuilder(16);
+
+        // current game
+        private Game game;
+        private String fen;
+        private boolean broken;
+        private int plies;
+        private final long[] keys;
+        private final short[] moves;
+        private final boolean[] whiteToMove;
+
+        long games, skipped;
+
+        Worker(MemorySegment seg, long start, long end, int maxEntries, List<Path> runs) {
+            this.seg = seg;
+            this.start = start;
+            this.end = end;
+            this.maxEntries = maxEntries;
+            this.runs = runs;
+            this.keys = new long[maxPly];
+            this.moves = new short[maxPly];
+            this.whiteToMove = new boolean[maxPly];
+        }
+
+        void run() throws IOException {
+            long pos = start;
+            boolean lineStart = true;
+            int variationDepth = 0;
+            while (pos < end) {
+                final byte b = byteAt(seg, pos);
+                final boolean atLineStart = lineStart;
+                if (atLineStart && b == '[' && variationDepth == 0) {
+                    // tag pair: a new game starts with its tags
+                    long eol = pos;
+                    while (eol < end && byteAt(seg, eol) != '\n') eol++;
+                    if (game != null) endGame(0); // no result token: dropped
+                    if (startsWith(seg, pos, "[FEN \"")) fen = quoted(pos + 6, eol);
+                    pos = eol;
+                    continue;
+                }
+                lineStart = b == '\n';
+                if (b == '{') {
+                    while (pos < end && byteAt(seg, pos) != '}') pos++;
+                    pos++;
+                    continue;
+                }
+                if (b == ';' || (b == '%' && atLineStart)) {
+                    while (pos < end && byteAt(seg, pos) != '\n') pos++;
+                    continue;
+                }
+                if (b == '(') { variationDepth++; pos++; continue; }
+                if (b == ')') { variationDepth = Math.max(0, variationDepth - 1); pos++; continue; }
+                if (b <= ' ' || variationDepth > 0) { pos++; continue; }
+
+                token.setLength(0);
+                while (pos < end) {
+                    final byte c = byteAt(seg, pos);
+                    if (c <= ' ' || c == '{' || c == '(' || c == ')' || c == ';') break;
+                    token.append((char) c);
+                    pos++;
+                }
+                onToken();
+            }
+            if (game != null) endGame(0);
+        }
+
+        private String quoted(long from, long eol) {
+            StringBuilder sb = new StringBuilder();
+            for (long p = from; p < eol; p++) {
+                byte c = byteAt(seg, p);
+                if (c == '"') break;
+                sb.append((char) c);
+            }
+            return sb.toString();
+        }
+
+        private void onToken() throws IOException {
+            if (token.charAt(0) == '$') return; // NAG
+            if ("1-0".contentEquals(token)) { endGame(1); return; }
+            if ("0-1".contentEquals(token)) { endGame(-1); return; }
+            if ("1/2-1/2".contentEquals(token)) { endGame(2); return; }
+            if ("*".contentEquals(token)) { endGame(0); return; }
+            // move number, possibly glued to the move: "12.", "12...Nf6". Only digits followed by dots: "0-0" is a castle
+            int digits = 0;
+            while (digits < token.length() && Character.isDigit(token.charAt(digits))) digits++;
+            int end = digits;
+            while (end < token.length() && token.charAt(end) == '.') end++;
+            if (end == token.length()) return;
+            if (end > digits) token.delete(0, end);
+
+            if (game == null) {
+                game = FENUtils.getBoardFrom(fen != null ? fen : START_FEN);
+                plies = 0;
+                broken = false;
+            }
+            if (broken || plies >= maxPly) return;
+
+            final int move = MoveIOUtils.parseSanMove(game, token);
+            if (move == 0) {
+                broken = true;
+                return;
+            }
+            keys[plies] = game.zobristKey();
+            moves[plies] = toPolyglotMove(move);
+            whiteToMove[plies] = ColorUtils.isWhite(game.currentPlayer);
+            plies++;
+            game.playMove(move);
+        }
+
+        /** @param result 1 white won, -1 black won, 2 draw, 0 unknown */
+        private void endGame(int result) throws IOException {
+            if (game == null) {
+                fen = null;
+                return;
+            }
+            if (result == 0 || broken) {
+                skipped++;
+            } else {
+                games++;
+                for (int i = 0; i < plies; i++) {
+                    final int score = result == 2 ? 1 : (result == 1) == whiteToMove[i] ? 2 : 0;
+                    table.add(keys[i], moves[i], score);
+                }
+                if (table.size() >= maxEntries) spill();
+            }
+            game = null;
+            fen = null;
+        }
+
+        private void spill() throws IOException {
+            Path run = Files.createTempFile(tempDir != null ? tempDir : Path.of(System.getProperty("java.io.tmpdir")), "book-run", ".tmp");
+            synchronized (runs) {
+                runs.add(run);
+            }
+            table.writeSorted(run);
+            table.clear();
+        }
+    }
+
+    /** Polyglot move: to bits 0-5, from bits 6-11, promotion 12-14 (n=1..q=4), castling as king takes rook. */
+    static short toPolyglotMove(int move) {
+        int from = Move.getStartPosition(move);
+        int to = Move.getEndPosition(move);
+        if (Move.isCastleKingSide(move)) to = from + 3;
+        else if (Move.isCastleQueenSide(move)) to = from - 4;
+        final int promo = switch (Move.getPromotion(move)) {
+            case PieceUtils.KNIGHT -> 1;
+            case PieceUtils.BISHOP -> 2;
+            case PieceUtils.ROOK -> 3;
+            case PieceUtils.QUEEN -> 4;
+            default -> 0;
+        };
+        return (short) ((promo << 12) | (from << 6) | to);
+    }
+
+    /* ---------------- counting table ---------------- */
+
+    // (key, move) -> slot in parallel primitive arrays. The map key is a 64-bit mix of both; a mismatching slot
+    // (hash collision) re-mixes and probes again
+    private static final class Table {
+        private final Long2IntOpenHashMap index = new Long2IntOpenHashMap();
+        private long[] keys = new long[1024];
+        private short[] moves = new short[1024];
+        private int[] games = new int[1024];
+        private int[] scores = new int[1024];
+        private int size;
+
+        Table() {
+            index.defaultReturnValue(-1);
+        }
+
+        int size() { return size; }
+
+        void add(long key, short move, int score) {
+            long h = key ^ ((move & 0xFFFFL) + 1) * 0x9E3779B97F4A7C15L;
+            while (true) {
+                int slot = index.get(h);
+                if (slot < 0) {
+                    if (size == keys.length) grow();
+                    slot = size++;
+                    keys[slot] = key;
+                    moves[slot] = move;
+                    games[slot] = 0;
+                    scores[slot] = 0;
+                    index.put(h, slot);
+                } else if (keys[slot] != key || moves[slot] != move) {
+                    h = h * 0xBF58476D1CE4E5B9L + 1;
+                    continue;
+                }
+                games[slot]++;
+                scores[slot] += score;
+                return;
+            }
+        }
+
+        private void grow() {
+            int n = keys.length * 2;
+            keys = Arrays.copyOf(keys, n);
+            moves = Arrays.copyOf(moves, n);
+            games = Arrays.copyOf(games, n);
+            scores = Arrays.copyOf(scores, n);
+        }
+
+        void clear() {
+            index.clear();
+            size = 0;
+        }
+
+        private int[] sortedSlots() {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            IntArrays.quickSort(order, (a, b) -> compare(keys[a], moves[a], keys[b], moves[b]));
+            return order;
+        }
+
+        void writeSorted(Path run) throws IOException {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+                for (int slot : sortedSlots()) {
+                    out.writeLong(keys[slot]);
+                    out.writeShort(moves[slot]);
+                    out.writeInt(games[slot]);
+                    out.writeInt(scores[slot]);
+                }
+            }
+        }
+
+        Cursor sortedCursor() {
+            final int[] order = sortedSlots();
+            return new Cursor() {
+                int i = -1;
+                @Override boolean next() {
+                    if (++i >= order.length) return false;
+                    int slot = order[i];
+                    key = keys[slot]; move = moves[slot]; games = Table.this.games[slot]; score = scores[slot];
+                    return true;
+                }
+            };
+        }
+    }
+
+    private static int compare(long keyA, short moveA, long keyB, short moveB) {
+        int c = Long.compareUnsigned(keyA, keyB);
+        return c != 0 ? c : Integer.compare(moveA & 0xFFFF, moveB & 0xFFFF);
+    }
+
+    /* ---------------- k-way merge ---------------- */
+
+    private abstract static class Cursor {
+        long key;
+        short move;
+        int games, score;
+
+        /** Advances to the next record, in (key, move) order; false at the end. */
+        abstract boolean next() throws IOException;
+        void close() throws IOException {}
+    }
+
+    private static final class RunCursor extends Cursor {
+        private final DataInputStream in;
+
+        RunCursor(Path run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+        }
+
+        @Override boolean next() throws IOException {
+            try {
+                key = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            move = in.readShort();
+            games = in.readInt();
+            score = in.readInt();
+            return true;
+        }
+
+        @Override void close() throws IOException { in.close(); }
+    }
+
+    private long merge(List<Cursor> cursors, Path out) throws IOException {
+        final PriorityQueue<Cursor> heap = new PriorityQueue<>((a, b) -> compare(a.key, a.move, b.key, b.move));
+        try {
+            for (Cursor c : cursors) {
+                if (c.next()) heap.add(c); else c.close();
+            }
+
+            long written = 0;
+            // moves of the current position
+            long groupKey = 0;
+            int n = 0;
+            short[] moves = new short[64];
+            long[] weights = new long[64];
+            try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out), 1 << 16))) {
+                while (!heap.isEmpty()) {
+                    Cursor c = heap.poll();
+                    final long key = c.key;
+                    final short move = c.move;
+                    long games = c.games, score = c.score;
+                    advance(heap, c);
+                    while (!heap.isEmpty() && heap.peek().key == key && heap.peek().move == move) {
+                        Cursor same = heap.poll();
+                        games += same.games;
+                        score += same.score;
+                        advance(heap, same);
+                    }
+
+                    if (n > 0 && key != groupKey) {
+                        written += writeGroup(dos, groupKey, moves, weights, n);
+                        n = 0;
+                    }
+                    groupKey = key;
+                    if (games < minGames || score == 0) continue;
+                    if (n == moves.length) {
+                        moves = Arrays.copyOf(moves, n * 2);
+                        weights = Arrays.copyOf(weights, n * 2);
+                    }
+                    moves[n] = move;
+                    weights[n] = score;
+                    n++;
+                }
+                if (n > 0) written += writeGroup(dos, groupKey, moves, weights, n);
+            }
+            return written;
+        } finally {
+            for (Cursor c : heap) c.close();
+        }
+    }
+
+    private static void advance(PriorityQueue<Cursor> heap, Cursor c) throws IOException {
+        if (c.next()) heap.add(c); else c.close();
+    }
+
+    // Heaviest move first; weights scaled down when the best one overflows 16 bits
+    private static int writeGroup(DataOutputStream out, long key, short[] moves, long[] weights, int n) throws IOException {
+        for (int i = 1; i < n; i++) {
+            for (int j = i; j > 0 && weights[j] > weights[j - 1]; j--) {
+                long w = weights[j]; weights[j] = weights[j - 1]; weights[j - 1] = w;
+                short m = moves[j]; moves[j] = moves[j - 1]; moves[j - 1] = m;
+            }
+        }
+        final long max = weights[0];
+        for (int i = 0; i < n; i++) {
+            long w = max > 0xFFFF ? Math.max(1, weights[i] * 0xFFFF / max) : weights[i];
+            out.writeLong(key);
+            out.writeShort(moves[i]);
+            out.writeShort((int) w);
+            out.writeInt(0); // learn
+        }
+        return n;
+    }
+}
@@ -22,7 +22,6 @@ public class Game {
 
     private final Board board;
 
-    public final RepetitionCounter repetitionCounter;
     public int currentPlayer = ColorUtils.WHITE;
     public boolean whiteCanCastleKingSide = true;
     public boolean whiteCanCastleQueenSide = true;
@@ -34,10 +33,14 @@ public class Game {
 
     private long zobristKey = 0;
 
+    // Keys of the positions the game went through before the current one, oldest first. Only moves of the game
+    // itself (commitMove, playSimpleMove) add to it: make/unmake in the search leaves it alone.
+    private long[] history = new long[256];
+    private int historySize = 0;
+
     public Game() {
         board = new Board(this);
         recomputeZobristKey();
-        repetitionCounter = new RepetitionCounter(8); // 256 entries
     }
 
     public int[] getLegalMoves() {
@@ -55,10 +58,52 @@ public class Game {
     public boolean isADraw() {
         // TODO implement insufficient material draw
         return isInsufficientMaterial()
-                || repetitionCounter.get(zobristKey) >= 3 // 3fold repetition
+                || isThreefoldRepetition()
                 || halfMoveClock >= 100;  // 50-moves rule
     }
 
+    /**
+     * Third occurrence of the current position in the game history. Meant for the game position: below it
+     * (moves made with {@link #playMove} since the last commit) the search keeps its own line of keys.
+     */
+    public boolean isThreefoldRepetition() {
+        final int window = Math.min(halfMoveClock, historySize);
+        int seen = 0;
+        for (int i = 2; i <= window; i += 2) {
+            if (history[historySize - i] == zobristKey && ++seen == 2) return true;
+        }
+        return false;
+    }
+
+    /** Number of positions in the game history, i.e. moves committed so far. */
+    public int historySize() {
+        return historySize;
+    }
+
+    /** Key of the position {@code pliesBack} (1..{@link #historySize}) plies before the game position. */
+    public long historyKey(int pliesBack) {
+        return history[historySize - pliesBack];
+    }
+
+    /** Forgets the game history: the current position becomes the first one of the game. */
+    public void clearHistory() {
+        historySize = 0;
+    }
+
+    /**
+     * Plays a move of the game itself: the position it leaves goes to the game history, for repetition
+     * detection. Search moves go through {@link #playMove} / {@link #undoMove}, which never touch the history.
+     */
+    public long commitMove(int move) {
+        pushHistory();
+        return playMove(move);
+    }
+
+    private void pushHistory() {
+        if (historySize == history.length) history = Arrays.copyOf(history, historySize * 2);
+        history[historySize++] = zobristKey;
+    }
+
     public boolean isHardDraw() {
         return isInsufficientMaterial()
                 || halfMoveClock >= 100;  // 50-moves rule
@@ -101,9 +146,7 @@ public class Game {
     }
 
     public GameChanges playSimpleMove(Move move) {
-        if(fullMoveClock == 1) {
-            repetitionCounter.inc(zobristKey);
-        }
+        pushHistory();
 
         int previousHalfMoveClock = halfMoveClock;
         boolean previousWhiteCanCastleKingSide = whiteCanCastleKingSide;
@@ -158,15 +201,11 @@ public class Game {
         }
 
         nextTurn();
-        repetitionCounter.inc(zobristKey);
         return new GameChanges(movePlayed, previousHalfMoveClock, previousWhiteCanCastleKingSide, previousWhiteCanCastleQueenSide,
                 previousBlackCanCastleKingSide, previousBlackCanCastleQueenSide);
     }
 
     public long playMove(int move) {
-        // save repetition epoch
-        int prevEpoch = repetitionCounter.snapshotEpoch();
-
         int previousHalfMoveClock = halfMoveClock;
         boolean previousWhiteCanCastleKingSide = whiteCanCastleKingSide;
         boolean previousWhiteCanCastleQueenSide = whiteCanCastleQueenSide;
@@ -221,21 +260,17 @@ public class Game {
 
         nextTurn();
 
-        // position after move is now current
-        repetitionCounter.inc(zobristKey);
-
         if(BitUtils.bitCount(board.kingBB) != 2) {
             return 0;
         }
         return GameChanges.asBytes(movePlayed, previousHalfMoveClock, previousWhiteCanCastleKingSide, previousWhiteCanCastleQueenSide,
-                previousBlackCanCastleKingSide, previousBlackCanCastleQueenSide, prevEpoch);
+                previousBlackCanCastleKingSide, previousBlackCanCastleQueenSide);
     }
 
     public void undoMove(long gameChanges) {
         if(BitUtils.bitCount(board.kingBB) != 2) {
             return;
         }
-        repetitionCounter.dec(zobristKey);
         int movePlayed = GameChanges.getMovePlayed(gameChanges);
         board.undoMove(movePlayed);
 
@@ -252,10 +287,6 @@ public class Game {
         if(ColorUtils.isBlack(currentPlayer)) {
             fullMoveClock--;
         }
-
-        // finally, restore repetition epoch from the token saved before the move
-        int prevEpoch = GameChanges.getPreviousEpoch(gameChanges);
-        repetitionCounter.restoreEpoch(prevEpoch);
     }
 
     public void undoNullMove(long gameChanges) {
@@ -263,7 +294,6 @@ public class Game {
         if(BitUtils.bitCount(board.kingBB) != 2) {
             return;
         }
-        repetitionCounter.dec(zobristKey);
         int movePlayed = GameChanges.getMovePlayed(gameChanges);
         board.undoNullMove(movePlayed);
 
@@ -273,10 +303,6 @@ public class Game {
         if(ColorUtils.isBlack(currentPlayer)) {
             fullMoveClock--;
         }
-
-        // finally, restore repetition epoch from the token saved before the move
-        int prevEpoch = GameChanges.getPreviousEpoch(gameChanges);
-        repetitionCounter.restoreEpoch(prevEpoch);
     }
 
     public PlayerState getPlayerState() {
@@ -299,11 +325,9 @@ public class Game {
         return PlayerState.PAT;
     }
 
+    // Cached on the board until the next move / undo
     public boolean inCheck() {
-        boolean isWhiteTurn = ColorUtils.isWhite(currentPlayer);
-        long usKingBB = board.kingBB & (isWhiteTurn ? board.whiteBB : board.blackBB);
-        int kingPosition = BitUtils.bitScanForward(usKingBB);
-        return MoveGenerator.getCheckersBB(kingPosition, board, ColorUtils.switchColor(currentPlayer), true) != 0;
+        return board.checkersBB() != 0;
     }
 
     private boolean isInsufficientMaterial() {
@@ -313,7 +337,6 @@ public class Game {
 
     public void setWhiteCanCastleKingSide(boolean whiteCanCastleKingSide) {
         if(this.whiteCanCastleKingSide != whiteCanCastleKingSide) {
-            repetitionCounter.resetEpoch();
             zobristKey = ZobristHashKeys.switchWhiteKingSideCastle(zobristKey);
             this.whiteCanCastleKingSide = whiteCanCastleKingSide;
         }
@@ -321,7 +344,6 @@ public class Game {
 
     public void setWhiteCanCastleQueenSide(boolean whiteCanCastleQueenSide) {
         if(this.whiteCanCastleQueenSide != whiteCanCastleQueenSide) {
-            repetitionCounter.resetEpoch();
             zobristKey = ZobristHashKeys.switchWhiteQueenSideCastle(zobristKey);
             this.whiteCanCastleQueenSide = whiteCanCastleQueenSide;
         }
@@ -329,7 +351,6 @@ public class Game {
 
     public void setBlackCanCastleKingSide(boolean blackCanCastleKingSide) {
         if(this.blackCanCastleKingSide != blackCanCastleKingSide) {
-            repetitionCounter.resetEpoch();
             zobristKey = ZobristHashKeys.switchBlackKingSideCastle(zobristKey);
             this.blackCanCastleKingSide = blackCanCastleKingSide;
         }
@@ -337,7 +358,6 @@ public class Game {
 
     public Game setBlackCanCastleQueenSide(boolean blackCanCastleQueenSide) {
         if(this.blackCanCastleQueenSide != blackCanCastleQueenSide) {
-            repetitionCounter.resetEpoch();
             zobristKey = ZobristHashKeys.switchBlackQueenSideCastle(zobristKey);
             this.blackCanCastleQueenSide = blackCanCastleQueenSide;
         }
@@ -366,6 +386,7 @@ public class Game {
     }
 
     private void switchPlayer() {
+        board.invalidateAttackState();
         this.currentPlayer = ColorUtils.switchColor(currentPlayer);
         this.zobristKey = ZobristHashKeys.switchPlayer(zobristKey);
     }
@@ -391,6 +412,7 @@ public class Game {
 
     public void setCurrentPlayer(int currentPlayer) {
         if(currentPlayer != this.currentPlayer) {
+            board.invalidateAttackState();
             zobristKey = ZobristHashKeys.switchPlayer(zobristKey);
         }
         this.currentPlayer = currentPlayer;
@@ -409,9 +431,6 @@ public class Game {
     }
 
     public long playNullMove() {
-        // save repetition epoch
-        int prevEpoch = repetitionCounter.snapshotEpoch();
-
         int previousHalfMoveClock = halfMoveClock;
         boolean previousWhiteCanCastleKingSide = whiteCanCastleKingSide;
         boolean previousWhiteCanCastleQueenSide = whiteCanCastleQueenSide;
@@ -427,13 +446,11 @@ public class Game {
 
         nextTurn();
 
-        repetitionCounter.inc(zobristKey);
-
         if(BitUtils.bitCount(board.kingBB) != 2) {
             return 0;
         }
         return GameChanges.asBytes(movePlayed, previousHalfMoveClock, previousWhiteCanCastleKingSide, previousWhiteCanCastleQueenSide,
-                previousBlackCanCastleKingSide, previousBlackCanCastleQueenSide, prevEpoch);
+                previousBlackCanCastleKingSide, previousBlackCanCastleQueenSide);
     }
 
     @Override
@@ -0,0 +1,172 @@
+package max.chess.engine.game;
+
+import max.chess.engine.game.board.Board;
+import max.chess.engine.movegen.Move;
+import max.chess.engine.utils.ColorUtils;
+import max.chess.engine.utils.PieceUtils;
+
+/**
+ * Experimental copy-make alternative to {@link Game#playMove(int)} / {@link Game#undoMove(long)}.
+ * <p>
+ * A preallocated per-ply stack of compact positions (8 bitboards, zobrist key and one packed state word:
+ * en passant, castling, rule 50, side to move). Making a move copies the current position
+ * into the slot of the ply, then plays it on the game ; undoing copies the slot back instead of reversing the
+ * move field by field. Only pieceAt is re-derived, on the few squares the move touched.
+ * <p>
+ * The board of the game stays the working position (move generation and evaluation read it), so the stack
+ * holds the positions below the current one. A slot is also a self-contained snapshot: {@link #copyCurrent}
+ * and {@link #load} hand a position to another game (helper threads) without replaying moves.
+ * <p>
+ * Moves made through this stack must be undone through it, and must be legal.
+ */
+public final class PositionStack {
+    public static final int SLOT_SIZE = 10;
+
+    private static final int PAWN = 0;
+    private static final int KNIGHT = 1;
+    private static final int BISHOP = 2;
+    private static final int ROOK = 3;
+    private static final int QUEEN = 4;
+    private static final int KING = 5;
+    private static final int WHITE = 6;
+    private static final int BLACK = 7;
+    private static final int KEY = 8;
+    private static final int STATE = 9;
+
+    // STATE layout
+    private static final int EP_INDEX_SHIFT = 0;    // 7 bits, index + 1
+    private static final int EP_FILE_SHIFT = 7;     // 4 bits, file + 1
+    private static final int CASTLE_RIGHTS_SHIFT = 11; // 4 bits: K Q k q
+    private static final int CASTLED_SHIFT = 15;    // 4 bits: K Q k q
+    private static final int WHITE_TO_MOVE_SHIFT = 19;
+    private static final int HALF_MOVE_SHIFT = 20;  // 12 bits
+
+    private final Game game;
+    private final long[] slots;
+    private final int[] moves;
+    private int ply;
+
+    public PositionStack(Game game, int maxPly) {
+        this.game = game;
+        this.slots = new long[maxPly * SLOT_SIZE];
+        this.moves = new int[maxPly];
+    }
+
+    public int ply() {
+        return ply;
+    }
+
+    /** Forgets the stacked positions ; the game keeps its current position. */
+    public void clear() {
+        ply = 0;
+    }
+
+    public void playMove(int move) {
+        save(slots, ply * SLOT_SIZE);
+        moves[ply++] = move;
+        game.playMove(move);
+    }
+
+    public void undoMove() {
+        final int move = moves[--ply];
+        restore(game, slots, ply * SLOT_SIZE);
+
+        final Board board = game.board();
+        final int startPosition = Move.getStartPosition(move);
+        final int endPosition = Move.getEndPosition(move);
+        board.refreshPieceAt(startPosition);
+        board.refreshPieceAt(endPosition);
+        if(Move.isEnPassant(move)) {
+            board.refreshPieceAt(ColorUtils.isWhite(game.currentPlayer) ? endPosition - 8 : endPosition + 8);
+        } else if(Move.getPieceType(move) == PieceUtils.KING && Math.abs(endPosition - startPosition) == 2) {
+            // castle: rook corner and rook destination
+            board.refreshPieceAt(endPosition > startPosition ? startPosition + 3 : startPosition - 4);
+            board.refreshPieceAt((startPosition + endPosition) >>> 1);
+        }
+        if(ColorUtils.isBlack(game.currentPlayer)) {
+            game.fullMoveClock--;
+        }
+    }
+
+    /** Writes the current position of the game ({@link #SLOT_SIZE} longs) into {@code dst}. */
+    public void copyCurrent(long[] dst, int offset) {
+        save(dst, offset);
+    }
+
+    /**
+     * Loads a position written by {@link #copyCurrent} into {@code target}, which may be another game.
+     * The game history and the full move number are not part of a slot: the target's history is cleared.
+     */
+    public static void load(Game target, long[] src, int offset) {
+        restore(target, src, offset);
+        target.clearHistory();
+        for(int i = 0; i < 64; i++) {
+            target.board().refreshPieceAt(i);
+        }
+    }
+
+    private void save(long[] dst, int offset) {
+        final Board board = game.board();
+        dst[offset + PAWN] = board.pawnBB;
+        dst[offset + KNIGHT] = board.knightBB;
+        dst[offset + BISHOP] = board.bishopBB;
+        dst[offset + ROOK] = board.rookBB;
+        dst[offset + QUEEN] = board.queenBB;
+        dst[offset + KING] = board.kingBB;
+        dst[offset + WHITE] = board.whiteBB;
+        dst[offset + BLACK] = board.blackBB;
+        dst[offset + KEY] = game.zobristKey();
+
+        long state = (long) (board.enPassantIndex + 1) << EP_INDEX_SHIFT
+                | (long) (board.enPassantFile + 1) << EP_FILE_SHIFT
+                | bit(game.whiteCanCastleKingSide, CASTLE_RIGHTS_SHIFT)
+                | bit(game.whiteCanCastleQueenSide, CASTLE_RIGHTS_SHIFT + 1)
+                | bit(game.blackCanCastleKingSide, CASTLE_RIGHTS_SHIFT + 2)
+                | bit(game.blackCanCastleQueenSide, CASTLE_RIGHTS_SHIFT + 3)
+                | bit(board.whiteCastledKingSide, CASTLED_SHIFT)
+                | bit(board.whiteCastledQueenSide, CASTLED_SHIFT + 1)
+                | bit(board.blackCastledKingSide, CASTLED_SHIFT + 2)
+                | bit(board.blackCastledQueenSide, CASTLED_SHIFT + 3)
+                | bit(ColorUtils.isWhite(game.currentPlayer), WHITE_TO_MOVE_SHIFT)
+                | (long) Math.min(game.halfMoveClock, 0xFFF) << HALF_MOVE_SHIFT;
+        dst[offset + STATE] = state;
+    }
+
+    private static void restore(Game game, long[] src, int offset) {
+        final Board board = game.board();
+        board.pawnBB = src[offset + PAWN];
+        board.knightBB = src[offset + KNIGHT];
+        board.bishopBB = src[offset + BISHOP];
+        board.rookBB = src[offset + ROOK];
+        board.queenBB = src[offset + QUEEN];
+        board.kingBB = src[offset + KING];
+        board.whiteBB = src[offset + WHITE];
+        board.blackBB = src[offset + BLACK];
+        board.gameBB = board.whiteBB | board.blackBB;
+        board.rebuildPieceBBs();
+        board.invalidateAttackState();
+        game.setZobristKey(src[offset + KEY]);
+
+        final long state = src[offset + STATE];
+        board.enPassantIndex = (int) ((state >>> EP_INDEX_SHIFT) & 0x7F) - 1;
+        board.enPassantFile = (int) ((state >>> EP_FILE_SHIFT) & 0xF) - 1;
+        game.whiteCanCastleKingSide = isSet(state, CASTLE_RIGHTS_SHIFT);
+        game.whiteCanCastleQueenSide = isSet(state, CASTLE_RIGHTS_SHIFT + 1);
+        game.blackCanCastleKingSide = isSet(state, CASTLE_RIGHTS_SHIFT + 2);
+        game.blackCanCastleQueenSide = isSet(state, CASTLE_RIGHTS_SHIFT + 3);
+        board.whiteCastledKingSide = isSet(state, CASTLED_SHIFT);
+        board.whiteCastledQueenSide = isSet(state, CASTLED_SHIFT + 1);
+        board.blackCastledKingSide = isSet(state, CASTLED_SHIFT + 2);
+        board.blackCastledQueenSide = isSet(state, CASTLED_SHIFT + 3);
+        game.currentPlayer = isSet(state, WHITE_TO_MOVE_SHIFT) ? ColorUtils.WHITE : ColorUtils.BLACK;
+        game.halfMoveClock = (int) ((state >>> HALF_MOVE_SHIFT) & 0xFFF);
+    }
+
+    private static long bit(boolean value, int shift) {
+        return value ? 1L << shift : 0L;
+    }
+
+    private static boolean isSet(long state, int shift) {
+        return ((state >>> shift) & 1L) != 0;
+    }
+}
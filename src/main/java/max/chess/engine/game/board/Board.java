@@ -8,10 +8,14 @@ import max.chess.engine.utils.PieceUtils;
 import max.chess.engine.game.Game;
 import max.chess.engine.game.ZobristHashKeys;
 import max.chess.engine.movegen.Move;
+import max.chess.engine.movegen.MoveGenerator;
+import max.chess.engine.movegen.pieces.Bishop;
+import max.chess.engine.movegen.pieces.Knight;
+import max.chess.engine.movegen.pieces.Pawn;
+import max.chess.engine.movegen.pieces.Rook;
+import max.chess.engine.movegen.utils.ObstructedLinesUtils;
 import max.chess.engine.movegen.utils.BitBoardUtils;
 
-import java.util.Arrays;
-
 public class Board {
     private final Game game;
     public long bishopBB = 0;
@@ -34,12 +38,29 @@ public class Board {
     public boolean blackCastledKingSide = false;
     public boolean blackCastledQueenSide = false;
 
-    private final byte[] pieceAt;
+    // Piece-color bitboards, indexed by PieceUtils.pieceIndex: white pawn..king 0..5, black 6..11
+    public final long[] pieceBB;
+
+    // Mailbox of PieceUtils.squareCode nibbles, 16 squares per long
+    private final long[] pieceAt;
+
+    // Attack state of the side to move: computed lazily, dropped on any piece or side-to-move change
+    private static final int CHECKERS_CACHED = 1;
+    private static final int PINS_CACHED = 1 << 1;
+    private static final int ENEMY_ATTACKS_CACHED = 1 << 2;
+    private static final int CHECK_INFO_CACHED = 1 << 3;
+    private int cachedAttackState = 0;
+    private long cachedCheckersBB;
+    private long cachedPinnedBB;
+    private final long[] cachedPinRaysBB = new long[64];
+    private long cachedEnemyAttackBB;
+    private final long[] cachedCheckSquaresBB = new long[PieceUtils.KING + 1];
+    private long cachedDiscoveredCheckersBB;
 
     public Board(Game game) {
         this.game = game;
-        this.pieceAt = new byte[64];
-        Arrays.fill(pieceAt, (byte) 0);
+        this.pieceBB = new long[12];
+        this.pieceAt = new long[4];
     }
 
     public Board(Game game, Board other) {
@@ -55,29 +76,37 @@ public class Board {
         this.gameBB = other.gameBB;
         this.enPassantFile = other.enPassantFile;
         this.enPassantIndex = other.enPassantIndex;
+        this.pieceBB = other.pieceBB.clone();
         this.pieceAt = other.pieceAt.clone();
     }
 
-    public DirtyBoard dirtyCopy() {
-        return new DirtyBoard(this);
-    }
-
     private byte getPieceCode(long positionBB) {
-        return PieceUtils.toPieceCode(pieceAt[BitUtils.bitScanForward(positionBB)]);
+        return PieceUtils.toPieceCode(squareCodeAt(BitUtils.bitScanForward(positionBB)));
     }
 
     public byte getPieceTypeAt(int index) {
-        return PieceUtils.toPieceCode(pieceAt[index]);
+        return PieceUtils.toPieceCode(squareCodeAt(index));
+    }
+
+    public int getPieceColorAt(int index) {
+        return PieceUtils.squareColor(squareCodeAt(index));
     }
 
     private int getPieceColor(long positionBB) {
-        if((whiteBB & positionBB) != 0) {
-            return ColorUtils.WHITE;
-        } else if((blackBB & positionBB) != 0) {
-            return ColorUtils.BLACK;
-        }  else {
-            return 0;
-        }
+        return getPieceColorAt(BitUtils.bitScanForward(positionBB));
+    }
+
+    public long piecesBB(byte pieceType, int color) {
+        return pieceBB[PieceUtils.pieceIndex(pieceType, color)];
+    }
+
+    private int squareCodeAt(int index) {
+        return (int) (pieceAt[index >>> 4] >>> ((index & 15) << 2)) & 0xF;
+    }
+
+    private void setSquareCode(int index, int squareCode) {
+        final int shift = (index & 15) << 2;
+        pieceAt[index >>> 4] = (pieceAt[index >>> 4] & ~(0xFL << shift)) | ((long) squareCode << shift);
     }
 
     // Simple move is a move with minimal information such as d7d8Q
@@ -150,10 +179,6 @@ public class Board {
             }
         }
 
-        if(pieceEaten != PieceUtils.NONE || pieceType == PieceUtils.PAWN) {
-            game.repetitionCounter.resetEpoch();
-        }
-
         return new MovePlayed(pieceType, move, enPassant, castleKingSide, castleQueenSide, pieceEaten, originalEnPassantIndex);
     }
 
@@ -211,10 +236,6 @@ public class Board {
             updateBBs(startPositionBB, endPositionBB, pieceType, pieceColor);
         }
 
-        if(pieceEaten != PieceUtils.NONE || pieceType == PieceUtils.PAWN) {
-            game.repetitionCounter.resetEpoch();
-        }
-
         return MovePlayed.asBytes(move, pieceEaten, originalEnPassantIndex);
     }
 
@@ -254,8 +275,6 @@ public class Board {
         } else {
             blackCastledKingSide = true;
         }
-
-        game.repetitionCounter.resetEpoch();
     }
 
     private void undoCastleKingSide(int color) {
@@ -298,7 +317,6 @@ public class Board {
 
         updateBBs(originalKingBB, newKingBB, PieceUtils.KING, color);
         updateBBs(originalRookBB, newRookBB, PieceUtils.ROOK, color);
-        game.repetitionCounter.resetEpoch();
 
         if(ColorUtils.isWhite(color)) {
             whiteCastledQueenSide = true;
@@ -343,15 +361,16 @@ public class Board {
                 return;
             }
         }
-        if(ColorUtils.isWhite(color)) {
-            whiteBB &= ~bb;
-        } else {
-            blackBB &= ~bb;
-        }
+        // all ones for black, 0 for white
+        final long blackMaskBB = color >> 31;
+        whiteBB &= ~bb | blackMaskBB;
+        blackBB &= ~bb | ~blackMaskBB;
         gameBB &= ~bb;
+        pieceBB[PieceUtils.pieceIndex(pieceType, color)] &= ~bb;
 
+        cachedAttackState = 0;
         int positionIndex = BitUtils.bitScanForward(bb);
-        pieceAt[positionIndex] = PieceUtils.NONE;
+        setSquareCode(positionIndex, PieceUtils.NONE);
         game.setZobristKey(ZobristHashKeys.switchPiecePresence(game.zobristKey(), pieceType, color, positionIndex));
     }
 
@@ -367,18 +386,155 @@ public class Board {
                 return;
             }
         }
-        if(ColorUtils.isWhite(color)) {
-            whiteBB |= bb;
-        } else {
-            blackBB |= bb;
-        }
+        final long blackMaskBB = color >> 31;
+        whiteBB |= bb & ~blackMaskBB;
+        blackBB |= bb & blackMaskBB;
         gameBB |= bb;
+        pieceBB[PieceUtils.pieceIndex(pieceType, color)] |= bb;
 
+        cachedAttackState = 0;
         int positionIndex = BitUtils.bitScanForward(bb);
-        pieceAt[positionIndex] = pieceType;
+        setSquareCode(positionIndex, PieceUtils.squareCode(pieceType, color));
         game.setZobristKey(ZobristHashKeys.switchPiecePresence(game.zobristKey(), pieceType, color, positionIndex));
     }
 
+    public void invalidateAttackState() {
+        cachedAttackState = 0;
+    }
+
+    /** Enemy pieces giving check to the king of the side to move. */
+    public long checkersBB() {
+        if((cachedAttackState & CHECKERS_CACHED) == 0) {
+            final int side = game.currentPlayer;
+            final int kingPosition = BitUtils.bitScanForward(kingBB & (ColorUtils.isWhite(side) ? whiteBB : blackBB));
+            cachedCheckersBB = MoveGenerator.getCheckersBB(kingPosition, this, ColorUtils.switchColor(side), false);
+            cachedAttackState |= CHECKERS_CACHED;
+        }
+        return cachedCheckersBB;
+    }
+
+    /** Pieces of the side to move pinned to their king. */
+    public long pinnedBB() {
+        if((cachedAttackState & PINS_CACHED) == 0) {
+            cachedPinnedBB = MoveGenerator.getPinnedBB(this, game.currentPlayer, cachedPinRaysBB);
+            cachedAttackState |= PINS_CACHED;
+        }
+        return cachedPinnedBB;
+    }
+
+    /**
+     * For each square of {@link #pinnedBB()}: the squares that piece may still move to (between king and
+     * pinner, pinner included). Entries of non-pinned squares are stale. Read-only.
+     */
+    public long[] pinRaysBB() {
+        pinnedBB();
+        return cachedPinRaysBB;
+    }
+
+    /**
+     * Squares attacked by the opponent of the side to move, computed with our king removed from the occupancy
+     * (sliders see through it): a king move is safe iff its target is not in this map.
+     */
+    public long enemyAttackBB() {
+        if((cachedAttackState & ENEMY_ATTACKS_CACHED) == 0) {
+            final int side = game.currentPlayer;
+            final long usKingBB = kingBB & (ColorUtils.isWhite(side) ? whiteBB : blackBB);
+            cachedEnemyAttackBB = MoveGenerator.doGetAttackBB(this, ColorUtils.switchColor(side), usKingBB);
+            cachedAttackState |= ENEMY_ATTACKS_CACHED;
+        }
+        return cachedEnemyAttackBB;
+    }
+
+    /**
+     * Squares from which a piece of {@code pieceType} of the side to move would attack the enemy king, on the
+     * current occupancy: a move to one of them gives a direct check (castles, en passant and promotions aside).
+     */
+    public long checkSquaresBB(byte pieceType) {
+        computeCheckInfo();
+        return cachedCheckSquaresBB[pieceType];
+    }
+
+    /**
+     * Pieces of the side to move standing alone between one of our sliders and the enemy king: moving one off that
+     * line gives a discovered check.
+     */
+    public long discoveredCheckCandidatesBB() {
+        computeCheckInfo();
+        return cachedDiscoveredCheckersBB;
+    }
+
+    private void computeCheckInfo() {
+        if((cachedAttackState & CHECK_INFO_CACHED) != 0) {
+            return;
+        }
+        final int side = game.currentPlayer;
+        final int enemy = ColorUtils.switchColor(side);
+        final int enemyKingPosition = BitUtils.bitScanForward(piecesBB(PieceUtils.KING, enemy));
+        final long bishopChecksBB = Bishop.getAttackBB(enemyKingPosition, gameBB);
+        final long rookChecksBB = Rook.getAttackBB(enemyKingPosition, gameBB);
+        // our pawn checks from the squares an enemy pawn on the king square would attack
+        cachedCheckSquaresBB[PieceUtils.PAWN] = Pawn.getAttackBB(enemyKingPosition, enemy);
+        cachedCheckSquaresBB[PieceUtils.KNIGHT] = Knight.getAttackBB(enemyKingPosition);
+        cachedCheckSquaresBB[PieceUtils.BISHOP] = bishopChecksBB;
+        cachedCheckSquaresBB[PieceUtils.ROOK] = rookChecksBB;
+        cachedCheckSquaresBB[PieceUtils.QUEEN] = bishopChecksBB | rookChecksBB;
+        cachedCheckSquaresBB[PieceUtils.KING] = 0;
+
+        final long usBB = ColorUtils.isWhite(side) ? whiteBB : blackBB;
+        final long queensBB = piecesBB(PieceUtils.QUEEN, side);
+        long snipersBB = (Rook.getAttackBB(enemyKingPosition, 0) & (piecesBB(PieceUtils.ROOK, side) | queensBB))
+                | (Bishop.getAttackBB(enemyKingPosition, 0) & (piecesBB(PieceUtils.BISHOP, side) | queensBB));
+        long candidatesBB = 0;
+        while(snipersBB != 0) {
+            final int sniperPosition = BitUtils.bitScanForward(snipersBB);
+            snipersBB &= snipersBB - 1;
+            final long blockersBB = ObstructedLinesUtils.OBSTRUCTED_BB[enemyKingPosition][sniperPosition] & gameBB;
+            if(blockersBB != 0 && (blockersBB & (blockersBB - 1)) == 0 && (blockersBB & usBB) != 0) {
+                candidatesBB |= blockersBB;
+            }
+        }
+        cachedDiscoveredCheckersBB = candidatesBB;
+        cachedAttackState |= CHECK_INFO_CACHED;
+    }
+
+    // Copy-make support (PositionStack): bitboards are restored wholesale, pieceAt is re-derived on the touched squares
+    public void refreshPieceAt(int positionIndex) {
+        final long bb = BitUtils.getPositionIndexBitMask(positionIndex);
+        final byte pieceType;
+        if((gameBB & bb) == 0) {
+            pieceType = PieceUtils.NONE;
+        } else if((pawnBB & bb) != 0) {
+            pieceType = PieceUtils.PAWN;
+        } else if((knightBB & bb) != 0) {
+            pieceType = PieceUtils.KNIGHT;
+        } else if((bishopBB & bb) != 0) {
+            pieceType = PieceUtils.BISHOP;
+        } else if((rookBB & bb) != 0) {
+            pieceType = PieceUtils.ROOK;
+        } else if((queenBB & bb) != 0) {
+            pieceType = PieceUtils.QUEEN;
+        } else {
+            pieceType = PieceUtils.KING;
+        }
+        setSquareCode(positionIndex, PieceUtils.squareCode(pieceType, (blackBB & bb) != 0 ? ColorUtils.BLACK : ColorUtils.WHITE));
+    }
+
+    // Copy-make support (PositionStack): the piece-color bitboards follow the restored type and color bitboards
+    public void rebuildPieceBBs() {
+        pieceBB[0] = pawnBB & whiteBB;
+        pieceBB[1] = knightBB & whiteBB;
+        pieceBB[2] = bishopBB & whiteBB;
+        pieceBB[3] = rookBB & whiteBB;
+        pieceBB[4] = queenBB & whiteBB;
+        pieceBB[5] = kingBB & whiteBB;
+        pieceBB[6] = pawnBB & blackBB;
+        pieceBB[7] = knightBB & blackBB;
+        pieceBB[8] = bishopBB & blackBB;
+        pieceBB[9] = rookBB & blackBB;
+        pieceBB[10] = queenBB & blackBB;
+        pieceBB[11] = kingBB & blackBB;
+    }
+
     private void updateBBs(long oldBB, long newBB, byte pieceType, int color) {
         removeFromBBs(oldBB, pieceType, color);
         addToBBs(newBB, pieceType, color);
@@ -447,10 +603,13 @@ public class Board {
             return -1;
         }
 
-        final long enPassantBB = BitUtils.getPositionIndexBitMask(enPassantIndex + (ColorUtils.isWhite(game.currentPlayer) ? 8 : -8));
+        // Polyglot only hashes the file when a pawn can take. The rank of the square tells who pushed: reading
+        // the side to move instead would be inverted when a FEN sets the square after the turn
+        final boolean whitePushed = enPassantIndex < 32;
+        final long enPassantBB = BitUtils.getPositionIndexBitMask(enPassantIndex + (whitePushed ? 8 : -8));
         final long candidateBB = BitBoardUtils.shift(enPassantBB, BitBoardUtils.Direction.EAST) | BitBoardUtils.shift(enPassantBB, BitBoardUtils.Direction.WEST);
 
-        final long actualPawnBB = pawnBB & (ColorUtils.isWhite(game.currentPlayer) ? blackBB : whiteBB);
+        final long actualPawnBB = pawnBB & (whitePushed ? blackBB : whiteBB);
         final long pawnWhichCanEnPassant = candidateBB & actualPawnBB;
         if(pawnWhichCanEnPassant != 0L) {
             return enPassantIndex%8;
@@ -21,8 +21,13 @@ class EvasionMoveGenerator {
     
     static int generateEvasionMoves(Game game, int[] buffer, int kingPosition, int side, byte requestedPieceType) {
         int oppositeColor = ColorUtils.switchColor(side);
-        long checkersBB = MoveGenerator.getCheckersBB(kingPosition, game.board(), oppositeColor, false);
-        long attackNoKingBB = MoveGenerator.doGetAttackBB(game.board(), oppositeColor, BitUtils.getPositionIndexBitMask(kingPosition));
+        final boolean sideToMove = side == game.currentPlayer;
+        long checkersBB = sideToMove
+                ? game.board().checkersBB()
+                : MoveGenerator.getCheckersBB(kingPosition, game.board(), oppositeColor, false);
+        long attackNoKingBB = sideToMove
+                ? game.board().enemyAttackBB()
+                : MoveGenerator.doGetAttackBB(game.board(), oppositeColor, BitUtils.getPositionIndexBitMask(kingPosition));
         boolean doubleCheck = BitUtils.bitCount(checkersBB) > 1;
 
         boolean isWhiteTurn = ColorUtils.isWhite(side);
@@ -32,7 +37,7 @@ class EvasionMoveGenerator {
         if(requestedPieceType == PieceUtils.ALL || requestedPieceType == PieceUtils.KING) {
             // King is always candidate
             long kingMovesBB = King.getEvasionMovesBB(kingPosition, attackNoKingBB, usPieces);
-            MoveGenerator.addMovesFromBitboard(PieceUtils.KING, kingPosition, kingMovesBB, false, false, game, buffer);
+            MoveGenerator.addMovesFromBitboard(PieceUtils.KING, kingPosition, kingMovesBB, false, game, buffer);
         }
 
         if(doubleCheck) {
@@ -48,17 +53,17 @@ class EvasionMoveGenerator {
         final long blockMask = ObstructedLinesUtils.OBSTRUCTED_BB[kingPosition][checkerSq];
         final long evasionTargets = blockMask | singleCheckerBB; // squares we can move to with non-king pieces
 
-        final long themPawns = game.board().pawnBB & themPieces;
-        final long themBishops = game.board().bishopBB & themPieces;
-        final long themRooks = game.board().rookBB & themPieces;
-        final long themKnights = game.board().knightBB & themPieces;
-        final long themKing = game.board().kingBB & themPieces;
-        final long themQueens = game.board().queenBB & themPieces;
-        final long usPawns = game.board().pawnBB & usPieces;
-        final long usKnights = game.board().knightBB & usPieces;
-        final long usBishops = game.board().bishopBB & usPieces;
-        final long usQueens = game.board().queenBB & usPieces;
-        final long usRooks = game.board().rookBB & usPieces;
+        final long themPawns = game.board().piecesBB(PieceUtils.PAWN, oppositeColor);
+        final long themBishops = game.board().piecesBB(PieceUtils.BISHOP, oppositeColor);
+        final long themRooks = game.board().piecesBB(PieceUtils.ROOK, oppositeColor);
+        final long themKnights = game.board().piecesBB(PieceUtils.KNIGHT, oppositeColor);
+        final long themKing = game.board().piecesBB(PieceUtils.KING, oppositeColor);
+        final long themQueens = game.board().piecesBB(PieceUtils.QUEEN, oppositeColor);
+        final long usPawns = game.board().piecesBB(PieceUtils.PAWN, side);
+        final long usKnights = game.board().piecesBB(PieceUtils.KNIGHT, side);
+        final long usBishops = game.board().piecesBB(PieceUtils.BISHOP, side);
+        final long usQueens = game.board().piecesBB(PieceUtils.QUEEN, side);
+        final long usRooks = game.board().piecesBB(PieceUtils.ROOK, side);
 
         if(requestedPieceType == PieceUtils.ALL || requestedPieceType == PieceUtils.PAWN) {
             // Handle en-passant evasion when checker is a pawn
@@ -78,7 +83,7 @@ class EvasionMoveGenerator {
                 int from = BitUtils.bitScanForward(knights);
                 knights &= knights - 1;
                 long moves = Knight.getLegalMovesBB(from, usPawns) & evasionTargets;
-                MoveGenerator.addMovesFromBitboard(PieceUtils.KNIGHT, from, moves, false, false, game, buffer);
+                MoveGenerator.addMovesFromBitboard(PieceUtils.KNIGHT, from, moves, false, game, buffer);
             }
         }
 
@@ -90,7 +95,7 @@ class EvasionMoveGenerator {
                 bishops &= bishops - 1;
                 long legalMask = pinMaskFor(from, pin); // either all-ones or a single ray line
                 long moves = Bishop.getAttackBB(from, game.board().gameBB) & evasionTargets & legalMask & ~usPieces;
-                MoveGenerator.addMovesFromBitboard(PieceUtils.BISHOP, from, moves, false, false, game, buffer);
+                MoveGenerator.addMovesFromBitboard(PieceUtils.BISHOP, from, moves, false, game, buffer);
             }
         }
 
@@ -101,7 +106,7 @@ class EvasionMoveGenerator {
                 queenBishops &= queenBishops - 1;
                 long legalMask = pinMaskFor(from, pin); // either all-ones or a single ray line
                 long moves = Bishop.getAttackBB(from, game.board().gameBB) & evasionTargets & legalMask & ~usPieces;
-                MoveGenerator.addMovesFromBitboard(PieceUtils.QUEEN, from, moves, false, false, game, buffer);
+                MoveGenerator.addMovesFromBitboard(PieceUtils.QUEEN, from, moves, false, game, buffer);
             }
         }
 
@@ -113,7 +118,7 @@ class EvasionMoveGenerator {
                 rooks &= rooks - 1;
                 long legalMask = pinMaskFor(from, pin);
                 long moves = Rook.getAttackBB(from, game.board().gameBB) & evasionTargets & legalMask & ~usPieces;
-                MoveGenerator.addMovesFromBitboard(PieceUtils.ROOK, from, moves, false, false, game, buffer);
+                MoveGenerator.addMovesFromBitboard(PieceUtils.ROOK, from, moves, false, game, buffer);
             }
         }
 
@@ -124,7 +129,7 @@ class EvasionMoveGenerator {
                 queenRooks &= queenRooks - 1;
                 long legalMask = pinMaskFor(from, pin);
                 long moves = Rook.getAttackBB(from, game.board().gameBB) & evasionTargets & legalMask & ~usPieces;
-                MoveGenerator.addMovesFromBitboard(PieceUtils.QUEEN, from, moves, false, false, game, buffer);
+                MoveGenerator.addMovesFromBitboard(PieceUtils.QUEEN, from, moves, false, game, buffer);
             }
         }
 
@@ -326,7 +331,7 @@ class EvasionMoveGenerator {
             boolean isKingAttacked = MoveGenerator.getCheckersBB(kingSq, themKingBB, themBishops, themRooks, themKnights, themPawnsNew, occNew, ColorUtils.switchColor(side), true) != 0;
 
             if (!isKingAttacked) {
-                MoveGenerator.addEnPassantMove(from, game, buffer, false);
+                MoveGenerator.addEnPassantMove(from, game, buffer);
             }
         }
     }
@@ -9,10 +9,8 @@ import max.chess.engine.movegen.utils.ObstructedLinesUtils;
 import max.chess.engine.utils.BitUtils;
 import max.chess.engine.utils.ColorUtils;
 import max.chess.engine.utils.PieceUtils;
-import max.chess.engine.game.board.DirtyBoard;
 import max.chess.engine.game.board.Board;
 import max.chess.engine.game.Game;
-import max.chess.engine.movegen.utils.CheckUtils;
 import max.chess.engine.movegen.utils.DiagonalMoveUtils;
 import max.chess.engine.movegen.utils.OrthogonalMoveUtils;
 
@@ -41,6 +39,13 @@ public class MoveGenerator {
     // Keeping it static to prevent re-allocation at each movegen
     static int currentNumberOfMoves;
 
+    // For each pinned piece square: the squares it may still move to (between king and pinner, pinner included)
+    private static final long[] PIN_RAY_BB = new long[64];
+
+    // One move buffer per perft ply
+    private static final int PERFT_MAX_PLY = 64;
+    private static final int[][] PERFT_MOVES = new int[PERFT_MAX_PLY][218];
+
     private static boolean WARMED_UP = false;
     static {
         warmUp();
@@ -59,6 +64,33 @@ public class MoveGenerator {
         WARMED_UP = true;
     }
 
+    /**
+     * Leaf node count at {@code depth}. Streaming: each ply generates into its own buffer, and depth 1 is
+     * bulk-counted (popcounts of the legal target bitboards, nothing written, nothing played).
+     */
+    public static long perft(Game game, int depth) {
+        return perft(game, depth, 0);
+    }
+
+    private static long perft(Game game, int depth, int ply) {
+        if(depth <= 0) {
+            return 1;
+        }
+        if(depth == 1) {
+            return countMoves(game);
+        }
+
+        final int[] moves = PERFT_MOVES[ply];
+        final int moveCount = generateMoves(game, moves);
+        long nodes = 0;
+        for(int i = 0; i < moveCount; i++) {
+            final long undo = game.playMove(moves[i]);
+            nodes += perft(game, depth - 1, ply + 1);
+            game.undoMove(undo);
+        }
+        return nodes;
+    }
+
     public static int[] generateMoves(Game game) {
         generateMoves(game, moves);
         // Shrinking the array to the appropriate size
@@ -107,7 +139,10 @@ public class MoveGenerator {
         }
 
         final int kingPosition = BitUtils.bitScanForward(friendlyKingBB);
-        final boolean isKingInCheck = getCheckersBB(kingPosition, game.board(), ColorUtils.switchColor(side), true) != 0;
+        // The side to move reads the checkers cached on the board ; the other side (opponent mobility) computes them
+        final boolean isKingInCheck = side == game.currentPlayer
+                ? game.board().checkersBB() != 0
+                : getCheckersBB(kingPosition, game.board(), ColorUtils.switchColor(side), true) != 0;
         if(isKingInCheck) {
             EVASION_MOVES_GENERATORS++;
             // When in check, no need to check every move possible ; we can precisely generate only evasion moves
@@ -121,6 +156,7 @@ public class MoveGenerator {
     }
 
     private static int generateLegalMoves(Game game, int[] buffer, int side, byte requestedPieceType) {
+        final Board board = game.board();
         long friendlyBishopBB;
         long friendlyRookBB;
         long friendlyQueenBB;
@@ -130,35 +166,44 @@ public class MoveGenerator {
 
         final long friendlyOccupiedSquareBB;
         final long enemyOccupiedSquareBB;
-        final long pinnedPiecesBB = MoveGenerator.getPinnedBB(game.board(), side);
+        // Pinned pieces may only move along their pin ray (pinRaysBB): no make/verify needed
+        // The side to move shares the pins cached on the board
+        final boolean sideToMove = side == game.currentPlayer;
+        final long[] pinRaysBB = sideToMove ? board.pinRaysBB() : PIN_RAY_BB;
+        final long pinnedPiecesBB = sideToMove ? board.pinnedBB() : MoveGenerator.getPinnedBB(board, side, PIN_RAY_BB);
         boolean isWhiteTurn = ColorUtils.isWhite(side);
 
-        friendlyOccupiedSquareBB = isWhiteTurn ? game.board().whiteBB :  game.board().blackBB;
-        enemyOccupiedSquareBB = isWhiteTurn ? game.board().blackBB :  game.board().whiteBB;
-        friendlyBishopBB = (game.board().bishopBB | game.board().queenBB) & friendlyOccupiedSquareBB;
-        friendlyRookBB = (game.board().rookBB | game.board().queenBB) & friendlyOccupiedSquareBB;
-        friendlyKnightBB = game.board().knightBB & friendlyOccupiedSquareBB;
-        friendlyKingBB = game.board().kingBB & friendlyOccupiedSquareBB;
-        friendlyPawnBB = game.board().pawnBB & friendlyOccupiedSquareBB;
-        friendlyQueenBB = game.board().queenBB & friendlyOccupiedSquareBB;
+        friendlyOccupiedSquareBB = isWhiteTurn ? board.whiteBB :  board.blackBB;
+        enemyOccupiedSquareBB = isWhiteTurn ? board.blackBB :  board.whiteBB;
+        friendlyQueenBB = board.piecesBB(PieceUtils.QUEEN, side);
+        friendlyBishopBB = board.piecesBB(PieceUtils.BISHOP, side) | friendlyQueenBB;
+        friendlyRookBB = board.piecesBB(PieceUtils.ROOK, side) | friendlyQueenBB;
+        friendlyKnightBB = board.piecesBB(PieceUtils.KNIGHT, side);
+        friendlyKingBB = board.piecesBB(PieceUtils.KING, side);
+        friendlyPawnBB = board.piecesBB(PieceUtils.PAWN, side);
 
         final int kingPosition = BitUtils.bitScanForward(friendlyKingBB);
 
-        final long occupiedSquareBB = game.board().gameBB;
+        final long occupiedSquareBB = board.gameBB;
 
         // King moves
         final boolean canCastleKingSide = isWhiteTurn ? game.whiteCanCastleKingSide : game.blackCanCastleKingSide;
         final boolean canCastleQueenSide = isWhiteTurn ? game.whiteCanCastleQueenSide : game.blackCanCastleQueenSide;
 
         if(requestedPieceType == PieceUtils.ALL || requestedPieceType == PieceUtils.KING) {
-            final long kingMovesBB = King.getNonCastleLegalMovesBB(side, kingPosition, friendlyOccupiedSquareBB, game.board());
-            addMovesFromBitboard(PieceUtils.KING, kingPosition, kingMovesBB, false, false, game, buffer);
-
-            if (King.isCastleKingSideLegal(side, occupiedSquareBB, false, canCastleKingSide, game.board())) {
+            // Enemy attack map with our king removed from the occupancy: one map answers every king target
+            // and castle passage square
+            final long enemyAttackBB = sideToMove
+                    ? board.enemyAttackBB()
+                    : doGetAttackBB(board, ColorUtils.switchColor(side), friendlyKingBB);
+            final long kingMovesBB = King.getEvasionMovesBB(kingPosition, enemyAttackBB, friendlyOccupiedSquareBB);
+            addMovesFromBitboard(PieceUtils.KING, kingPosition, kingMovesBB, false, game, buffer);
+
+            if (King.isCastleKingSideLegal(side, occupiedSquareBB, enemyAttackBB, canCastleKingSide)) {
                 addKingCastleMove(side, buffer);
             }
 
-            if (King.isCastleQueenSideLegal(side, occupiedSquareBB, false, canCastleQueenSide, game.board())) {
+            if (King.isCastleQueenSideLegal(side, occupiedSquareBB, enemyAttackBB, canCastleQueenSide)) {
                 addQueenCastleMove(side, buffer);
             }
         }
@@ -169,13 +214,13 @@ public class MoveGenerator {
                 final int rookPosition = BitUtils.bitScanForward(friendlyRookBB);
                 friendlyRookBB &= friendlyRookBB - 1;
                 long pieceBB = BitUtils.getPositionIndexBitMask(rookPosition);
-                final boolean isPinned = (pinnedPiecesBB & pieceBB) != 0;
                 byte pieceType = (pieceBB & friendlyQueenBB) == 0 ? PieceUtils.ROOK : PieceUtils.QUEEN;
                 if(requestedPieceType != PieceUtils.ALL && requestedPieceType != pieceType) {
                     continue;
                 }
-                final long rookMovesBB = Rook.getLegalMovesBB(rookPosition, friendlyOccupiedSquareBB, occupiedSquareBB);
-                addMovesFromBitboard(pieceType, rookPosition, rookMovesBB, false, isPinned, game, buffer);
+                long rookMovesBB = Rook.getLegalMovesBB(rookPosition, friendlyOccupiedSquareBB, occupiedSquareBB);
+                if ((pinnedPiecesBB & pieceBB) != 0) rookMovesBB &= pinRaysBB[rookPosition];
+                addMovesFromBitboard(pieceType, rookPosition, rookMovesBB, false, game, buffer);
             }
         }
 
@@ -186,51 +231,78 @@ public class MoveGenerator {
                 final int bishopPosition = BitUtils.bitScanForward(friendlyBishopBB);
                 friendlyBishopBB &= friendlyBishopBB - 1;
                 long pieceBB = BitUtils.getPositionIndexBitMask(bishopPosition);
-                final boolean isPinned = (pinnedPiecesBB & pieceBB) != 0;
                 byte pieceType = (pieceBB & friendlyQueenBB) == 0 ? PieceUtils.BISHOP : PieceUtils.QUEEN;
                 if(requestedPieceType != PieceUtils.ALL && requestedPieceType != pieceType) {
                     continue;
                 }
 
-                final long bishopMovesBB = Bishop.getPseudoLegalMovesBB(bishopPosition, friendlyOccupiedSquareBB, occupiedSquareBB);
-                addMovesFromBitboard(pieceType, bishopPosition, bishopMovesBB, false, isPinned, game, buffer);
+                long bishopMovesBB = Bishop.getPseudoLegalMovesBB(bishopPosition, friendlyOccupiedSquareBB, occupiedSquareBB);
+                if ((pinnedPiecesBB & pieceBB) != 0) bishopMovesBB &= pinRaysBB[bishopPosition];
+                addMovesFromBitboard(pieceType, bishopPosition, bishopMovesBB, false, game, buffer);
             }
         }
 
 
         if(requestedPieceType == PieceUtils.ALL || requestedPieceType == PieceUtils.KNIGHT) {
-            // Knight moves
+            // Knight moves ; a pinned knight can never stay on its pin ray
+            friendlyKnightBB &= ~pinnedPiecesBB;
             while (friendlyKnightBB != 0) {
                 final int knightPosition = BitUtils.bitScanForward(friendlyKnightBB);
                 friendlyKnightBB &= friendlyKnightBB - 1;
                 final long knightMovesBB = Knight.getLegalMovesBB(knightPosition, friendlyOccupiedSquareBB);
-                final boolean isPinned = (pinnedPiecesBB & BitUtils.getPositionIndexBitMask(knightPosition)) != 0;
-                addMovesFromBitboard(PieceUtils.KNIGHT, knightPosition, knightMovesBB, false, isPinned, game, buffer);
+                addMovesFromBitboard(PieceUtils.KNIGHT, knightPosition, knightMovesBB, false, game, buffer);
             }
         }
 
         if(requestedPieceType == PieceUtils.ALL || requestedPieceType == PieceUtils.PAWN) {
             // Pawn moves
-            boolean enPassantPossible = game.board().enPassantFile != -1;
+            boolean enPassantPossible = board.enPassantFile != -1;
             long enPassantBitMask = 0L;
             if (enPassantPossible) {
-                enPassantBitMask = BitUtils.getPositionIndexBitMask(game.board().enPassantIndex);
+                enPassantBitMask = BitUtils.getPositionIndexBitMask(board.enPassantIndex);
+            }
+
+            if (buffer == null) {
+                // Bulk count: all unpinned pawns at once from shifted bitboards, pinned pawns one by one
+                currentNumberOfMoves += Pawn.countMoves(friendlyPawnBB & ~pinnedPiecesBB, side, occupiedSquareBB, enemyOccupiedSquareBB);
+                long pinnedPawnBB = friendlyPawnBB & pinnedPiecesBB;
+                while (pinnedPawnBB != 0) {
+                    final int pawnPosition = BitUtils.bitScanForward(pinnedPawnBB);
+                    pinnedPawnBB &= pinnedPawnBB - 1;
+                    final long pawnMovesBB = Pawn.getPseudoLegalMovesBB(pawnPosition, side, occupiedSquareBB, enemyOccupiedSquareBB)
+                            & pinRaysBB[pawnPosition];
+                    final boolean promotedMove = (isWhiteTurn && pawnPosition >= 48) || (ColorUtils.isBlack(side) && pawnPosition <= 15);
+                    addMovesFromBitboard(PieceUtils.PAWN, pawnPosition, pawnMovesBB, promotedMove, game, null);
+                }
+
+                if (enPassantPossible) {
+                    // Only the (at most 2) pawns attacking the en passant square
+                    long candidatesBB = Pawn.getAttackBB(board.enPassantIndex, ColorUtils.switchColor(side)) & friendlyPawnBB;
+                    while (candidatesBB != 0) {
+                        final int pawnPosition = BitUtils.bitScanForward(candidatesBB);
+                        candidatesBB &= candidatesBB - 1;
+                        if (isEnPassantLegal(board, side, kingPosition, pawnPosition, board.enPassantIndex)) {
+                            currentNumberOfMoves++;
+                        }
+                    }
+                }
+                return currentNumberOfMoves;
             }
 
             while (friendlyPawnBB != 0) {
                 final int pawnPosition = BitUtils.bitScanForward(friendlyPawnBB);
                 friendlyPawnBB &= friendlyPawnBB - 1;
-                final long pawnMovesBB = Pawn.getPseudoLegalMovesBB(pawnPosition, side, occupiedSquareBB, enemyOccupiedSquareBB);
+                long pawnMovesBB = Pawn.getPseudoLegalMovesBB(pawnPosition, side, occupiedSquareBB, enemyOccupiedSquareBB);
                 final boolean promotedMove = (isWhiteTurn && pawnPosition >= 48) || (ColorUtils.isBlack(side) && pawnPosition <= 15);
-                final boolean isPinned = (pinnedPiecesBB & BitUtils.getPositionIndexBitMask(pawnPosition)) != 0;
-                addMovesFromBitboard(PieceUtils.PAWN, pawnPosition, pawnMovesBB, promotedMove, isPinned, game, buffer);
+                if ((pinnedPiecesBB & BitUtils.getPositionIndexBitMask(pawnPosition)) != 0) pawnMovesBB &= pinRaysBB[pawnPosition];
+                addMovesFromBitboard(PieceUtils.PAWN, pawnPosition, pawnMovesBB, promotedMove, game, buffer);
 
                 // en passant
                 // TODO we could early exit if the pawn position is not one of the 2 candidates for en passant
                 if (enPassantPossible) {
                     final long enPassantBB = Pawn.getAttackBB(pawnPosition, side) & enPassantBitMask;
-                    if (enPassantBB != 0) {
-                        addEnPassantMove(pawnPosition, game, buffer, true);
+                    if (enPassantBB != 0 && isEnPassantLegal(board, side, kingPosition, pawnPosition, board.enPassantIndex)) {
+                        addEnPassantMove(pawnPosition, game, buffer);
                     }
                 }
             }
@@ -239,14 +311,211 @@ public class MoveGenerator {
         return currentNumberOfMoves;
     }
 
-    static void addEnPassantMove(final int startPosition, final Game game, int[] buffer, boolean verifyChecks) {
-        if(!verifyChecks || !CheckUtils.wouldKingBeInCheck(startPosition, game.board().enPassantIndex, game.currentPlayer, game)) {
-            if (buffer == null) {
-                MoveGenerator.currentNumberOfMoves++;
-            } else {
-                buffer[MoveGenerator.currentNumberOfMoves++] = Move.asBytesEnPassant(startPosition, game.board().enPassantIndex);
+    /**
+     * Whether {@code move} is one the generator could produce for the side to move, without generating: right piece
+     * on the start square, reachable target, consistent flags and promotion. King safety is not checked, except for
+     * castles which are fully validated. Meant for moves coming from another position (TT, killers).
+     */
+    public static boolean isPseudoLegal(Game game, int move) {
+        if(move == 0) {
+            return false;
+        }
+        final Board board = game.board();
+        final int side = game.currentPlayer;
+        final boolean white = ColorUtils.isWhite(side);
+
+        if(Move.isCastleKingSide(move)) {
+            return move == (white ? Move.CASTLE_KING_SIDE_WHITE_MOVE : Move.CASTLE_KING_SIDE_BLACK_MOVE)
+                    && board.checkersBB() == 0
+                    && King.isCastleKingSideLegal(side, board.gameBB, board.enemyAttackBB(),
+                        white ? game.whiteCanCastleKingSide : game.blackCanCastleKingSide);
+        }
+        if(Move.isCastleQueenSide(move)) {
+            return move == (white ? Move.CASTLE_QUEEN_SIDE_WHITE_MOVE : Move.CASTLE_QUEEN_SIDE_BLACK_MOVE)
+                    && board.checkersBB() == 0
+                    && King.isCastleQueenSideLegal(side, board.gameBB, board.enemyAttackBB(),
+                        white ? game.whiteCanCastleQueenSide : game.blackCanCastleQueenSide);
+        }
+
+        final int from = Move.getStartPosition(move);
+        final int to = Move.getEndPosition(move);
+        final byte pieceType = Move.getPieceType(move);
+        if(pieceType == PieceUtils.NONE || pieceType > PieceUtils.KING
+                || (board.piecesBB(pieceType, side) & BitUtils.getPositionIndexBitMask(from)) == 0) {
+            return false;
+        }
+        final long toBB = BitUtils.getPositionIndexBitMask(to);
+
+        if(Move.isEnPassant(move)) {
+            return move == Move.asBytesEnPassant(from, to)
+                    && board.enPassantFile != -1 && to == board.enPassantIndex
+                    && (Pawn.getAttackBB(from, side) & toBB) != 0;
+        }
+
+        final byte promotion = Move.getPromotion(move);
+        if(move != Move.asBytes(from, to, pieceType, promotion)) {
+            // stray flag or high bits
+            return false;
+        }
+        final long friendlyBB = white ? board.whiteBB : board.blackBB;
+        final long enemyBB = white ? board.blackBB : board.whiteBB;
+        final long targetsBB = switch (pieceType) {
+            case PieceUtils.PAWN -> Pawn.getPseudoLegalMovesBB(from, side, board.gameBB, enemyBB);
+            case PieceUtils.KNIGHT -> Knight.getAttackBB(from);
+            case PieceUtils.BISHOP -> Bishop.getAttackBB(from, board.gameBB);
+            case PieceUtils.ROOK -> Rook.getAttackBB(from, board.gameBB);
+            case PieceUtils.QUEEN -> Bishop.getAttackBB(from, board.gameBB) | Rook.getAttackBB(from, board.gameBB);
+            default -> King.getAttackBB(from);
+        };
+        if((targetsBB & ~friendlyBB & toBB) == 0) {
+            return false;
+        }
+
+        final boolean promotionRank = white ? to >= 56 : to <= 7;
+        if(pieceType == PieceUtils.PAWN && promotionRank) {
+            return promotion >= PieceUtils.KNIGHT && promotion <= PieceUtils.QUEEN;
+        }
+        return promotion == PieceUtils.NONE;
+    }
+
+    /**
+     * {@link #isPseudoLegal} plus king safety, from the checkers, pins and enemy attack map cached on the board:
+     * true exactly when {@code move} is among {@link #generateMoves(Game, int[])}.
+     */
+    public static boolean isLegal(Game game, int move) {
+        if(!isPseudoLegal(game, move)) {
+            return false;
+        }
+        if(Move.isCastleKingSide(move) || Move.isCastleQueenSide(move)) {
+            return true;
+        }
+
+        final Board board = game.board();
+        final int side = game.currentPlayer;
+        final int from = Move.getStartPosition(move);
+        final int to = Move.getEndPosition(move);
+        final long toBB = BitUtils.getPositionIndexBitMask(to);
+        if(Move.getPieceType(move) == PieceUtils.KING) {
+            return (board.enemyAttackBB() & toBB) == 0;
+        }
+
+        final int kingPosition = BitUtils.bitScanForward(board.piecesBB(PieceUtils.KING, side));
+        final long checkersBB = board.checkersBB();
+        if(Move.isEnPassant(move)) {
+            // Sliders are re-checked on the occupancy after the capture ; a knight or pawn check must be the
+            // double-pushed pawn itself
+            final int opponent = ColorUtils.switchColor(side);
+            final long capturedBB = BitUtils.getPositionIndexBitMask(ColorUtils.isWhite(side) ? to - 8 : to + 8);
+            final long leaperCheckersBB = checkersBB
+                    & (board.piecesBB(PieceUtils.KNIGHT, opponent) | board.piecesBB(PieceUtils.PAWN, opponent));
+            return (leaperCheckersBB & ~capturedBB) == 0 && isEnPassantLegal(board, side, kingPosition, from, to);
+        }
+
+        if(checkersBB != 0) {
+            if(BitUtils.bitCount(checkersBB) > 1) {
+                return false;
+            }
+            final int checkerPosition = BitUtils.bitScanForward(checkersBB);
+            if(((ObstructedLinesUtils.OBSTRUCTED_BB[kingPosition][checkerPosition] | checkersBB) & toBB) == 0) {
+                return false;
+            }
+        }
+        return (board.pinnedBB() & BitUtils.getPositionIndexBitMask(from)) == 0
+                || (board.pinRaysBB()[from] & toBB) != 0;
+    }
+
+    /**
+     * Whether the move gives check, direct or discovered. Ordinary moves cost one AND against the check squares
+     * cached on the board (plus an alignment test for discovered-check candidates) ; castles, en passant and
+     * promotions rebuild the slider attacks on the enemy king from the occupancy after the move.
+     */
+    public static boolean givesCheck(Game game, int move) {
+        final Board board = game.board();
+        if(Move.getPromotion(move) != PieceUtils.NONE || Move.isEnPassant(move)
+                || Move.isCastleKingSide(move) || Move.isCastleQueenSide(move)) {
+            return givesSpecialMoveCheck(game, move);
+        }
+        final int from = Move.getStartPosition(move);
+        final long fromBB = BitUtils.getPositionIndexBitMask(from);
+        final int to = Move.getEndPosition(move);
+        final long toBB = BitUtils.getPositionIndexBitMask(to);
+        if((board.checkSquaresBB(board.getPieceTypeAt(from)) & toBB) != 0) {
+            return true;
+        }
+        if((board.discoveredCheckCandidatesBB() & fromBB) == 0) {
+            return false;
+        }
+
+        // Discovered unless the piece stays on the line through the enemy king
+        final int enemyKingPosition = BitUtils.bitScanForward(board.piecesBB(PieceUtils.KING, ColorUtils.switchColor(game.currentPlayer)));
+        return (ObstructedLinesUtils.OBSTRUCTED_BB[from][enemyKingPosition] & toBB) == 0
+                && (ObstructedLinesUtils.OBSTRUCTED_BB[to][enemyKingPosition] & fromBB) == 0;
+    }
+
+    private static boolean givesSpecialMoveCheck(Game game, int move) {
+        final Board board = game.board();
+        final int side = game.currentPlayer;
+        final int from = Move.getStartPosition(move);
+        final int to = Move.getEndPosition(move);
+        final long fromBB = BitUtils.getPositionIndexBitMask(from);
+        final long toBB = BitUtils.getPositionIndexBitMask(to);
+        final int enemyKingPosition = BitUtils.bitScanForward(board.piecesBB(PieceUtils.KING, ColorUtils.switchColor(side)));
+
+        long occupiedAfterBB = board.gameBB;
+        long rookLikeBB = board.piecesBB(PieceUtils.ROOK, side) | board.piecesBB(PieceUtils.QUEEN, side);
+        long bishopLikeBB = board.piecesBB(PieceUtils.BISHOP, side) | board.piecesBB(PieceUtils.QUEEN, side);
+        long leaperAttackBB = 0;
+        if(Move.isCastleKingSide(move) || Move.isCastleQueenSide(move)) {
+            final boolean kingSide = Move.isCastleKingSide(move);
+            final long rookMoveBB = BitUtils.getPositionIndexBitMask(kingSide ? from + 3 : from - 4)
+                    | BitUtils.getPositionIndexBitMask(kingSide ? from + 1 : from - 1);
+            occupiedAfterBB ^= fromBB | toBB | rookMoveBB;
+            rookLikeBB ^= rookMoveBB;
+        } else if(Move.isEnPassant(move)) {
+            final int capturedPosition = ColorUtils.isWhite(side) ? to - 8 : to + 8;
+            occupiedAfterBB ^= fromBB | toBB | BitUtils.getPositionIndexBitMask(capturedPosition);
+            leaperAttackBB = Pawn.getAttackBB(to, side);
+        } else {
+            // promotion: a captured piece on the target square is not one of our sliders
+            occupiedAfterBB = (occupiedAfterBB & ~fromBB) | toBB;
+            switch (Move.getPromotion(move)) {
+                case PieceUtils.KNIGHT -> leaperAttackBB = Knight.getAttackBB(to);
+                case PieceUtils.BISHOP -> bishopLikeBB |= toBB;
+                case PieceUtils.ROOK -> rookLikeBB |= toBB;
+                default -> {
+                    rookLikeBB |= toBB;
+                    bishopLikeBB |= toBB;
+                }
             }
         }
+        return (leaperAttackBB & BitUtils.getPositionIndexBitMask(enemyKingPosition)) != 0
+                || (Rook.getAttackBB(enemyKingPosition, occupiedAfterBB) & rookLikeBB) != 0
+                || (Bishop.getAttackBB(enemyKingPosition, occupiedAfterBB) & bishopLikeBB) != 0;
+    }
+
+    /**
+     * En passant removes two pawns from the same rank at once, so a pin mask is not enough: re-check the
+     * sliders against the king on the occupancy after the capture (covers the "two pawns on the king's rank"
+     * discovered check as well as a regular diagonal pin). Knight and pawn checkers are left to the caller.
+     */
+    static boolean isEnPassantLegal(Board board, int side, int kingPosition, int from, int enPassantIndex) {
+        final boolean white = ColorUtils.isWhite(side);
+        final long enemyBB = white ? board.blackBB : board.whiteBB;
+        final long capturedBB = BitUtils.getPositionIndexBitMask(white ? enPassantIndex - 8 : enPassantIndex + 8);
+        final long occupiedAfterBB = (board.gameBB ^ BitUtils.getPositionIndexBitMask(from) ^ capturedBB)
+                | BitUtils.getPositionIndexBitMask(enPassantIndex);
+        final long enemyRookLikeBB = (board.rookBB | board.queenBB) & enemyBB;
+        final long enemyBishopLikeBB = (board.bishopBB | board.queenBB) & enemyBB;
+        return (Rook.getAttackBB(kingPosition, occupiedAfterBB) & enemyRookLikeBB) == 0
+                && (Bishop.getAttackBB(kingPosition, occupiedAfterBB) & enemyBishopLikeBB) == 0;
+    }
+
+    static void addEnPassantMove(final int startPosition, final Game game, int[] buffer) {
+        if (buffer == null) {
+            MoveGenerator.currentNumberOfMoves++;
+        } else {
+            buffer[MoveGenerator.currentNumberOfMoves++] = Move.asBytesEnPassant(startPosition, game.board().enPassantIndex);
+        }
     }
 
     private static void addKingCastleMove(int color, int[] buffer) {
@@ -273,11 +542,11 @@ public class MoveGenerator {
         }
     }
 
+    /** Moves in {@code moveBitboard} must already be legal (pins / king safety applied by the caller). */
     static void addMovesFromBitboard(final byte pieceType, final int startPosition, final long moveBitboard,
-                                     final boolean promotedMove, final boolean verifyChecks, final Game game,
-                                     int[] buffer) {
+                                     final boolean promotedMove, final Game game, int[] buffer) {
         long moveBB = moveBitboard;
-        if(buffer == null && !verifyChecks) {
+        if(buffer == null) {
             if(promotedMove) {
                 currentNumberOfMoves += BitUtils.bitCount(moveBB)*4;
             } else {
@@ -288,47 +557,39 @@ public class MoveGenerator {
         while(moveBB != 0) {
             int endPosition = BitUtils.bitScanForward(moveBB);
             moveBB &= moveBB - 1;
-            if(!verifyChecks || !CheckUtils.wouldKingBeInCheck(startPosition, endPosition, game.currentPlayer, game)) {
-                if(promotedMove) {
-                    if(buffer == null) {
-                        currentNumberOfMoves += 4;
-                    } else {
-                        buffer[currentNumberOfMoves++] = Move.asBytes(startPosition, endPosition, pieceType, PieceUtils.KNIGHT);
-                        buffer[currentNumberOfMoves++] = Move.asBytes(startPosition, endPosition, pieceType, PieceUtils.QUEEN);
-                        buffer[currentNumberOfMoves++] = Move.asBytes(startPosition, endPosition, pieceType, PieceUtils.BISHOP);
-                        buffer[currentNumberOfMoves++] = Move.asBytes(startPosition, endPosition, pieceType, PieceUtils.ROOK);
-                    }
-                } else {
-                    if (buffer != null) {
-                        buffer[currentNumberOfMoves] = Move.asBytes(startPosition, endPosition, pieceType);
-                    }
-                    currentNumberOfMoves++;
-                }
+            if(promotedMove) {
+                buffer[currentNumberOfMoves++] = Move.asBytes(startPosition, endPosition, pieceType, PieceUtils.KNIGHT);
+                buffer[currentNumberOfMoves++] = Move.asBytes(startPosition, endPosition, pieceType, PieceUtils.QUEEN);
+                buffer[currentNumberOfMoves++] = Move.asBytes(startPosition, endPosition, pieceType, PieceUtils.BISHOP);
+                buffer[currentNumberOfMoves++] = Move.asBytes(startPosition, endPosition, pieceType, PieceUtils.ROOK);
+            } else {
+                buffer[currentNumberOfMoves++] = Move.asBytes(startPosition, endPosition, pieceType);
             }
         }
     }
 
     public static long getPinnedBB(Board board, int colorPinned) {
+        return getPinnedBB(board, colorPinned, null);
+    }
+
+    /**
+     * @param pinRaysBB if not null, receives for each pinned square the squares that piece may move to
+     *                  (between king and pinner, pinner included). Entries of non-pinned squares are left stale.
+     */
+    public static long getPinnedBB(Board board, int colorPinned, long[] pinRaysBB) {
         long pinnedBB = 0;
 
         final long friendlyOccupiedSquareBB;
         final long enemyOccupiedSquareBB;
-        final long opponentBishopBB;
-        final long opponentRookBB;
-        final long kingBB;
-        final long opponentQueenBB;
+        final int opponentColor = ColorUtils.switchColor(colorPinned);
+        final long opponentBishopBB = board.piecesBB(PieceUtils.BISHOP, opponentColor);
+        final long opponentRookBB = board.piecesBB(PieceUtils.ROOK, opponentColor);
+        final long opponentQueenBB = board.piecesBB(PieceUtils.QUEEN, opponentColor);
+        final long kingBB = board.piecesBB(PieceUtils.KING, colorPinned);
         if(ColorUtils.isWhite(colorPinned)) {
-            opponentBishopBB = board.bishopBB & board.blackBB;
-            opponentRookBB = board.rookBB & board.blackBB;
-            opponentQueenBB = board.queenBB & board.blackBB;
-            kingBB = board.kingBB & board.whiteBB;
             friendlyOccupiedSquareBB = board.whiteBB;
             enemyOccupiedSquareBB = board.blackBB;
         } else {
-            opponentBishopBB = board.bishopBB & board.whiteBB;
-            opponentRookBB = board.rookBB & board.whiteBB;
-            opponentQueenBB = board.queenBB & board.whiteBB;
-            kingBB = board.kingBB & board.blackBB;
             friendlyOccupiedSquareBB = board.blackBB;
             enemyOccupiedSquareBB = board.whiteBB;
         }
@@ -348,7 +609,12 @@ public class MoveGenerator {
                 while (rookPinners != 0) {
                     final int pinnerIndex = BitUtils.bitScanForward(rookPinners);
                     rookPinners &= rookPinners - 1;
-                    pinnedBB |= potentialPinnedByRook & ObstructedLinesUtils.OBSTRUCTED_BB[pinnerIndex][kingPosition];
+                    final long rayBB = ObstructedLinesUtils.OBSTRUCTED_BB[pinnerIndex][kingPosition];
+                    final long pinnedByThisBB = potentialPinnedByRook & rayBB;
+                    pinnedBB |= pinnedByThisBB;
+                    if (pinRaysBB != null && pinnedByThisBB != 0) {
+                        pinRaysBB[BitUtils.bitScanForward(pinnedByThisBB)] = rayBB | BitUtils.getPositionIndexBitMask(pinnerIndex);
+                    }
                 }
             }
         }
@@ -365,7 +631,12 @@ public class MoveGenerator {
                     while (bishopPinners != 0) {
                         final int pinnerIndex = BitUtils.bitScanForward(bishopPinners);
                         bishopPinners &= bishopPinners - 1;
-                        pinnedBB |= potentialPinnedByBishop & ObstructedLinesUtils.OBSTRUCTED_BB[pinnerIndex][kingPosition];
+                        final long rayBB = ObstructedLinesUtils.OBSTRUCTED_BB[pinnerIndex][kingPosition];
+                        final long pinnedByThisBB = potentialPinnedByBishop & rayBB;
+                        pinnedBB |= pinnedByThisBB;
+                        if (pinRaysBB != null && pinnedByThisBB != 0) {
+                            pinRaysBB[BitUtils.bitScanForward(pinnedByThisBB)] = rayBB | BitUtils.getPositionIndexBitMask(pinnerIndex);
+                        }
                     }
                 }
             }
@@ -375,65 +646,23 @@ public class MoveGenerator {
     }
 
     public static long doGetAttackBB(Board board, int color, long occupiedXorBB) {
-        final long bishopBB;
-        final long rookBB;
-        final long knightBB;
-        final long kingBB;
-        final long pawnBB;
-        if(ColorUtils.isWhite(color)) {
-            bishopBB = (board.bishopBB | board.queenBB) & board.whiteBB;
-            rookBB = (board.rookBB | board.queenBB) & board.whiteBB;
-            knightBB = board.knightBB & board.whiteBB;
-            kingBB = board.kingBB & board.whiteBB;
-            pawnBB = board.pawnBB & board.whiteBB;
-        } else {
-            bishopBB = (board.bishopBB | board.queenBB) & board.blackBB;
-            rookBB = (board.rookBB | board.queenBB) & board.blackBB;
-            knightBB = board.knightBB & board.blackBB;
-            kingBB = board.kingBB & board.blackBB;
-            pawnBB = board.pawnBB & board.blackBB;
-        }
+        final long queenBB = board.piecesBB(PieceUtils.QUEEN, color);
+        final long bishopBB = board.piecesBB(PieceUtils.BISHOP, color) | queenBB;
+        final long rookBB = board.piecesBB(PieceUtils.ROOK, color) | queenBB;
+        final long knightBB = board.piecesBB(PieceUtils.KNIGHT, color);
+        final long kingBB = board.piecesBB(PieceUtils.KING, color);
+        final long pawnBB = board.piecesBB(PieceUtils.PAWN, color);
 
         return doGetAttackBB(kingBB, bishopBB, rookBB, knightBB, pawnBB, board.gameBB ^ occupiedXorBB, color);
     }
 
-    public static long getCheckersBB(int positionIndex, DirtyBoard board, int color, boolean earlyExit) {
-        final long bishopBB;
-        final long rookBB;
-        final long knightBB;
-        final long kingBB;
-        final long pawnBB;
-        if(ColorUtils.isWhite(color)) {
-            bishopBB = board.whiteBishopBB | board.whiteQueenBB;
-            rookBB = board.whiteRookBB | board.whiteQueenBB;
-            knightBB = board.whiteKnightBB;
-            kingBB = board.whiteKingBB;
-            pawnBB = board.whitePawnBB;
-        } else {
-            bishopBB = board.blackBishopBB | board.blackQueenBB;
-            rookBB = board.blackRookBB | board.blackQueenBB;
-            knightBB = board.blackKnightBB;
-            kingBB = board.blackKingBB;
-            pawnBB = board.blackPawnBB;
-        }
-
-        return getCheckersBB(positionIndex, kingBB, bishopBB, rookBB, knightBB, pawnBB,
-                board.computeSquaresOccupiedByBlackBB() | board.computeSquaresOccupiedByWhiteBB(), color, earlyExit);
-    }
-
     public static long getCheckersBB(int positionIndex, Board board, int color, boolean earlyExit) {
-        final long bishopBB;
-        final long rookBB;
-        final long knightBB;
-        final long kingBB;
-        final long pawnBB;
-        final boolean white = ColorUtils.isWhite(color);
-        final long sideBoardBB = white ? board.whiteBB : board.blackBB;
-        bishopBB = (board.bishopBB | board.queenBB) & sideBoardBB;
-        rookBB = (board.rookBB | board.queenBB) & sideBoardBB;
-        knightBB = board.knightBB & sideBoardBB;
-        kingBB = board.kingBB & sideBoardBB;
-        pawnBB = board.pawnBB & sideBoardBB;
+        final long queenBB = board.piecesBB(PieceUtils.QUEEN, color);
+        final long bishopBB = board.piecesBB(PieceUtils.BISHOP, color) | queenBB;
+        final long rookBB = board.piecesBB(PieceUtils.ROOK, color) | queenBB;
+        final long knightBB = board.piecesBB(PieceUtils.KNIGHT, color);
+        final long kingBB = board.piecesBB(PieceUtils.KING, color);
+        final long pawnBB = board.piecesBB(PieceUtils.PAWN, color);
 
         return getCheckersBB(positionIndex, kingBB, bishopBB, rookBB, knightBB, pawnBB,
                 board.gameBB, color, earlyExit);
@@ -11,34 +11,35 @@ package max.chess.engine.movegen.pieces;
  *   long atk = FancyBishop.attacks(sq, occ);  // fast: one multiply + shift + table read
  * <p>
  * Notes:
- *   - This builds *collision-free* magics at startup (deterministic, no I/O).
+ *   - BISHOP_MAGIC_PRESET holds the magics the deterministic search below finds, so startup only
+ *     fills the table. The fill checks for collisions and falls back to the search on a bad preset;
+ *     the full selfTest runs with -ea.
  *   - Table layout is flat + per-square offsets for cache locality.
- *   - If you already have known-good bishop magics, paste them into BISHOP_MAGIC_PRESET
- *     and set USE_PRESET_MAGICS = true to skip the search.
  */
 public final class Bishop {
 
     /* ---------- config ---------- */
 
-    // Set to true and fill BISHOP_MAGIC_PRESET to bypass the search.
-    private static final boolean USE_PRESET_MAGICS = false;
-    private static final long[] BISHOP_MAGIC_PRESET = { //
-            0x0808431002060060L, 0x0010420214086902L, 0x0004211401000114L, 0x02060a1200005290L, //
-            0x8012021000400000L, 0x0801015840800080L, 0x0004120804044500L, 0x0501040184240604L, //
-            0x0a00682310020601L, 0x4001041002004901L, 0x6804500102002464L, 0x4800022082014400L, //
-            0x00000a0210800008L, 0x0280c088044041b0L, 0x84000044100c1080L, 0x24101888c8021002L, //
-            0x2008080451540810L, 0x0004080801080208L, 0xc0021a4400620200L, 0x0098000082004400L, //
-            0x800e10c401040400L, 0x0420400809101021L, 0x0052000101901401L, 0x2001820032011000L, //
-            0x0002109662604a03L, 0x0738580002100104L, 0x04030400018c0400L, 0x0001802108020020L, //
-            0x0089001021014000L, 0x4000820001010080L, 0x880401406c064200L, 0x100202000c84c14dL, //
-            0x0021211080200400L, 0x0108041010020200L, 0x000c004800011200L, 0x0280401048060200L, //
-            0x0102008400220020L, 0x4022080200004050L, 0x0122008401050402L, 0x0014040150812100L, //
-            0x0582020240212000L, 0x0218a80402031000L, 0x0101420041001020L, 0x0020902024200800L, //
-            0x0800401093021202L, 0x00a2100202020020L, 0x1120640421408080L, 0x00888084008054c8L, //
-            0x0004120804044500L, 0x1240908090102005L, 0x8000226884100400L, 0x0880008042020000L, //
-            0x2000040410442040L, 0x041010200169002aL, 0x0808431002060060L, 0x0010420214086902L, //
-            0x0501040184240604L, 0x24101888c8021002L, 0x6003250104431002L, 0x8012a0040c208801L, //
-            0x0108041010020200L, 0x0400000420440100L, 0x0a00682310020601L, 0x0808431002060060L, };
+    // Set to false to search the magics at startup instead.
+    private static final boolean USE_PRESET_MAGICS = true;
+    private static final long[] BISHOP_MAGIC_PRESET = {
+            0x0040100c08888650L, 0x6004044802002000L, 0x80d0040040500040L, 0x0904040093900000L,
+            0x41c5104021000880L, 0x1020c82010040020L, 0x0022010908c05161L, 0x4100440a44022000L,
+            0x080440243104012cL, 0x300c04a164110600L, 0x0027488200420800L, 0x7410040403810008L,
+            0x0400251040404242L, 0x0000120804243404L, 0x0000020090143000L, 0xc000132202100414L,
+            0x8020001004611828L, 0x0c90002842008400L, 0x0210200104018010L, 0x3806010412120040L,
+            0x0011002820082014L, 0x00c2002501049204L, 0x8202000080900800L, 0x0c00302101080600L,
+            0x00100a1010121010L, 0x1014200044810406L, 0x0002a40088080a20L, 0x0824480040820040L,
+            0x000e002002008044L, 0x0018020114220700L, 0xc288020841088210L, 0x0000420001490401L,
+            0x2010501000085200L, 0x08a2022020100920L, 0x0104040c00020028L, 0x1050110800240040L,
+            0x090b010400120020L, 0x1850810200810080L, 0x0024080200084724L, 0x0082128200530244L,
+            0x008c100250000800L, 0x20808208a0006a22L, 0x0202010448000306L, 0x4000122024200800L,
+            0x204102200b010200L, 0x0020201410200242L, 0x801011a604120880L, 0x5008021884206200L,
+            0x002082019040080aL, 0x901080880842040cL, 0x2822002201104101L, 0x0500001205040000L,
+            0x0000280803040200L, 0xa800400809170540L, 0x0010200800b19010L, 0x824405820c010401L,
+            0x8000208c04014002L, 0x00044d8208120200L, 0x050000408400a802L, 0x000880190042120aL,
+            0x00a00008b0420209L, 0x00800e0c09100100L, 0x080250a0024c0040L, 0x6020042892004a00L,
+    };
     /* ---------- per-square data ---------- */
 
     private static final long[] MASK  = new long[64];   // relevant occupancy mask (no edges)
@@ -51,7 +52,7 @@ public final class Bishop {
 
     static {
         init();
-        selfTest();
+        assert selfTest() : "FancyBishop: magic table mismatch";
     }
 
     public static void warmUp () {
@@ -69,6 +70,12 @@ public final class Bishop {
         return attacks(positionIndex, occupiedBB);
     }
 
+    // Per-square magic data, for SliderAttacks' packed layout
+    static long relevantMask(int sq) { return MASK[sq]; }
+    static long magic(int sq) { return MAGIC[sq]; }
+    static int shift(int sq) { return SHIFT[sq]; }
+    static long slidingAttacks(int sq, long occ) { return bishopSlidingFrom(sq, occ); }
+
     /* ===================== public API ===================== */
 
     /** Build masks, magics, and the flat table. Call once at startup. */
@@ -88,6 +95,11 @@ public final class Bishop {
         // 2) build magics (or use preset)
         if (USE_PRESET_MAGICS) {
             System.arraycopy(BISHOP_MAGIC_PRESET, 0, MAGIC, 0, 64);
+            if (!fillTablesWithGivenMagics()) {
+                // a preset collides on this table layout: search fresh magics
+                java.util.Arrays.fill(TABLE, 0L);
+                buildMagicsAndFill();
+            }
         } else {
             buildMagicsAndFill();
         }
@@ -105,6 +117,30 @@ public final class Bishop {
 
     /* ===================== builder ===================== */
 
+    /**
+     * Fills TABLE from the preset magics. Returns false on a destructive collision (two occupancies with
+     * different attacks sharing a slot): attacks are never empty, so a non-zero slot is a written one.
+     */
+    private static boolean fillTablesWithGivenMagics() {
+        for (int sq = 0; sq < 64; sq++) {
+            long mask = MASK[sq];
+            int base = OFFSET[sq];
+            // enumerate subsets of mask
+            long subset = 0L;
+            while (true) {
+                int index = base + (int) ((subset * MAGIC[sq]) >>> SHIFT[sq]);
+                long attacks = bishopSlidingFrom(sq, subset);
+                if (TABLE[index] != 0L && TABLE[index] != attacks) {
+                    return false;
+                }
+                TABLE[index] = attacks;
+                if (subset == mask) break;
+                subset = (subset - mask) & mask;
+            }
+        }
+        return true;
+    }
+
     private static void buildMagicsAndFill() {
         // Deterministic RNG per square
         SplitMix64 rng = new SplitMix64(0x9E3779B97F4A7C15L);
@@ -233,7 +269,7 @@ public final class Bishop {
 
     /* ===================== optional self-test ===================== */
 
-    private static void selfTest() {
+    private static boolean selfTest() {
         for (int sq = 0; sq < 64; sq++) {
             long mask = MASK[sq];
             // enumerate all subsets to verify table correctness
@@ -243,11 +279,11 @@ public final class Bishop {
                 long pre = TABLE[idx];
                 long ref = bishopSlidingFrom(sq, subset);
                 if (pre != ref) {
-                    throw new AssertionError("FancyBishop mismatch at sq=" + sq +
-                        " subset=" + Long.toUnsignedString(subset));
+                    return false;
                 }
                 subset = (subset - mask) & mask;
             } while (subset != 0);
         }
+        return true;
     }
 }
@@ -1,10 +1,7 @@
 package max.chess.engine.movegen.pieces;
 
-import max.chess.engine.movegen.MoveGenerator;
 import max.chess.engine.common.Position;
-import max.chess.engine.utils.BitUtils;
 import max.chess.engine.utils.ColorUtils;
-import max.chess.engine.game.board.Board;
 
 public final class King {
     public static final long[] KING_MOVES_BB = new long[64];
@@ -12,6 +9,8 @@ public final class King {
     private static final long BIT_MASK_QUEEN_CASTLE_WHITE_PASSAGE_SQUARES = (0b111L << 1);
     private static final long BIT_MASK_KING_CASTLE_BLACK_PASSAGE_SQUARES = (0b11L << 61);
     private static final long BIT_MASK_QUEEN_CASTLE_BLACK_PASSAGE_SQUARES = (0b111L << 57);
+    private static final long BIT_MASK_QUEEN_CASTLE_WHITE_KING_PATH = (0b11L << 2);
+    private static final long BIT_MASK_QUEEN_CASTLE_BLACK_KING_PATH = (0b11L << 58);
 
     public static void warmUp() {
         generateKingMovesBB();
@@ -21,75 +20,33 @@ public final class King {
         return getPseudoLegalMovesBB(positionIndex) & ~enemyAttackBB & ~friendlySquaresBB;
     }
 
-    public static long getNonCastleLegalMovesBB(int kingColor, int positionIndex, long friendlySquaresOccupiedBB, Board board) {
-        long kingMovesBitboard = getPseudoLegalMovesBB(positionIndex);
-        int oppositeColor = ColorUtils.switchColor(kingColor);
-
-        kingMovesBitboard &= ~friendlySquaresOccupiedBB;
-
-        long kingMovesCheckSafeBB = 0;
-        while(kingMovesBitboard != 0) {
-            int nextMoveIndex = BitUtils.bitScanForward(kingMovesBitboard);
-            kingMovesBitboard &= kingMovesBitboard-1;
-            if(MoveGenerator.getCheckersBB(nextMoveIndex, board, oppositeColor, true) == 0) {
-                kingMovesCheckSafeBB |= BitUtils.getPositionIndexBitMask(nextMoveIndex);
-            }
-        }
-        return kingMovesCheckSafeBB;
-    }
-
-    public static boolean isCastleKingSideLegal(int kingColor, long squaresOccupiedBB, boolean isKingInCheck,
-                                                boolean canCastleKingSide, Board board) {
-        if(!canCastleKingSide || isKingInCheck) {
+    /**
+     * @param enemyAttackBB squares attacked by the opponent (the caller is not in check)
+     */
+    public static boolean isCastleKingSideLegal(int kingColor, long squaresOccupiedBB, long enemyAttackBB,
+                                                boolean canCastleKingSide) {
+        if(!canCastleKingSide) {
             return false;
         }
-
-        int oppositeColor = ColorUtils.switchColor(kingColor);
-
-        if(ColorUtils.isWhite(kingColor)
-                && (squaresOccupiedBB & BIT_MASK_KING_CASTLE_WHITE_PASSAGE_SQUARES) == 0) {
-            boolean isPassageFree = MoveGenerator.getCheckersBB(5, board, oppositeColor, true) == 0;
-            if(isPassageFree) {
-                // passage is free for castle
-                return MoveGenerator.getCheckersBB(6, board, oppositeColor, true) == 0;
-            }
-        } else if(ColorUtils.isBlack(kingColor)
-                && (squaresOccupiedBB & BIT_MASK_KING_CASTLE_BLACK_PASSAGE_SQUARES) == 0) {
-            boolean isPassageFree = MoveGenerator.getCheckersBB(61, board, oppositeColor, true) == 0;
-            if(isPassageFree) {
-                // passage is free for castle
-                return MoveGenerator.getCheckersBB(62, board, oppositeColor, true) == 0;
-            }
-        }
-
-        return false;
+        // passage squares are also the squares the king crosses / lands on
+        final long passageBB = ColorUtils.isWhite(kingColor)
+                ? BIT_MASK_KING_CASTLE_WHITE_PASSAGE_SQUARES : BIT_MASK_KING_CASTLE_BLACK_PASSAGE_SQUARES;
+        return ((squaresOccupiedBB | enemyAttackBB) & passageBB) == 0;
     }
 
-    public static boolean isCastleQueenSideLegal(int kingColor, long squaresOccupiedBB, boolean isKingInCheck,
-                                                boolean canCastleQueenSide, Board board) {
-        if(!canCastleQueenSide || isKingInCheck) {
+    /**
+     * @param enemyAttackBB squares attacked by the opponent (the caller is not in check)
+     */
+    public static boolean isCastleQueenSideLegal(int kingColor, long squaresOccupiedBB, long enemyAttackBB,
+                                                 boolean canCastleQueenSide) {
+        if(!canCastleQueenSide) {
             return false;
         }
-
-        int oppositeColor = ColorUtils.switchColor(kingColor);
-
-        if(ColorUtils.isWhite(kingColor)
-                && (squaresOccupiedBB & BIT_MASK_QUEEN_CASTLE_WHITE_PASSAGE_SQUARES) == 0) {
-            boolean isPassageFree = MoveGenerator.getCheckersBB(3, board, oppositeColor, true) == 0;
-            if(isPassageFree) {
-                // passage is free for castle
-                return MoveGenerator.getCheckersBB(2, board, oppositeColor, true) == 0;
-            }
-        } else if(ColorUtils.isBlack(kingColor)
-                && (squaresOccupiedBB & BIT_MASK_QUEEN_CASTLE_BLACK_PASSAGE_SQUARES) == 0) {
-            boolean isPassageFree = MoveGenerator.getCheckersBB(59, board, oppositeColor, true) == 0;
-            if(isPassageFree) {
-                // passage is free for castle
-                return MoveGenerator.getCheckersBB(58, board, oppositeColor, true) == 0;
-            }
-        }
-
-        return false;
+        final boolean white = ColorUtils.isWhite(kingColor);
+        // b-file only has to be empty, the king crosses d and c
+        final long passageBB = white ? BIT_MASK_QUEEN_CASTLE_WHITE_PASSAGE_SQUARES : BIT_MASK_QUEEN_CASTLE_BLACK_PASSAGE_SQUARES;
+        final long kingPathBB = white ? BIT_MASK_QUEEN_CASTLE_WHITE_KING_PATH : BIT_MASK_QUEEN_CASTLE_BLACK_KING_PATH;
+        return (squaresOccupiedBB & passageBB) == 0 && (enemyAttackBB & kingPathBB) == 0;
     }
 
     public static long getAttackBB(int positionIndex) {
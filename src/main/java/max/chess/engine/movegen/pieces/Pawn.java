@@ -12,6 +12,11 @@ public final class Pawn {
     public static final long[] BLACK_PAWN_NON_ATTACKING_MOVES_BB = new long[64];
     public static final long[] WHITE_PAWN_NON_ATTACKING_MOVES_BB = new long[64];
 
+    private static final long RANK_1_BB = 0x00000000000000FFL;
+    private static final long RANK_3_BB = 0x0000000000FF0000L;
+    private static final long RANK_6_BB = 0x0000FF0000000000L;
+    private static final long RANK_8_BB = 0xFF00000000000000L;
+
     static {
         generatePawnNonAttackingMovesLookUp();
         generatePawnAttackingMovesLookUp();
@@ -54,6 +59,38 @@ public final class Pawn {
                 ;
     }
 
+    // Batch counting (perft leaves): pushes and captures of a whole set of unpinned pawns, promotions count 4
+    // En passant is not included
+    public static int countMoves(long pawnBB, int color, long occupiedSquaresBB, long occupiedSquaresEnemyBB) {
+        final long emptyBB = ~occupiedSquaresBB;
+        final long singlePushBB;
+        final long doublePushBB;
+        final long capturesBB;
+        final long capturesOtherSideBB;
+        final long promotionRankBB;
+        if(ColorUtils.isWhite(color)) {
+            singlePushBB = (pawnBB << 8) & emptyBB;
+            doublePushBB = ((singlePushBB & RANK_3_BB) << 8) & emptyBB;
+            capturesBB = BitBoardUtils.shift(pawnBB, BitBoardUtils.Direction.NORTHEAST) & occupiedSquaresEnemyBB;
+            capturesOtherSideBB = BitBoardUtils.shift(pawnBB, BitBoardUtils.Direction.NORTHWEST) & occupiedSquaresEnemyBB;
+            promotionRankBB = RANK_8_BB;
+        } else {
+            singlePushBB = (pawnBB >>> 8) & emptyBB;
+            doublePushBB = ((singlePushBB & RANK_6_BB) >>> 8) & emptyBB;
+            capturesBB = BitBoardUtils.shift(pawnBB, BitBoardUtils.Direction.SOUTHEAST) & occupiedSquaresEnemyBB;
+            capturesOtherSideBB = BitBoardUtils.shift(pawnBB, BitBoardUtils.Direction.SOUTHWEST) & occupiedSquaresEnemyBB;
+            promotionRankBB = RANK_1_BB;
+        }
+
+        return BitUtils.bitCount(doublePushBB)
+                + BitUtils.bitCount(singlePushBB & ~promotionRankBB)
+                + BitUtils.bitCount(capturesBB & ~promotionRankBB)
+                + BitUtils.bitCount(capturesOtherSideBB & ~promotionRankBB)
+                + 4 * (BitUtils.bitCount(singlePushBB & promotionRankBB)
+                    + BitUtils.bitCount(capturesBB & promotionRankBB)
+                    + BitUtils.bitCount(capturesOtherSideBB & promotionRankBB));
+    }
+
     private static long getNonAttackBB(int pawnPosition, int color) {
         return ColorUtils.isWhite(color)
                 ? WHITE_PAWN_NON_ATTACKING_MOVES_BB[pawnPosition]
@@ -10,15 +10,33 @@ package max.chess.engine.movegen.pieces;
  *   FancyRook.init();                      // once at startup
  *   long atk = FancyRook.attacks(sq, occ); // hot path: one mul+shift + one table load
  *
- * If you already have precomputed rook magics, set USE_PRESET_MAGICS = true
- * and fill ROOK_MAGIC_PRESET[64] to skip the search.
+ * ROOK_MAGIC_PRESET holds the magics the deterministic search below finds (seed 0xC0FFEE_5EED_F00D):
+ * the search costs more than a second at class-init, the preset only the table fill. The fill checks
+ * for collisions and falls back to the search on a bad preset; the full selfTest runs with -ea.
  */
 public final class Rook {
 
     /* ---------- config ---------- */
 
-    private static final boolean USE_PRESET_MAGICS = false;
-    private static final long[] ROOK_MAGIC_PRESET = new long[64]; // paste your constants if you have them
+    private static final boolean USE_PRESET_MAGICS = true;
+    private static final long[] ROOK_MAGIC_PRESET = {
+            0x008000102040008aL, 0x0080200010400080L, 0x2080200088805000L, 0x6100091001002004L,
+            0x8200204200041048L, 0x2500120400089100L, 0x0180050002000080L, 0x0200014120810204L,
+            0x08348004c0048820L, 0x0001804000802004L, 0x1000801000802000L, 0x8001801000080080L,
+            0x8224800400480280L, 0x8000805200808c00L, 0x4944000401021008L, 0x10008000d1000080L,
+            0x0000808001401060L, 0x1888808040002004L, 0x4841010040200010L, 0x6000808010004800L,
+            0x4041010028000410L, 0x0142008022808400L, 0x8000140010c80201L, 0x4404020001048054L,
+            0x000626808001c000L, 0x6005008100400024L, 0x0040900080200080L, 0x2504100080080084L,
+            0x002b00d100080055L, 0x0104040080800200L, 0x9400d80c00010210L, 0x0004011200004984L,
+            0x0108804006800030L, 0x0822010082002440L, 0x0810200480801003L, 0x0020800804801000L,
+            0x0000680080801400L, 0x1411700408012040L, 0x0922000100408040L, 0x2e41800240800900L,
+            0x0200804001208014L, 0x0010002000414000L, 0x0044200100c10010L, 0x0000401200220018L,
+            0x08520020100a0005L, 0x8006002410020008L, 0x0001003200010004L, 0x1000008100420004L,
+            0x0400224102800100L, 0x1800200040008080L, 0x0138200080900180L, 0x0020100009012100L,
+            0x1084040080080080L, 0x4a21800401220080L, 0x10180990081a0400L, 0x0000040080412200L,
+            0x8000426010800105L, 0x0002002010410082L, 0x0804200100410815L, 0x0000080500201001L,
+            0x0002001020080502L, 0x4002000810940902L, 0x28a0220290184104L, 0x801010802c0108c2L,
+    };
 
     /* ---------- per-square data ---------- */
 
@@ -32,7 +50,7 @@ public final class Rook {
 
     static {
         init();
-        selfTest();
+        assert selfTest() : "FancyRook: magic table mismatch";
     }
 
     public static void warmUp () {
@@ -52,6 +70,12 @@ public final class Rook {
         return attacks(positionIndex, occupiedBB);
     }
 
+    // Per-square magic data, for SliderAttacks' packed layout
+    static long relevantMask(int sq) { return MASK[sq]; }
+    static long magic(int sq) { return MAGIC[sq]; }
+    static int shift(int sq) { return SHIFT[sq]; }
+    static long slidingAttacks(int sq, long occ) { return rookSlidingFrom(sq, occ); }
+
     /** Build masks, magics, and the flat table. Call once at startup. */
     private static void init() {
         // 1) masks, shifts, offsets, total table size
@@ -69,7 +93,11 @@ public final class Rook {
         // 2) magics: either preset or search
         if (USE_PRESET_MAGICS) {
             System.arraycopy(ROOK_MAGIC_PRESET, 0, MAGIC, 0, 64);
-            fillTablesWithGivenMagics();
+            if (!fillTablesWithGivenMagics()) {
+                // a preset collides on this table layout: search fresh magics
+                java.util.Arrays.fill(TABLE, 0L);
+                buildMagicsAndFill();
+            }
         } else {
             buildMagicsAndFill();
         }
@@ -84,22 +112,28 @@ public final class Rook {
 
     /* ===================== builder ===================== */
 
-    private static void fillTablesWithGivenMagics() {
+    /**
+     * Fills TABLE from the preset magics. Returns false on a destructive collision (two occupancies with
+     * different attacks sharing a slot): attacks are never empty, so a non-zero slot is a written one.
+     */
+    private static boolean fillTablesWithGivenMagics() {
         for (int sq = 0; sq < 64; sq++) {
             long mask = MASK[sq];
-            int bits  = 64 - SHIFT[sq];
-            int size  = 1 << bits;
-
             int base = OFFSET[sq];
             // enumerate subsets of mask
             long subset = 0L;
             while (true) {
-                int index = (int) ((subset * MAGIC[sq]) >>> SHIFT[sq]);
-                TABLE[base + index] = rookSlidingFrom(sq, subset);
+                int index = base + (int) ((subset * MAGIC[sq]) >>> SHIFT[sq]);
+                long attacks = rookSlidingFrom(sq, subset);
+                if (TABLE[index] != 0L && TABLE[index] != attacks) {
+                    return false;
+                }
+                TABLE[index] = attacks;
                 if (subset == mask) break;
                 subset = (subset - mask) & mask;
             }
         }
+        return true;
     }
 
     private static void buildMagicsAndFill() {
@@ -220,7 +254,7 @@ public final class Rook {
 
     /* ===================== optional self-test ===================== */
 
-    private static void selfTest() {
+    private static boolean selfTest() {
         for (int sq = 0; sq < 64; sq++) {
             long mask = MASK[sq];
             int bits = 64 - SHIFT[sq];
@@ -231,12 +265,12 @@ public final class Rook {
                 long pre = TABLE[idx];
                 long ref = rookSlidingFrom(sq, subset);
                 if (pre != ref) {
-                    throw new AssertionError("FancyRook mismatch at sq=" + sq +
-                            " subset=" + Long.toUnsignedString(subset));
+                    return false;
                 }
                 if (subset == mask) break;
                 subset = (subset - mask) & mask;
             }
         }
+        return true;
     }
 }
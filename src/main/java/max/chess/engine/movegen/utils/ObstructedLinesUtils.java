@@ -1,10 +1,13 @@
 package max.chess.engine.movegen.utils;
 
-import max.chess.engine.common.Position;
-
 public final class ObstructedLinesUtils {
+    // OBSTRUCTED_BB[a][b]: squares strictly between a and b when they share a rank, file or diagonal, 0 otherwise
     public static final long[][] OBSTRUCTED_BB = new long[64][64];
 
+    // file / rank steps of the 8 ray directions
+    private static final int[] FILE_STEPS = { 0, 0, 1, -1, 1, -1, 1, -1 };
+    private static final int[] RANK_STEPS = { 1, -1, 0, 0, 1, 1, -1, -1 };
+
     static {
         fillObstructedBB();
     }
@@ -13,84 +16,23 @@ public final class ObstructedLinesUtils {
         // To init static block
     }
 
+    // Walks each ray once from every square: the squares passed so far are the obstruction to the next one
+    // (plain index arithmetic, this runs at class-init)
     private static void fillObstructedBB() {
-        for(int i = 0; i < 64; i++) {
-            for(int j = 0; j < 64; j++) {
-                if(i == j) {
-                    OBSTRUCTED_BB[i][j] = 0;
-                    continue;
-                }
-
-                Position position1 = Position.of(i);
-                Position position2 = Position.of(j);
-                long obstructedBB = 0;
-
-                if(position1.getX() == position2.getX()) {
-                    if (position1.getY() > position2.getY()) {
-                        // detecting if p1 is "above" p2
-                        Position currentPosition = Position.of(position1.getX(), position1.getY()-1);
-                        while(!currentPosition.equals(position2)) {
-                            obstructedBB |= 1L << currentPosition.getFlatIndex();
-                            currentPosition = Position.of(currentPosition.getX(), currentPosition.getY()-1);
-                        }
-                    } else if (position1.getY() < position2.getY()) {
-                        // detecting if p1 is "below" p2
-                        Position currentPosition = Position.of(position1.getX(), position1.getY()+1);
-                        while(!currentPosition.equals(position2)) {
-                            obstructedBB |= 1L << currentPosition.getFlatIndex();
-                            currentPosition = Position.of(currentPosition.getX(), currentPosition.getY()+1);
-                        }
-                    }
-                } else if(position1.getY() == position2.getY()) {
-                    if (position1.getX() > position2.getX()) {
-                        // Detecting if p1 is "right" to p2
-                        Position currentPosition = Position.of(position1.getX()-1, position1.getY());
-                        while(!currentPosition.equals(position2)) {
-                            obstructedBB |= 1L << currentPosition.getFlatIndex();
-                            currentPosition = Position.of(currentPosition.getX()-1, currentPosition.getY());
-                        }
-                    }  else if (position1.getX() < position2.getX()) {
-                        // detecting if p1 is "left" to p2
-                        Position currentPosition = Position.of(position1.getX()+1, position1.getY());
-                        while(!currentPosition.equals(position2)) {
-                            obstructedBB |= 1L << currentPosition.getFlatIndex();
-                            currentPosition = Position.of(currentPosition.getX()+1, currentPosition.getY());
-                        }
-                    }
-                } else if(Math.abs(position1.getX() - position2.getX()) == Math.abs(position1.getY() - position2.getY())) {
-                    // We are on a diagonal !
-                    if(position1.getX() - position2.getX() > 0 && position1.getY() - position2.getY() > 0) {
-                        // p1 is "up-right" compared to p2
-                        Position currentPosition = Position.of(position1.getX()-1, position1.getY()-1);
-                        while(!currentPosition.equals(position2)) {
-                            obstructedBB |= 1L << currentPosition.getFlatIndex();
-                            currentPosition = Position.of(currentPosition.getX()-1, currentPosition.getY()-1);
-                        }
-                    } else if(position1.getX() - position2.getX() > 0 && position1.getY() - position2.getY() < 0) {
-                        // p1 is "down-right" compared to p2
-                        Position currentPosition = Position.of(position1.getX()-1, position1.getY()+1);
-                        while(!currentPosition.equals(position2)) {
-                            obstructedBB |= 1L << currentPosition.getFlatIndex();
-                            currentPosition = Position.of(currentPosition.getX()-1, currentPosition.getY()+1);
-                        }
-                    } else if(position1.getX() - position2.getX() < 0 && position1.getY() - position2.getY() < 0) {
-                        // p1 is "down-left" compared to p2
-                        Position currentPosition = Position.of(position1.getX()+1, position1.getY()+1);
-                        while(!currentPosition.equals(position2)) {
-                            obstructedBB |= 1L << currentPosition.getFlatIndex();
-                            currentPosition = Position.of(currentPosition.getX()+1, currentPosition.getY()+1);
-                        }
-                    } else if(position1.getX() - position2.getX() < 0 && position1.getY() - position2.getY() > 0) {
-                        // p1 is "up-left" compared to p2
-                        Position currentPosition = Position.of(position1.getX()+1, position1.getY()-1);
-                        while(!currentPosition.equals(position2)) {
-                            obstructedBB |= 1L << currentPosition.getFlatIndex();
-                            currentPosition = Position.of(currentPosition.getX()+1, currentPosition.getY()-1);
-                        }
-                    }
+        for(int from = 0; from < 64; from++) {
+            final int fromFile = from & 7;
+            final int fromRank = from >>> 3;
+            for(int direction = 0; direction < 8; direction++) {
+                long betweenBB = 0;
+                int file = fromFile + FILE_STEPS[direction];
+                int rank = fromRank + RANK_STEPS[direction];
+                while(file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                    final int to = (rank << 3) | file;
+                    OBSTRUCTED_BB[from][to] = betweenBB;
+                    betweenBB |= 1L << to;
+                    file += FILE_STEPS[direction];
+                    rank += RANK_STEPS[direction];
                 }
-
-                OBSTRUCTED_BB[i][j] = obstructedBB;
             }
         }
     }
@@ -0,0 +1,121 @@
+package max.chess.engine.record;
+
+import max.chess.engine.movegen.Move;
+
+import java.util.Arrays;
+
+/**
+ * The moves of one game as packed ints ({@link Move#asBytes}), with an optional eval (centipawns, side to move),
+ * depth and think time per move, and the result. Meant to be reused: a self-play worker {@link #reset}s the same
+ * record between games, so recording allocates nothing once the arrays have grown to the longest game.
+ * <p>
+ * Annotations are all or nothing per record: the first {@link #add(int, int, int, int)} switches them on and
+ * moves added without one are annotated with zeros.
+ */
+public final class GameRecord {
+    public enum Result {
+        UNKNOWN("*"), WHITE_WINS("1-0"), BLACK_WINS("0-1"), DRAW("1/2-1/2");
+
+        private final String pgn;
+
+        Result(String pgn) {
+            this.pgn = pgn;
+        }
+
+        public String pgn() {
+            return pgn;
+        }
+    }
+
+    static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private String startFen; // null for the standard start position
+    private Result result = Result.UNKNOWN;
+    private boolean annotated;
+    private int size;
+    private int[] moves = new int[128];
+    private short[] evals = new short[128];
+    private byte[] depths = new byte[128];
+    private int[] timesMs = new int[128];
+
+    public GameRecord() {}
+
+    public GameRecord(String startFen) {
+        this.startFen = startFen;
+    }
+
+    /** Empties the record for a new game from {@code startFen} (null for the standard start position). */
+    public GameRecord reset(String startFen) {
+        this.startFen = startFen;
+        this.result = Result.UNKNOWN;
+        this.annotated = false;
+        this.size = 0;
+        return this;
+    }
+
+    public GameRecord add(int move) {
+        ensureCapacity(size + 1);
+        moves[size] = move;
+        evals[size] = 0;
+        depths[size] = 0;
+        timesMs[size] = 0;
+        size++;
+        return this;
+    }
+
+    /** A move with its search eval (clamped to a short), depth (clamped to 0..127) and think time. */
+    public GameRecord add(int move, int eval, int depth, int timeMs) {
+        add(move);
+        annotated = true;
+        evals[size - 1] = (short) Math.clamp(eval, Short.MIN_VALUE, Short.MAX_VALUE);
+        depths[size - 1] = (byte) Math.clamp(depth, 0, Byte.MAX_VALUE);
+        timesMs[size - 1] = Math.max(0, timeMs);
+        return this;
+    }
+
+    public GameRecord result(Result result) {
+        this.result = result;
+        return this;
+    }
+
+    public String startFen() { return startFen; }
+    public Result result() { return result; }
+    public boolean annotated() { return annotated; }
+    public int size() { return size; }
+    public int move(int ply) { return moves[ply]; }
+    public int eval(int ply) { return evals[ply]; }
+    public int depth(int ply) { return depths[ply]; }
+    public int timeMs(int ply) { return timesMs[ply]; }
+
+    /** Copy of the moves played. */
+    public int[] moves() {
+        return Arrays.copyOf(moves, size);
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= moves.length) return;
+        final int cap = Math.max(n, moves.length * 2);
+        moves = Arrays.copyOf(moves, cap);
+        evals = Arrays.copyOf(evals, cap);
+        depths = Arrays.copyOf(depths, cap);
+        timesMs = Arrays.copyOf(timesMs, cap);
+    }
+
+    // Two-byte form of a move in the log: from << 6 | to, and the promotion piece type in bits 12..14. The piece
+    // type and castle / en passant flags are read back from the position (see MoveIOUtils.resolveMove).
+    static short compact(int move) {
+        return (short) (Move.getPromotion(move) << 12 | Move.getStartPosition(move) << 6 | Move.getEndPosition(move));
+    }
+
+    static int compactFrom(short compact) {
+        return (compact >>> 6) & 63;
+    }
+
+    static int compactTo(short compact) {
+        return compact & 63;
+    }
+
+    static byte compactPromotion(short compact) {
+        return (byte) ((compact >>> 12) & 7); // PieceUtils.NONE when 0
+    }
+}
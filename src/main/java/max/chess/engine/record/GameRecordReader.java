@@ -0,0 +1,101 @@
+package max.chess.engine.record;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.movegen.MoveGenerator;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.engine.utils.notations.MoveIOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads back a game log written by {@link GameRecordWriter}, one game at a time into a reused {@link GameRecord}.
+ * Each game is replayed from its start position to turn the two-byte moves back into packed ints, which also
+ * checks them: an illegal move fails the read. A frame cut short (a writer that died mid-flush) ends the log.
+ */
+public final class GameRecordReader implements Closeable {
+    private static final GameRecord.Result[] RESULTS = GameRecord.Result.values();
+
+    private final DataInputStream in;
+    private final Path path;
+    private byte[] frame = new byte[4096];
+
+    public GameRecordReader(Path path) throws IOException {
+        this.path = path;
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        try {
+            if (in.readInt() != GameRecordWriter.MAGIC || in.readShort() != GameRecordWriter.VERSION) {
+                throw new IOException("Not a game log: " + path);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e instanceof EOFException ? new IOException("Not a game log: " + path, e) : e;
+        }
+    }
+
+    /** @return false at the end of the log */
+    public boolean next(GameRecord into) throws IOException {
+        final int payload;
+        try {
+            payload = in.readInt();
+            if (payload < 4) throw corrupt(null);
+            if (frame.length < payload) frame = new byte[Math.max(payload, frame.length * 2)];
+            in.readFully(frame, 0, payload);
+        } catch (EOFException e) {
+            return false;
+        }
+
+        final ByteBuffer f = ByteBuffer.wrap(frame, 0, payload);
+        try {
+            final int flags = f.get() & 0xFF;
+            final int result = f.get() & 0xFF;
+            if (result >= RESULTS.length) throw corrupt(null);
+            String fen = null;
+            if ((flags & GameRecordWriter.FLAG_START_FEN) != 0) {
+                final int len = f.getShort() & 0xFFFF;
+                fen = new String(frame, f.position(), len, StandardCharsets.US_ASCII);
+                f.position(f.position() + len);
+            }
+            final int plies = f.getShort() & 0xFFFF;
+            final boolean annotated = (flags & GameRecordWriter.FLAG_ANNOTATED) != 0;
+            final int movesAt = f.position();
+            final int evalsAt = movesAt + plies * 2, depthsAt = evalsAt + plies * 2, timesAt = depthsAt + plies;
+            if (payload != (annotated ? timesAt + plies * 4 : evalsAt)) throw corrupt(null);
+
+            into.reset(fen).result(RESULTS[result]);
+            final Game game = FENUtils.getBoardFrom(fen == null ? GameRecord.START_FEN : fen);
+            for (int i = 0; i < plies; i++) {
+                final short c = f.getShort(movesAt + i * 2);
+                final int move = MoveIOUtils.resolveMove(game, GameRecord.compactFrom(c), GameRecord.compactTo(c),
+                        GameRecord.compactPromotion(c));
+                if (move == 0 || !MoveGenerator.isLegal(game, move)) throw corrupt("illegal move at ply " + (i + 1));
+                if (annotated) {
+                    into.add(move, f.getShort(evalsAt + i * 2), f.get(depthsAt + i), f.getInt(timesAt + i * 4));
+                } else {
+                    into.add(move);
+                }
+                game.playMove(move);
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw corrupt(null);
+        }
+        return true;
+    }
+
+    private IOException corrupt(String detail) {
+        return new IOException("Corrupt game log: " + path + (detail == null ? "" : ", " + detail));
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
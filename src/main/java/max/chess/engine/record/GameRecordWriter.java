@@ -0,0 +1,137 @@
+package max.chess.engine.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends {@link GameRecord}s to a binary game log, shared by any number of threads.
+ * <p>
+ * The log is a header ({@link #MAGIC}, {@link #VERSION}) followed by one frame per game: its payload length, then
+ * flags, result, the start FEN when it is not the standard one, the ply count and the moves two bytes each
+ * ({@link GameRecord#compact}), then for annotated games the evals, depths and times, column by column. Big-endian
+ * throughout.
+ * <p>
+ * {@link #write} encodes the frame straight into a large buffer under a lock (a few hundred bytes of puts), and the
+ * buffer goes to the file only when full, on {@link #flush} or on {@link #close}: parallel self-play workers contend
+ * for a memory copy, not for a system call per game. An existing log is appended to, after cutting off a frame
+ * torn by a writer that died mid-flush: the games appended after it could not be read back otherwise.
+ */
+public final class GameRecordWriter implements Closeable {
+    static final int MAGIC = 0x4D584752; // "MXGR"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 6;
+
+    static final int FLAG_ANNOTATED = 1;
+    static final int FLAG_START_FEN = 2;
+
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private long games;
+
+    public GameRecordWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                buffer.putInt(MAGIC).putShort(VERSION);
+            } else {
+                checkHeader(channel, path);
+                final long end = endOfLastFrame(channel);
+                channel.truncate(end);
+                channel.position(end);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Queues one game; thread-safe. */
+    public void write(GameRecord record) throws IOException {
+        final byte[] fen = record.startFen() == null ? null : record.startFen().getBytes(StandardCharsets.US_ASCII);
+        final int plies = Math.min(record.size(), 0xFFFF);
+        final int payload = 2 + (fen == null ? 0 : 2 + fen.length) + 2 + plies * 2
+                + (record.annotated() ? plies * (2 + 1 + 4) : 0);
+
+        synchronized (buffer) {
+            if (buffer.remaining() < 4 + payload) drain();
+            final ByteBuffer out = buffer.remaining() >= 4 + payload ? buffer : ByteBuffer.allocate(4 + payload);
+
+            out.putInt(payload);
+            out.put((byte) ((record.annotated() ? FLAG_ANNOTATED : 0) | (fen == null ? 0 : FLAG_START_FEN)));
+            out.put((byte) record.result().ordinal());
+            if (fen != null) out.putShort((short) fen.length).put(fen);
+            out.putShort((short) plies);
+            for (int i = 0; i < plies; i++) out.putShort(GameRecord.compact(record.move(i)));
+            if (record.annotated()) {
+                for (int i = 0; i < plies; i++) out.putShort((short) record.eval(i));
+                for (int i = 0; i < plies; i++) out.put((byte) record.depth(i));
+                for (int i = 0; i < plies; i++) out.putInt(record.timeMs(i));
+            }
+
+            if (out != buffer) writeFully(out.flip()); // a game longer than the whole buffer
+            games++;
+        }
+    }
+
+    /** Games written since this writer was opened. */
+    public long games() {
+        synchronized (buffer) {
+            return games;
+        }
+    }
+
+    public void flush() throws IOException {
+        synchronized (buffer) {
+            drain();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        writeFully(buffer.flip());
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) channel.write(src);
+    }
+
+    // Offset just past the last frame that is complete on disk
+    private static long endOfLastFrame(FileChannel channel) throws IOException {
+        final long size = channel.size();
+        final ByteBuffer length = ByteBuffer.allocate(4);
+        long pos = HEADER_BYTES;
+        while (pos + 4 <= size) {
+            length.clear();
+            while (length.hasRemaining() && channel.read(length, pos + length.position()) > 0) { }
+            final int payload = length.flip().getInt();
+            if (payload < 4 || pos + 4 + payload > size) break;
+            pos += 4 + payload;
+        }
+        return pos;
+    }
+
+    private static void checkHeader(FileChannel channel, Path path) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) { }
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getShort() != VERSION) {
+            throw new IOException("Not a game log: " + path);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package max.chess.engine.search;
+
+import max.chess.engine.search.evaluator.GameValues;
+import max.chess.engine.utils.notations.MoveIOUtils;
+
+import java.util.function.Consumer;
+
+/**
+ * Builds UCI "info" lines for the running search and throttles them.
+ *
+ * - Depth lines are emitted at most every {@link #MIN_INTERVAL_NS}; a throttled line is kept
+ *   and flushed by {@link #finish} so the final depth always reaches the GUI.
+ * - currmove lines only start after {@link #CURRMOVE_AFTER_NS} (short searches stay quiet).
+ * - hashfull and nps (and tbhits when probing in search) are attached to every depth line.
+ *
+ * One instance lives in the SearchContext and its StringBuilder is reused across searches,
+ * so the search thread never goes through String.format.
+ */
+final class InfoReporter {
+    static final long MIN_INTERVAL_NS = 100_000_000L;   // 100 ms
+    static final long CURRMOVE_AFTER_NS = 1_000_000_000L; // 1 s
+
+    private final StringBuilder sb = new StringBuilder(512);
+
+    private long startNs;
+    private long lastEmitNs;
+    private long lastCurrMoveNs;
+
+    // last depth line that was throttled (to be flushed on finish)
+    private String pending;
+
+    void start(long startNs) {
+        this.startNs = startNs;
+        this.lastEmitNs = Long.MIN_VALUE / 2;
+        this.lastCurrMoveNs = startNs;
+        this.pending = null;
+    }
+
+    /** Report a completed iteration. */
+    void depthDone(SearchContext ctx, int depth, SearchResult r, Consumer<String> out) {
+        final long now = System.nanoTime();
+        String line = formatDepth(ctx, depth, r, now);
+        if (now - lastEmitNs >= MIN_INTERVAL_NS) {
+            out.accept(line);
+            lastEmitNs = now;
+            pending = null;
+        } else {
+            pending = line;
+        }
+    }
+
+    /** Report the root move currently being searched (throttled). */
+    void currMove(int depth, int move, int moveNumber, Consumer<String> out) {
+        final long now = System.nanoTime();
+        if (now - startNs < CURRMOVE_AFTER_NS || now - lastCurrMoveNs < MIN_INTERVAL_NS) return;
+        lastCurrMoveNs = now;
+        sb.setLength(0);
+        sb.append("info depth ").append(depth).append(" currmove ");
+        MoveIOUtils.appendUci(sb, move).append(" currmovenumber ").append(moveNumber);
+        out.accept(sb.toString());
+    }
+
+    /** Flush the last throttled depth line, if any. */
+    void finish(Consumer<String> out) {
+        if (pending != null) {
+            out.accept(pending);
+            pending = null;
+        }
+    }
+
+    private String formatDepth(SearchContext ctx, int depth, SearchResult r, long now) {
+        final long ms = Math.max(1, (now - startNs) / 1_000_000L);
+        sb.setLength(0);
+        sb.append("info depth ").append(depth);
+        appendScore(sb, r.score());
+        sb.append(" nodes ").append(ctx.totalNodes)
+          .append(" nps ").append(ctx.totalNodes * 1000L / ms)
+          .append(" time ").append(ms);
+        if (ctx.tt != null) sb.append(" hashfull ").append(ctx.tt.hashfull());
+        if (ctx.tbProbeInSearch) sb.append(" tbhits ").append(ctx.tbHits);
+        int[] pv = r.principalVariation();
+        if (pv != null && pv.length > 0) {
+            sb.append(" pv");
+            for (int m : pv) MoveIOUtils.appendUci(sb.append(' '), m);
+        }
+        return sb.toString();
+    }
+
+    private static void appendScore(StringBuilder sb, int score) {
+        final int mateBound = GameValues.CHECKMATE_VALUE - SearchConstants.MAX_PLY;
+        if (score >= mateBound) {
+            sb.append(" score mate ").append((GameValues.CHECKMATE_VALUE - score + 1) / 2);
+        } else if (score <= -mateBound) {
+            sb.append(" score mate ").append(-(GameValues.CHECKMATE_VALUE + score) / 2);
+        } else {
+            sb.append(" score cp ").append(score);
+        }
+    }
+}
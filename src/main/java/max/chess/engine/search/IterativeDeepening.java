@@ -17,6 +17,7 @@ final class IterativeDeepening {
         SearchResult last = null;
         int prevScore = 0;
         int asp = ctx.cfg.aspirationCp;
+        ctx.reporter.start(start);
 
         for (ctx.currentDepth = 1; ctx.currentDepth <= maxDepth; ctx.currentDepth++) {
             if (TimeControl.aborted(stop, start, budgetNs)) break;
@@ -36,7 +37,9 @@ final class IterativeDeepening {
             if (r == null) break;
             prevScore = r.score();
             last = r;
+            ctx.reporter.depthDone(ctx, ctx.currentDepth, r, out);
         }
+        ctx.reporter.finish(out);
 
         if (last == null) {
             // Fallback: return first legal if any
@@ -1,13 +1,8 @@
 package max.chess.engine.search;
 
 import max.chess.engine.game.Game;
-import max.chess.engine.game.board.Board;
 import max.chess.engine.movegen.Move;
-import max.chess.engine.movegen.pieces.Bishop;
-import max.chess.engine.movegen.pieces.King;
-import max.chess.engine.movegen.pieces.Knight;
-import max.chess.engine.movegen.pieces.Rook;
-import max.chess.engine.movegen.utils.OrthogonalMoveUtils;
+import max.chess.engine.movegen.MoveGenerator;
 import max.chess.engine.search.evaluator.PieceValues;
 import max.chess.engine.utils.BitUtils;
 import max.chess.engine.utils.ColorUtils;
@@ -130,243 +125,9 @@ final class MoveOrdering {
         return ub;
     }
 
-    /** SEE swap evaluation on the target square. Positive means winning capture sequence. */
-    static int seeSwap(Game g, int move) {
-        final Board b = g.board();
-        final boolean whiteSTM = ColorUtils.isWhite(g.currentPlayer);
-        final int from = Move.getStartPosition(move);
-        final int to   = Move.getEndPosition(move);
-        final byte promo = Move.getPromotion(move);
-
-        final int[] VAL = {
-                0,
-                PieceValues.PAWN_VALUE,
-                PieceValues.KNIGHT_VALUE,
-                PieceValues.BISHOP_VALUE,
-                PieceValues.ROOK_VALUE,
-                PieceValues.QUEEN_VALUE,
-                PieceValues.KING_VALUE
-        };
-
-        long WP = b.pawnBB   & b.whiteBB, BP = b.pawnBB   & b.blackBB;
-        long WN = b.knightBB & b.whiteBB, BN = b.knightBB & b.blackBB;
-        long WB = b.bishopBB & b.whiteBB, BB = b.bishopBB & b.blackBB;
-        long WR = b.rookBB   & b.whiteBB, BR = b.rookBB   & b.blackBB;
-        long WQ = b.queenBB  & b.whiteBB, BQ = b.queenBB  & b.blackBB;
-        long WK = b.kingBB   & b.whiteBB, BK = b.kingBB   & b.blackBB;
-
-        long occ = b.gameBB;
-
-        // Remove victim from sets immediately
-        int capturedType;
-        if (Move.isEnPassant(move)) {
-            int epVictimSq = whiteSTM ? (to - 8) : (to + 8);
-            capturedType = PieceUtils.PAWN;
-            if (whiteSTM) BP &= ~(1L << epVictimSq); else WP &= ~(1L << epVictimSq);
-            occ &= ~(1L << epVictimSq);
-        } else {
-            capturedType = b.getPieceTypeAt(to);
-            if (capturedType != PieceUtils.NONE) {
-                long bitTo = 1L << to;
-                if (whiteSTM) {
-                    switch (capturedType) {
-                        case PieceUtils.PAWN  -> BP &= ~bitTo;
-                        case PieceUtils.KNIGHT-> BN &= ~bitTo;
-                        case PieceUtils.BISHOP-> BB &= ~bitTo;
-                        case PieceUtils.ROOK  -> BR &= ~bitTo;
-                        case PieceUtils.QUEEN -> BQ &= ~bitTo;
-                        case PieceUtils.KING  -> BK &= ~bitTo;
-                    }
-                } else {
-                    switch (capturedType) {
-                        case PieceUtils.PAWN  -> WP &= ~bitTo;
-                        case PieceUtils.KNIGHT-> WN &= ~bitTo;
-                        case PieceUtils.BISHOP-> WB &= ~bitTo;
-                        case PieceUtils.ROOK  -> WR &= ~bitTo;
-                        case PieceUtils.QUEEN -> WQ &= ~bitTo;
-                        case PieceUtils.KING  -> WK &= ~bitTo;
-                    }
-                }
-            }
-        }
-
-        // Remove attacker from 'from'
-        {
-            long bitFrom = 1L << from;
-            int attType = b.getPieceTypeAt(from);
-            if (whiteSTM) {
-                switch (attType) {
-                    case PieceUtils.PAWN  -> WP &= ~bitFrom;
-                    case PieceUtils.KNIGHT-> WN &= ~bitFrom;
-                    case PieceUtils.BISHOP-> WB &= ~bitFrom;
-                    case PieceUtils.ROOK  -> WR &= ~bitFrom;
-                    case PieceUtils.QUEEN -> WQ &= ~bitFrom;
-                    case PieceUtils.KING  -> WK &= ~bitFrom;
-                }
-            } else {
-                switch (attType) {
-                    case PieceUtils.PAWN  -> BP &= ~bitFrom;
-                    case PieceUtils.KNIGHT-> BN &= ~bitFrom;
-                    case PieceUtils.BISHOP-> BB &= ~bitFrom;
-                    case PieceUtils.ROOK  -> BR &= ~bitFrom;
-                    case PieceUtils.QUEEN -> BQ &= ~bitFrom;
-                    case PieceUtils.KING  -> BK &= ~bitFrom;
-                }
-            }
-            occ &= ~bitFrom;
-        }
-
-        int promoDelta = (promo != PieceUtils.NONE) ? (VAL[promo] - VAL[PieceUtils.PAWN]) : 0;
-        final int[] gain = new int[32];
-        int d = 0;
-        gain[0] = VAL[capturedType] + promoDelta;
-
-        int curType  = (promo != PieceUtils.NONE) ? promo : b.getPieceTypeAt(from);
-        boolean curWhite = whiteSTM;
-
-        // Place mover on 'to'
-        {
-            long bitTo = 1L << to;
-            if (curWhite) {
-                switch (curType) {
-                    case PieceUtils.PAWN  -> WP |= bitTo;
-                    case PieceUtils.KNIGHT-> WN |= bitTo;
-                    case PieceUtils.BISHOP-> WB |= bitTo;
-                    case PieceUtils.ROOK  -> WR |= bitTo;
-                    case PieceUtils.QUEEN -> WQ |= bitTo;
-                    case PieceUtils.KING  -> WK |= bitTo;
-                }
-            } else {
-                switch (curType) {
-                    case PieceUtils.PAWN  -> BP |= bitTo;
-                    case PieceUtils.KNIGHT-> BN |= bitTo;
-                    case PieceUtils.BISHOP-> BB |= bitTo;
-                    case PieceUtils.ROOK  -> BR |= bitTo;
-                    case PieceUtils.QUEEN -> BQ |= bitTo;
-                    case PieceUtils.KING  -> BK |= bitTo;
-                }
-            }
-            occ |= bitTo;
-        }
-
-        boolean sideWhite = !whiteSTM;
-
-        while (true) {
-            long attP = pawnAttackerMaskTo(to, sideWhite) & (sideWhite ? WP : BP);
-            long attN = Knight.getAttackBB(to) & (sideWhite ? WN : BN);
-            long attB = Bishop.getAttackBB(to, occ) & (sideWhite ? WB : BB);
-            long attR = Rook.getAttackBB(to, occ)   & (sideWhite ? WR : BR);
-            long attQ = (attB | attR) & (sideWhite ? WQ : BQ);
-            long attK = King.getAttackBB(to) & (sideWhite ? WK : BK);
-
-            long attackers = attP | attN | attB | attR | attQ | attK;
-            if (attackers == 0) break;
-
-            int takeType; long fromBB;
-            if      (attP != 0) { fromBB = attP & -attP; takeType = PieceUtils.PAWN; }
-            else if (attN != 0) { fromBB = attN & -attN; takeType = PieceUtils.KNIGHT; }
-            else if (attB != 0) { fromBB = attB & -attB; takeType = PieceUtils.BISHOP; }
-            else if (attR != 0) { fromBB = attR & -attR; takeType = PieceUtils.ROOK; }
-            else if (attQ != 0) { fromBB = attQ & -attQ; takeType = PieceUtils.QUEEN; }
-            else                { fromBB = attK & -attK; takeType = PieceUtils.KING; }
-
-            int fromSq = Long.numberOfTrailingZeros(fromBB);
-            gain[++d] = VAL[takeType] - gain[d - 1];
-
-            long bitFrom = 1L << fromSq, bitTo = 1L << to;
-
-            // remove current occupant from 'to'
-            if (curWhite) {
-                switch (curType) {
-                    case PieceUtils.PAWN  -> WP &= ~bitTo;
-                    case PieceUtils.KNIGHT-> WN &= ~bitTo;
-                    case PieceUtils.BISHOP-> WB &= ~bitTo;
-                    case PieceUtils.ROOK  -> WR &= ~bitTo;
-                    case PieceUtils.QUEEN -> WQ &= ~bitTo;
-                    case PieceUtils.KING  -> WK &= ~bitTo;
-                }
-            } else {
-                switch (curType) {
-                    case PieceUtils.PAWN  -> BP &= ~bitTo;
-                    case PieceUtils.KNIGHT-> BN &= ~bitTo;
-                    case PieceUtils.BISHOP-> BB &= ~bitTo;
-                    case PieceUtils.ROOK  -> BR &= ~bitTo;
-                    case PieceUtils.QUEEN -> BQ &= ~bitTo;
-                    case PieceUtils.KING  -> BK &= ~bitTo;
-                }
-            }
-
-            // move new capturer onto 'to'
-            if (sideWhite) {
-                switch (takeType) {
-                    case PieceUtils.PAWN  -> { WP &= ~bitFrom; WP |= bitTo; }
-                    case PieceUtils.KNIGHT-> { WN &= ~bitFrom; WN |= bitTo; }
-                    case PieceUtils.BISHOP-> { WB &= ~bitFrom; WB |= bitTo; }
-                    case PieceUtils.ROOK  -> { WR &= ~bitFrom; WR |= bitTo; }
-                    case PieceUtils.QUEEN -> { WQ &= ~bitFrom; WQ |= bitTo; }
-                    case PieceUtils.KING  -> { WK &= ~bitFrom; WK |= bitTo; }
-                }
-            } else {
-                switch (takeType) {
-                    case PieceUtils.PAWN  -> { BP &= ~bitFrom; BP |= bitTo; }
-                    case PieceUtils.KNIGHT-> { BN &= ~bitFrom; BN |= bitTo; }
-                    case PieceUtils.BISHOP-> { BB &= ~bitFrom; BB |= bitTo; }
-                    case PieceUtils.ROOK  -> { BR &= ~bitFrom; BR |= bitTo; }
-                    case PieceUtils.QUEEN -> { BQ &= ~bitFrom; BQ |= bitTo; }
-                    case PieceUtils.KING  -> { BK &= ~bitFrom; BK |= bitTo; }
-                }
-            }
-
-            occ &= ~bitFrom;
-
-            curType = takeType;
-            curWhite = sideWhite;
-            sideWhite = !sideWhite;
-        }
-
-        while (--d >= 0) gain[d] = -Math.max(-gain[d], gain[d + 1]);
-        return gain[0];
-    }
-
-    /** Fast check detection after applying a move hypothetically. */
+    /** Direct or discovered check, from the check squares cached on the board. */
     static boolean givesCheckFast(Game g, int move) {
-        final Board b = g.board();
-        final boolean white = ColorUtils.isWhite(g.currentPlayer);
-        final int from = Move.getStartPosition(move);
-        final int to   = Move.getEndPosition(move);
-        final int usPiece = b.getPieceTypeAt(from);
-        final byte promo = Move.getPromotion(move);
-
-        long oppKBB = b.kingBB & (white ? b.blackBB : b.whiteBB);
-        if (oppKBB == 0) return false;
-        final int oppKingSq = Long.numberOfTrailingZeros(oppKBB);
-
-        long occ = b.gameBB;
-        occ &= ~(1L << from);
-        occ |=  (1L << to);
-        if (Move.isEnPassant(move)) {
-            int epVict = white ? (to - 8) : (to + 8);
-            occ &= ~(1L << epVict);
-        }
-
-        int pt = (promo != PieceUtils.NONE) ? promo : usPiece;
-
-        long att;
-        switch (pt) {
-            case PieceUtils.PAWN -> {
-                long bb = 1L << to;
-                att = white
-                        ? ((bb << 7) & ~OrthogonalMoveUtils.FILES[7]) | ((bb << 9) & ~OrthogonalMoveUtils.FILES[0])
-                        : ((bb >>> 7) & ~OrthogonalMoveUtils.FILES[0]) | ((bb >>> 9) & ~OrthogonalMoveUtils.FILES[7]);
-            }
-            case PieceUtils.KNIGHT -> att = Knight.getAttackBB(to);
-            case PieceUtils.BISHOP -> att = Bishop.getAttackBB(to, occ);
-            case PieceUtils.ROOK   -> att = Rook.getAttackBB(to, occ);
-            case PieceUtils.QUEEN  -> att = Bishop.getAttackBB(to, occ) | Rook.getAttackBB(to, occ);
-            case PieceUtils.KING   -> att = King.getAttackBB(to);
-            default -> att = 0L;
-        }
-        return ((att >>> oppKingSq) & 1L) != 0;
+        return MoveGenerator.givesCheck(g, move);
     }
 
     /** Just the promotion type helper to keep call sites readable. */
@@ -377,19 +138,15 @@ final class MoveOrdering {
      * Needs context for TT access and preallocated buffers.
      */
     static int sanitizeBestMove(Game g, int bestMove, SearchContext ctx) {
-        final int[] buf = ctx.moveBuf[0];
-        final int n = g.getLegalMoves(buf);
-        if (n == 0) return 0;
-
-        for (int i = 0; i < n; i++) if (buf[i] == bestMove) return bestMove;
+        if (MoveGenerator.isLegal(g, bestMove)) return bestMove;
 
         if (ctx.tt != null) {
             int ttMv = ctx.tt.peekMove(g.zobristKey());
-            if (ttMv != 0) {
-                for (int i = 0; i < n; i++) if (buf[i] == ttMv) return ttMv;
-            }
+            if (MoveGenerator.isLegal(g, ttMv)) return ttMv;
         }
-        return buf[0];
+        final int[] buf = ctx.moveBuf[0];
+        final int n = g.getLegalMoves(buf);
+        return n == 0 ? 0 : buf[0];
     }
 
     /* =========================
@@ -436,20 +193,6 @@ final class MoveOrdering {
         return ((opp >>> to) & 1L) != 0;
     }
 
-    // Mask of source squares of pawns that could attack 'sq' for the given color.
-    private static long pawnAttackerMaskTo(int sq, boolean white) {
-        long bb = 1L << sq;
-        if (white) {
-            long s1 = (bb >>> 7) & ~OrthogonalMoveUtils.FILES[0];
-            long s2 = (bb >>> 9) & ~OrthogonalMoveUtils.FILES[7];
-            return s1 | s2;
-        } else {
-            long s1 = (bb << 7) & ~OrthogonalMoveUtils.FILES[7];
-            long s2 = (bb << 9) & ~OrthogonalMoveUtils.FILES[0];
-            return s1 | s2;
-        }
-    }
-
     private static int scoreQuietWithCMH(Game g, int move, int ply, int[][] killer, int[][][] history,
                                          SearchContext ctx, int prevMove) {
         // Killer moves first
@@ -3,10 +3,13 @@ package max.chess.engine.search;
 import max.chess.engine.game.Game;
 import max.chess.engine.movegen.Move;
 import max.chess.engine.search.transpositiontable.TranspositionTable;
+import max.chess.engine.tb.TBManager;
 import max.chess.engine.tb.TBUtils;
 import max.chess.engine.utils.ColorUtils;
 
 final class Negamax {
+    // TT depth added to TB hits so shallower re-searches don't overwrite them
+    private static final int TB_TT_DEPTH_BONUS = 6;
 
     static int search(Game game, SearchContext ctx, int depth, int ply,
                       int alpha, int beta,
@@ -24,17 +27,29 @@ final class Negamax {
                       boolean inNullMove, boolean isPV) {
         if (TimeControl.aborted(stop, start, budgetNs)) return Integer.MIN_VALUE;
 
-        int wdlBias = 0;
-        if (ctx.tbProbeInSearch && ctx.tb != null) {
-            var w = ctx.tb.probeWDL(game);
-            if (w.isPresent()) wdlBias = TBUtils.scoreFromWDL(w.getAsInt());
-        }
-
         final long z0 = game.zobristKey();
-        final int alphaOrig = alpha;
         final long key = game.zobristKey();
-        // Remember this node’s key for repetition checks on the line
-        if (ply < ctx.keyStack.length) ctx.keyStack[ply] = key;
+        // Remember this node’s key for repetition checks on the line; a repetition ends the node before the TT,
+        // whose entries know nothing of the path
+        if (ply < ctx.keyStack.length) {
+            ctx.keyStack[ply] = key;
+            ctx.pliesFromNull[ply] = inNullMove ? 0 : ctx.pliesFromNull[ply - 1] + 1;
+            if (Repetition.isDraw(game, ctx, ply)) {
+                ctx.pvLen[ply] = 0;
+                return 0;
+            }
+            // A move of ours gets back to an earlier position: we can hold at least the draw
+            if (ctx.cfg.useUpcomingRepetition && alpha < 0 && Repetition.hasUpcomingCycle(game, ctx, ply)) {
+                ctx.cycleHits++;
+                alpha = 0;
+                if (alpha >= beta) {
+                    ctx.cycleCut++;
+                    ctx.pvLen[ply] = 0;
+                    return alpha;
+                }
+            }
+        }
+        final int alphaOrig = alpha;
         boolean cutOccurred = false;
 
         max.chess.engine.search.transpositiontable.TranspositionTable.Hit hit =
@@ -67,6 +82,27 @@ final class Negamax {
             return 0;
         }
 
+        // Syzygy WDL: only right after a capture or pawn move (rule50 == 0, the tables know nothing of the
+        // clock), and at the TB piece limit only with enough depth left. A hit ends the node.
+        if (ctx.tbProbeInSearch && ctx.tb != null && ply > 0 && game.halfMoveClock == 0) {
+            final int pieces = Long.bitCount(game.board().gameBB);
+            final int tbPieces = ctx.tb.maxPieces();
+            if (pieces <= tbPieces && (pieces < tbPieces || depth >= ctx.tb.probeDepth())) {
+                final int wdl = ctx.tb.probeWDLCached(game);
+                if (wdl != TBManager.WDL_NONE) {
+                    ctx.tbHits++;
+                    final int score = TBUtils.scoreFromWDL(wdl, StaticEvalCache.get(game, ctx));
+                    // no search below can improve on it: store deeper than this node
+                    if (ctx.tt != null) {
+                        ctx.tt.store(key, 0, Math.min(depth + TB_TT_DEPTH_BONUS, SearchConstants.MAX_PLY - 1),
+                                score, TranspositionTable.TT_EXACT, ply);
+                    }
+                    if (ply < ctx.pvLen.length) ctx.pvLen[ply] = 0;
+                    return score;
+                }
+            }
+        }
+
 
         // LMR/null-move can push depth below zero; treat all <=0 as quiescence.
         if (depth <= 0) {
@@ -76,8 +112,6 @@ final class Negamax {
 
         // Cheap stand-pat; if already >= beta, null search likely to cut
         int standPat = StaticEvalCache.get(game, ctx);
-        // wdlBias will be 0 if syzygy knowledge is disabled
-        standPat += wdlBias;
 
         // Reverse Futility Pruning (very conservative)
         // Non-PV, not in check, shallow depth only, and far from mate bounds.
@@ -189,7 +223,7 @@ final class Negamax {
         // Move gen and ordering (buffer ply is clamped to available stack depth)
         final int bufPly = (ply < ctx.moveBuf.length) ? ply : (ctx.moveBuf.length - 1);
         final int[] moves = ctx.moveBuf[bufPly];
-        int moveCount = game.getLegalMoves(moves);
+        int moveCount = game.getLegalMoves(moves, true); // draws are handled above
 
         if (moveCount > moves.length) moveCount = moves.length;
 
@@ -221,7 +255,7 @@ final class Negamax {
                     victimVal = max.chess.engine.search.evaluator.PieceValues.pieceTypeToValue(victimType);
                 }
                 if (victimVal < ctx.cfg.probCutVictimMin) continue;
-                if (ctx.cfg.probCutRequireSEEPositive && MoveOrdering.seeSwap(game, m) < 0) continue;
+                if (ctx.cfg.probCutRequireSEEPositive && !StaticExchange.seeGE(game, m, 0)) continue;
 
                 // Allow checking captures for ProbCut unless king-danger is flagged.
 //                if (highDanger && MoveOrdering.givesCheckFast(game, m)) continue;
@@ -291,8 +325,6 @@ final class Negamax {
         int bestScore = -SearchConstants.INF;
         int bestMove = 0;
 
-        boolean repLineUsed = false;
-
         for (int i = 0; i < moveCount; i++) {
             int mv = moves[i];
 
@@ -479,90 +511,6 @@ final class Negamax {
             if (ply + 1 < ctx.prevMove.length) ctx.prevMove[ply + 1] = mv;
 
             int score;
-
-            // --- Early repetition detection on the line (third -> exact 0, second -> draw with contempt) ---
-            if (ply + 1 < ctx.keyStack.length) {
-                final long childKey = game.zobristKey();
-                int matches = 0;
-
-                // Scan same-side-to-move positions only: p = ply-1, ply-3, ...
-                for (int p = ply - 1, scanned = 0;
-                     p >= 0 && scanned < ctx.cfg.repScanMaxPlies;
-                     p -= 2, scanned++) {
-                    if (ctx.keyStack[p] == childKey) {
-                        matches++;
-                        if (matches >= 2) break;
-                    }
-                }
-
-                // --- TRUE threefold on the line ---
-                if (matches >= 2) {
-                    repLineUsed = true;
-                    score = 0;       // exact draw on the line
-                    game.undoMove(undo);
-
-                    if (score > bestScore) {
-                        bestScore = score;
-                        bestMove  = mv;
-                        if (ply < ctx.pv.length) {
-                            ctx.pv[ply][0] = mv;
-                            ctx.pvLen[ply] = 1;           // <-- 1-move PV only
-                        }
-                    }
-                    if (bestScore > alpha) alpha = bestScore;
-                    if (alpha >= beta) {
-                        cutOccurred = true;
-                        if (MoveOrdering.isQuiet(game, mv)) {
-                            Heuristics.onBetaCutoffUpdateHeuristics(ctx, game, mv, depth, ply, prev);
-                        }
-                        break;
-                    }
-                    continue;
-                }
-
-                // --- Twofold on the line => draw with contempt (soft steer) ---
-                // Only steer at the root or at PV nodes and only when there's real depth to spare.
-                if (matches == 1
-                        && ctx.cfg.useEarlyRepetitionDraw
-                        && ply == 0) {             // root-only steering
-//                        && (ply == 0 || (isPV && depth >= ctx.cfg.erdMinDepth))) {
-                    repLineUsed = true;
-                    int evalHere = standPat; // reuse standPat for consistency and speed
-                    int mag   = Math.abs(evalHere);
-                    int base  = ctx.cfg.contemptCp;
-                    int scaled = (mag <= 60 ? 0 : (mag <= 120 ? (base >> 1) : base));
-                    int sign;
-                    if (ctx.cfg.dynamicContempt) {
-                        sign = (evalHere >  60) ? -1 : (evalHere < -60 ? +1 : 0);
-                    } else {
-                        boolean sameSide = ColorUtils.isWhite(game.currentPlayer) == ctx.rootIsWhite;
-                        sign = sameSide ? -1 : +1;
-                    }
-                    score = sign * scaled;
-
-                    game.undoMove(undo);
-
-                    if (score > bestScore) {
-                        bestScore = score;
-                        bestMove  = mv;
-                        if (ply < ctx.pv.length) {
-                            ctx.pv[ply][0] = mv;
-                            ctx.pvLen[ply] = 1;   // don't copy a child PV you never searched
-                        }
-                    }
-                    if (bestScore > alpha) alpha = bestScore;
-                    if (alpha >= beta) {
-                        cutOccurred = true;
-                        if (MoveOrdering.isQuiet(game, mv)) {
-                            Heuristics.onBetaCutoffUpdateHeuristics(ctx, game, mv, depth, ply, prev);
-                        }
-                        break;
-                    }
-                    continue;
-                }
-            }
-            // --- end repetition handling ---
-
             if (i == 0) {
                 // PV move: allow +1 ply singular extension when verified
                 int childDepth = depth - 1 + seExt;
@@ -626,13 +574,6 @@ final class Negamax {
             else if (bestScore <= alphaOrig) { flag = max.chess.engine.search.transpositiontable.TranspositionTable.TT_UPPER; storeScore = ctx.cfg.storeTighterBounds ? bestScore : alphaOrig; }
             else { flag = max.chess.engine.search.transpositiontable.TranspositionTable.TT_EXACT; storeScore = bestScore; }
 
-            // Repetition on the line is path-dependent: never store EXACT for it.
-            if (repLineUsed && flag == TranspositionTable.TT_EXACT) {
-                // degrade to a safe bound (pick the side that doesn't prune winning lines)
-                if (bestScore <= alphaOrig) { flag = TranspositionTable.TT_UPPER; storeScore = alphaOrig; }
-                else                        { flag = TranspositionTable.TT_LOWER; storeScore = beta; }
-            }
-
             boolean exactOnly = ctx.cfg.storeExactOnlyAtShallow && depth <= 2;
             if (!exactOnly || flag == max.chess.engine.search.transpositiontable.TranspositionTable.TT_EXACT) {
                 ctx.tt.store(key, bestMove, depth, storeScore, flag, ply);
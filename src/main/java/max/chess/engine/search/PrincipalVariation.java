@@ -1,18 +1,15 @@
 package max.chess.engine.search;
 
 import max.chess.engine.game.Game;
+import max.chess.engine.movegen.MoveGenerator;
 
 final class PrincipalVariation {
-    static int legalize(Game game, int[] pv, int maxLen, int[][] moveBuf) {
+    static int legalize(Game game, int[] pv, int maxLen) {
         int len = 0;
         long[] undo = new long[Math.min(maxLen, SearchConstants.MAX_PLY)];
         for (int i = 0; i < maxLen; i++) {
             int mv = pv[i];
-            int[] buf = moveBuf[len];
-            int n = game.getLegalMoves(buf);
-            boolean ok = false;
-            for (int j = 0; j < n; j++) if (buf[j] == mv) { ok = true; break; }
-            if (!ok) break;
+            if (!MoveGenerator.isLegal(game, mv)) break;
             undo[len] = game.playMove(mv);
             len++;
         }
@@ -2,23 +2,27 @@ package max.chess.engine.search;
 
 import max.chess.engine.game.Game;
 import max.chess.engine.search.transpositiontable.TranspositionTable;
+import max.chess.engine.tb.TBManager;
 import max.chess.engine.tb.TBUtils;
 
 final class Quiescence {
 
     static int search(Game g, SearchContext ctx, int alpha, int beta, int ply,
                       java.util.concurrent.atomic.AtomicBoolean stop, long start, long budgetNs) {
+        return search(g, ctx, alpha, beta, ply, 0, stop, start, budgetNs);
+    }
+
+    // qPly: plies since the main search handed over (0 at the horizon)
+    private static int search(Game g, SearchContext ctx, int alpha, int beta, int ply, int qPly,
+                              java.util.concurrent.atomic.AtomicBoolean stop, long start, long budgetNs) {
         if (TimeControl.aborted(stop, start, budgetNs)) return Integer.MIN_VALUE;
 
         final long z0 = g.zobristKey();
         ctx.totalNodes++; ctx.qNodes++;
 
-        // If enabled, treat WDL as a stand-pat baseline; do NOT return early.
-        int standPatFromTB = Integer.MIN_VALUE;
-        if (ctx.tbProbeInSearch && ctx.tb != null) {
-            var w = ctx.tb.probeWDL(g);
-            if (w.isPresent()) standPatFromTB = TBUtils.scoreFromWDL(w.getAsInt());
-        }
+        // If enabled, treat a WDL already cached by the main search as a stand-pat baseline; do NOT return
+        // early. qsearch never probes the files itself (no depth left to pay for it).
+        final int tbWdl = (ctx.tbProbeInSearch && ctx.tb != null) ? ctx.tb.cachedWDL(z0) : TBManager.WDL_NONE;
 
         final long key = g.zobristKey();
         final int alphaOrig = alpha;
@@ -42,7 +46,7 @@ final class Quiescence {
         if (g.inCheck()) {
             int bufPly = (ply < ctx.moveBuf.length) ? ply : (ctx.moveBuf.length - 1);
             int[] moves = ctx.moveBuf[bufPly];
-            int n = g.getLegalMoves(moves);
+            int n = g.getLegalMoves(moves, true);
             if (n > moves.length) n = moves.length;
             if (n == 0) return -(max.chess.engine.search.evaluator.GameValues.CHECKMATE_VALUE - ply);
             if (ctx.tt != null && hit != null && hit.move != 0) MoveOrdering.moveTTToFront(hit.move, moves, n);
@@ -56,7 +60,7 @@ final class Quiescence {
                 if (ctx.cfg.debug) {
                     DebugChecks.assertMoveDidNotLeaveOwnKingInCheck(g);
                 }
-                int score = -search(g, ctx, -beta, -alpha, ply + 1, stop, start, budgetNs);
+                int score = -search(g, ctx, -beta, -alpha, ply + 1, qPly + 1, stop, start, budgetNs);
                 g.undoMove(u);
                 if (score >= beta) { if (ctx.tt != null) ctx.tt.store(key, moves[i], 0, score, TranspositionTable.TT_LOWER, ply); return score; }
                 if (score > best) best = score;
@@ -71,7 +75,8 @@ final class Quiescence {
 
         // Stand-pat using static eval (TT cached if available)
         int standPat = StaticEvalCache.get(g, ctx);
-        if (standPatFromTB != Integer.MIN_VALUE) standPat = Math.max(standPat, standPatFromTB);
+        // scored as Negamax scores the same hit, so both agree with the TT entry it stored
+        if (tbWdl != TBManager.WDL_NONE) standPat = Math.max(standPat, TBUtils.scoreFromWDL(tbWdl, standPat));
 
         if (standPat >= beta) { if (ctx.tt != null) ctx.tt.store(key, 0, 0, standPat, TranspositionTable.TT_LOWER, ply);
             return standPat;
@@ -81,7 +86,7 @@ final class Quiescence {
         // Generate all legal, keep only tactical (captures/promos), order with MVV-LVA
         int bufPly = (ply < ctx.moveBuf.length) ? ply : (ctx.moveBuf.length - 1);
         int[] moves = ctx.moveBuf[bufPly];
-        int n = g.getLegalMoves(moves);
+        int n = g.getLegalMoves(moves, true);
         if (n > moves.length) n = moves.length;
         if (ctx.tt != null && hit != null && MoveOrdering.isTactical(g, hit.move)) MoveOrdering.moveTTToFront(hit.move, moves, n);
         int k = MoveOrdering.partitionAndScoreCaptures(g, moves, n, ctx.scoreBuf[bufPly]);
@@ -99,9 +104,10 @@ final class Quiescence {
                 if (standPat + ub + ctx.cfg.deltaMargin <= alpha) continue;
 
                 if (ub < max.chess.engine.search.evaluator.PieceValues.ROOK_VALUE) {
-                    final int see = MoveOrdering.seeSwap(g, m);
-                    if (MoveOrdering.promotionType(m) == max.chess.engine.utils.PieceUtils.NONE && see < 0) continue;
-                    if (standPat + see + ctx.cfg.seeMargin <= alpha) continue;
+                    // SEE must clear alpha (minus margin), and not lose material unless promoting
+                    int seeThreshold = alpha - standPat - ctx.cfg.seeMargin + 1;
+                    if (MoveOrdering.promotionType(m) == max.chess.engine.utils.PieceUtils.NONE) seeThreshold = Math.max(0, seeThreshold);
+                    if (!StaticExchange.seeGE(g, m, seeThreshold)) continue;
                 }
             }
 
@@ -109,7 +115,7 @@ final class Quiescence {
             if (ctx.cfg.debug) {
                 DebugChecks.assertMoveDidNotLeaveOwnKingInCheck(g);
             }
-            int score = -search(g, ctx, -beta, -alpha, ply + 1, stop, start, budgetNs);
+            int score = -search(g, ctx, -beta, -alpha, ply + 1, qPly + 1, stop, start, budgetNs);
             g.undoMove(u);
 
             if (score >= beta) { if (ctx.tt != null) ctx.tt.store(key, m, 0, score, TranspositionTable.TT_LOWER, ply);
@@ -118,6 +124,30 @@ final class Quiescence {
             if (score > alpha) alpha = score;
         }
 
+        // First qsearch ply: quiet checks that don't hang the piece (the reply is searched as evasions)
+        if (qPly == 0 && ctx.cfg.qsQuietChecks) {
+            for (int i = k; i < n; i++) {
+                if (TimeControl.aborted(stop, start, budgetNs)) {
+                    return Integer.MIN_VALUE;
+                }
+
+                int m = moves[i];
+                if (!MoveOrdering.givesCheckFast(g, m) || !StaticExchange.seeGE(g, m, 0)) continue;
+
+                long u = g.playMove(m);
+                if (ctx.cfg.debug) {
+                    DebugChecks.assertMoveDidNotLeaveOwnKingInCheck(g);
+                }
+                int score = -search(g, ctx, -beta, -alpha, ply + 1, qPly + 1, stop, start, budgetNs);
+                g.undoMove(u);
+
+                if (score >= beta) { if (ctx.tt != null) ctx.tt.store(key, m, 0, score, TranspositionTable.TT_LOWER, ply);
+                    return score;
+                }
+                if (score > alpha) alpha = score;
+            }
+        }
+
         if (ctx.tt != null) {
             byte flag = (alpha <= alphaOrig) ? TranspositionTable.TT_UPPER : TranspositionTable.TT_EXACT;
             ctx.tt.store(key, 0, 0, alpha, flag, ply);
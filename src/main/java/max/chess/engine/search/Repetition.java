@@ -0,0 +1,143 @@
+package max.chess.engine.search;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.game.ZobristHashKeys;
+import max.chess.engine.game.board.Board;
+import max.chess.engine.movegen.pieces.King;
+import max.chess.engine.movegen.pieces.Knight;
+import max.chess.engine.movegen.pieces.SliderAttacks;
+import max.chess.engine.movegen.utils.ObstructedLinesUtils;
+import max.chess.engine.utils.ColorUtils;
+import max.chess.engine.utils.PieceUtils;
+
+/**
+ * Repetition draws at search nodes, from {@link SearchContext#keyStack} (the line below the root) then the game
+ * history above it. Only positions with the same side to move and within the rule 50 window can repeat, so the
+ * walk steps back two plies at a time and stops at the last capture, pawn move or null move.
+ * <p>
+ * {@link #hasUpcomingCycle} looks one move ahead (Hyatt / Stockfish cuckoo test): every reversible move of a
+ * non-pawn piece is stored by its zobrist difference (both squares and the side switch) in a cuckoo table, so
+ * "one move of the side to move gets back to an earlier position" is two table probes per earlier position.
+ */
+final class Repetition {
+    private static final int CUCKOO_SIZE = 8192;
+    private static final long[] CUCKOO_KEYS = new long[CUCKOO_SIZE];
+    private static final short[] CUCKOO_MOVES = new short[CUCKOO_SIZE]; // from << 6 | to, from < to ; 0 = empty
+    private static final long SIDE = ZobristHashKeys.switchPlayer(0L);
+
+    static {
+        King.warmUp(); // the king move table is not filled statically
+        final byte[] types = {PieceUtils.KNIGHT, PieceUtils.BISHOP, PieceUtils.ROOK, PieceUtils.QUEEN, PieceUtils.KING};
+        for (int color : new int[] {ColorUtils.WHITE, ColorUtils.BLACK}) {
+            for (byte type : types) {
+                for (int s1 = 0; s1 < 64; s1++) {
+                    final long targets = pseudoAttacks(type, s1);
+                    for (int s2 = s1 + 1; s2 < 64; s2++) {
+                        if ((targets & (1L << s2)) == 0) continue;
+                        long key = ZobristHashKeys.switchPiecePresence(
+                                ZobristHashKeys.switchPiecePresence(SIDE, type, color, s1), type, color, s2);
+                        short move = (short) (s1 << 6 | s2);
+                        // insert, evicting the occupant to its other slot until a free one is found
+                        int i = h1(key);
+                        while (true) {
+                            final long k = CUCKOO_KEYS[i];
+                            CUCKOO_KEYS[i] = key;
+                            key = k;
+                            final short m = CUCKOO_MOVES[i];
+                            CUCKOO_MOVES[i] = move;
+                            move = m;
+                            if (move == 0) break;
+                            i = (i == h1(key)) ? h2(key) : h1(key);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Repetition() {}
+
+    /**
+     * True if the node at {@code ply}, whose key is already on the key stack, is a repetition draw: a second
+     * occurrence of a position first met inside the tree, or a third occurrence otherwise.
+     */
+    static boolean isDraw(Game game, SearchContext ctx, int ply) {
+        final long key = ctx.keyStack[ply];
+        final int window = window(game, ctx, ply);
+        int seen = 0;
+        for (int i = 2; i <= window; i += 2) {
+            if (keyAt(game, ctx, ply, i) != key) continue;
+            if (i < ply && ctx.cfg.useEarlyRepetitionDraw) return true; // first occurrence below the root
+            if (++seen == 2) return true;
+        }
+        return false;
+    }
+
+    /**
+     * True if the side to move at {@code ply} has a reversible move back to an earlier position of the line, one
+     * that would be a draw by {@link #isDraw}: the node is then worth at least a draw.
+     */
+    static boolean hasUpcomingCycle(Game game, SearchContext ctx, int ply) {
+        final int window = window(game, ctx, ply);
+        if (window < 3) return false;
+
+        final long key = ctx.keyStack[ply];
+        // the opponent's moves in between must cancel out: "other" is 0 when they do
+        long other = key ^ keyAt(game, ctx, ply, 1) ^ SIDE;
+        for (int i = 3; i <= window; i += 2) {
+            final long earlier = keyAt(game, ctx, ply, i);
+            other ^= keyAt(game, ctx, ply, i - 1) ^ earlier ^ SIDE;
+            if (other != 0) continue;
+
+            final long moveKey = key ^ earlier;
+            int j = h1(moveKey);
+            if (CUCKOO_KEYS[j] != moveKey) {
+                j = h2(moveKey);
+                if (CUCKOO_KEYS[j] != moveKey) continue;
+            }
+            final int s1 = CUCKOO_MOVES[j] >>> 6;
+            final int s2 = CUCKOO_MOVES[j] & 63;
+            final Board board = game.board();
+            if ((ObstructedLinesUtils.OBSTRUCTED_BB[s1][s2] & board.gameBB) != 0) continue;
+
+            if (i < ply) return true;
+            // at or above the root, a repetition only if the move is ours and the position was already repeated
+            final long piece = (board.gameBB & (1L << s1)) != 0 ? 1L << s1 : 1L << s2;
+            final long us = ColorUtils.isWhite(game.currentPlayer) ? board.whiteBB : board.blackBB;
+            if ((us & piece) == 0) continue;
+            for (int d = i + 4; d <= window; d += 2) {
+                if (keyAt(game, ctx, ply, d) == earlier) return true;
+            }
+        }
+        return false;
+    }
+
+    // Plies back from the node over which a repetition is possible, the key stack and game history included
+    private static int window(Game game, SearchContext ctx, int ply) {
+        return Math.min(Math.min(game.halfMoveClock, ctx.pliesFromNull[ply]),
+                Math.min(ply + game.historySize(), ctx.cfg.repScanMaxPlies));
+    }
+
+    // Key of the position pliesBack plies above the node at ply
+    private static long keyAt(Game game, SearchContext ctx, int ply, int pliesBack) {
+        return pliesBack <= ply ? ctx.keyStack[ply - pliesBack] : game.historyKey(pliesBack - ply);
+    }
+
+    private static int h1(long key) {
+        return (int) (key & (CUCKOO_SIZE - 1));
+    }
+
+    private static int h2(long key) {
+        return (int) ((key >>> 16) & (CUCKOO_SIZE - 1));
+    }
+
+    private static long pseudoAttacks(byte type, int sq) {
+        return switch (type) {
+            case PieceUtils.KNIGHT -> Knight.getAttackBB(sq);
+            case PieceUtils.BISHOP -> SliderAttacks.bishopAttacks(sq, 0L);
+            case PieceUtils.ROOK -> SliderAttacks.rookAttacks(sq, 0L);
+            case PieceUtils.QUEEN -> SliderAttacks.queenAttacks(sq, 0L);
+            default -> King.getAttackBB(sq);
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package max.chess.engine.search;
 
 import max.chess.engine.game.Game;
+import max.chess.engine.movegen.MoveGenerator;
 import max.chess.engine.search.transpositiontable.TranspositionTable;
 import max.chess.engine.utils.ColorUtils;
 
@@ -23,6 +24,9 @@ final class RootSearch {
         ctx.rootIsWhite = ColorUtils.isWhite(game.currentPlayer);
         // At root there is no previous move
         if (ctx.prevMove.length > 0) ctx.prevMove[0] = 0;
+        // The line starts here; above the root the game history takes over for repetitions
+        ctx.keyStack[0] = game.zobristKey();
+        ctx.pliesFromNull[0] = game.halfMoveClock;
         Arrays.fill(ctx.pvLen, 0);
 
         if (TimeControl.aborted(stop, start, budgetNs)) return null;
@@ -52,6 +56,7 @@ final class RootSearch {
             for (int i = 0; i < moveCount; i++) {
                 if (TimeControl.aborted(stop, start, budgetNs)) return null;
                 int mv = moves[i];
+                ctx.reporter.currMove(depth, mv, i + 1, out);
                 long undo = game.playMove(mv);
 
                 // The child node (ply+1) should see this mv as its previous move
@@ -85,12 +90,8 @@ final class RootSearch {
 
         // Sanitize best move if needed (illegal after sanitize? fall back to first legal)
         bestMove = MoveOrdering.sanitizeBestMove(game, bestMove, ctx);
-        int[] legals = ctx.moveBuf[0];
-        int n = game.getLegalMoves(legals);
-        boolean ok = false;
-        for (int i = 0; i < n; i++) if (legals[i] == bestMove) { ok = true; break; }
 
-        if (!ok) {
+        if (!MoveGenerator.isLegal(game, bestMove)) {
             if (ctx.cfg.debug) {
                 throw new IllegalStateException("Root bestMove not legal in current position");
             }
@@ -98,17 +99,19 @@ final class RootSearch {
             // Try TT hint, but only if key-safe peekMove as above
             if (ctx.tt != null) {
                 int ttMove = ctx.tt.peekMove(game.zobristKey());
-                if (ttMove != 0) {
-                    for (int i = 0; i < n; i++) { if (legals[i] == ttMove) { fallback = ttMove; break; } }
-                }
+                if (MoveGenerator.isLegal(game, ttMove)) fallback = ttMove;
+            }
+            if (fallback == 0) {
+                int[] legals = ctx.moveBuf[0];
+                int n = game.getLegalMoves(legals);
+                fallback = (n > 0) ? legals[0] : 0;  // 0000 only if truly no legals
             }
-            if (fallback == 0) fallback = (n > 0) ? legals[0] : 0;  // 0000 only if truly no legals
             bestMove = fallback;
         }
 
         // Legalize PV to avoid GUI weirdness if sanitize changed root move
         final int rawLen = Math.min(ctx.pvLen[0], SearchConstants.MAX_PLY);
-        final int legalLen = PrincipalVariation.legalize(game, ctx.pv[0], rawLen, ctx.moveBuf);
+        final int legalLen = PrincipalVariation.legalize(game, ctx.pv[0], rawLen);
         final int[] pvLine = (legalLen == 0 || ctx.pv[0][0] != bestMove)
                 ? new int[]{bestMove}
                 : java.util.Arrays.copyOf(ctx.pv[0], legalLen);
@@ -17,6 +17,7 @@ public final class SearchConfig {
     // Quiescence margins
     public final int deltaMargin;
     public final int seeMargin;
+    public final boolean qsQuietChecks;  // first qsearch ply also tries quiet checks with SEE >= 0
 
     // Null move pruning
     public final boolean useNullMove;
@@ -92,17 +93,16 @@ public final class SearchConfig {
     // Prefer progress, avoid drifting into 3-fold when winning
     public final boolean useEarlyRepetitionDraw;   // detect twofold on stack and score as draw (default: true)
     public final int     repScanMaxPlies;    // scan back along stack in steps of 2 (default: 200)
-    public final int     erdMinDepth;    // min depth to consider early repetition (default: 6)
+    public final boolean useUpcomingRepetition; // cuckoo test: a move reaching an earlier position bounds the node at a draw (default: true)
 
     // If a move immediately bounces last move (A→B, B→A), add extra LMR reduction
     public final boolean bumpLMROnImmediateRepetition; // (default true)
     public final int     immRepLMRBump               ;   // + reduction tier (default 1)
 
-    // Draw handling / contempt
-    public final boolean useContempt;        // enable non-zero draw scores - default true
-    public final boolean dynamicContempt;    // base draw score on local eval - default true
-    public final int contemptCp;               // 10–50 is common at blitz (default 20)
-    public final int contemptEvalMargin;       // eval threshold to trigger dynamic sign (default 50)
+    // Draw handling / contempt: repetitions score an exact 0, these only pick who avoids them in root ordering
+    public final boolean useContempt;        // let the root eval decide the side that avoids draws - default true
+    public final boolean dynamicContempt;    // base that side on the root eval - default true
+    public final int contemptEvalMargin;       // root eval above which the side to move avoids draws (default 50)
 
     public final boolean rootAntiRepOrdering; // pushes back repetition moves (default: true)
     // Repetition-aware ordering
@@ -126,6 +126,7 @@ public final class SearchConfig {
         aspirationCp = b.aspirationCp;
         deltaMargin = b.deltaMargin;
         seeMargin = b.seeMargin;
+        qsQuietChecks = b.qsQuietChecks;
 
         useNullMove = b.useNullMove;
         nullBaseReduction = b.nullBaseReduction;
@@ -195,14 +196,13 @@ public final class SearchConfig {
 
         useEarlyRepetitionDraw = b.useEarlyRepetitionDraw;
         repScanMaxPlies = b.repScanMaxPlies;
-        erdMinDepth = b.erdMinDepth;
+        useUpcomingRepetition = b.useUpcomingRepetition;
 
         bumpLMROnImmediateRepetition = b.bumpLMROnImmediateRepetition;
         immRepLMRBump = b.immRepLMRBump;
 
         useContempt = b.useContempt;
         dynamicContempt = b.dynamicContempt;
-        contemptCp = b.contemptCp;
         contemptEvalMargin = b.contemptEvalMargin;
         rootAntiRepOrdering = b.rootAntiRepOrdering;
 
@@ -217,6 +217,7 @@ public final class SearchConfig {
 
         private boolean useTT = true, useTTBounds = true, storeExactOnlyAtShallow = true, storeTighterBounds = false;
         private int ttSizeMb = 64, aspirationCp = 18, deltaMargin = 40, seeMargin = 20;
+        private boolean qsQuietChecks = true;
 
         // Null move defaults
         private boolean useNullMove = true;
@@ -292,7 +293,7 @@ public final class SearchConfig {
         // Prefer progress, avoid drifting into 3-fold when winning
         public boolean useEarlyRepetitionDraw = true;   // detect twofold on stack and score as draw
         public int     repScanMaxPlies        = 200;    // scan back along stack in steps of 2
-        public int     erdMinDepth        = 6;    // min depth to consider early repetition
+        public boolean useUpcomingRepetition  = true;   // draw bound when a reversible move reaches an earlier position
 
         // If a move immediately bounces last move (A→B, B→A), add extra LMR reduction
         public boolean bumpLMROnImmediateRepetition = true;
@@ -301,7 +302,6 @@ public final class SearchConfig {
         // Draw handling / contempt
         public boolean useContempt = true;
         public boolean dynamicContempt = true;
-        public int contemptCp = 20;
         public int contemptEvalMargin = 50;
         public boolean rootAntiRepOrdering = true;
 
@@ -325,6 +325,7 @@ public final class SearchConfig {
         public Builder aspirationCp(int v){aspirationCp=v;return this;}
         public Builder deltaMargin(int v){deltaMargin=v;return this;}
         public Builder seeMargin(int v){seeMargin=v;return this;}
+        public Builder qsQuietChecks(boolean v){qsQuietChecks=v;return this;}
 
         public Builder useNullMove(boolean v){useNullMove=v;return this;}
         public Builder nullBaseReduction(int v){nullBaseReduction=v;return this;}
@@ -394,7 +395,6 @@ public final class SearchConfig {
 
         public Builder useContempt(boolean v){useContempt=v;return this;}
         public Builder dynamicContempt(boolean v){dynamicContempt=v;return this;}
-        public Builder contemptCp(int v){contemptCp=v;return this;}
         public Builder contemptEvalMargin(int v){contemptEvalMargin=v;return this;}
         public Builder rootAntiRepOrdering(boolean v){rootAntiRepOrdering=v;return this;}
 
@@ -13,7 +13,9 @@ public final class SearchContext {
     // PV stays limited to MAX_PLY
     public final int[][] pv = new int[SearchConstants.MAX_PLY][SearchConstants.MAX_PLY];
     public final int[] pvLen = new int[SearchConstants.MAX_PLY];
+    // Zobrist key of each node on the current line (root at 0), and its distance to the last null move
     public final long[] keyStack = new long[SearchConstants.MAX_PLY];
+    public final int[] pliesFromNull = new int[SearchConstants.MAX_PLY];
 
     // Heuristics at search ply only
     public final int[][][] history = new int[2][64][64];
@@ -38,6 +40,7 @@ public final class SearchContext {
     public long lmrTried, lmrReduced, lmrResearched, lmrWidened;
     public long iidTried, iidUsed;
     public long probCutTried, probCutCut;
+    public long cycleHits, cycleCut;
 
     // Singular Extension diagnostics
     public long seTried, seExtended;
@@ -49,10 +52,14 @@ public final class SearchContext {
     // TB wiring
     public max.chess.engine.tb.TBManager tb = null;
     public boolean tbProbeInSearch = false;
+    public long tbHits;
 
     // TT
     public final TranspositionTable tt; // nullable if disabled
 
+    // UCI info lines (reused across searches)
+    final InfoReporter reporter = new InfoReporter();
+
     // Config
     public final SearchConfig cfg;
 
@@ -66,10 +73,12 @@ public final class SearchContext {
         lmrTried = lmrReduced = lmrResearched = lmrWidened = 0;
         iidTried = iidUsed = 0;
         probCutTried = probCutCut = 0;
+        cycleHits = cycleCut = 0;
     }
 
     public void newSearch() {
         nodes = totalNodes = qNodes = 0;
+        tbHits = 0;
         for (int p = 0; p < SearchConstants.MAX_PLY; p++) { killer[p][0] = killer[p][1] = 0; pvLen[p]=0; }
         for (int s = 0; s < 2; s++) for (int f = 0; f < 64; f++) java.util.Arrays.fill(history[s][f], 0);
         for (int f = 0; f < 64; f++) java.util.Arrays.fill(countermove[f], 0);
@@ -85,17 +94,16 @@ public final class SearchContext {
     }
 
     public String toUCIInfo(int depth) {
-        return String.format(
-                "info string diag depth %d nodes %d qnodes %d " +
-                        "| nmp tried %d cut %d verify %d fail %d " +
-                        "| lmr tried %d reduced %d re-search %d widened %d" +
-                        "| iid tried %d used %d" +
-                        "| probcut tried %d cut %d",
-                depth, totalNodes, qNodes,
-                nmpTried, nmpCut, nmpVerify, nmpVerifyFail,
-                lmrTried, lmrReduced, lmrResearched, lmrWidened,
-                iidTried, iidUsed,
-                probCutTried, probCutCut
-                );
+        return new StringBuilder(256)
+                .append("info string diag depth ").append(depth)
+                .append(" nodes ").append(totalNodes).append(" qnodes ").append(qNodes)
+                .append(" | nmp tried ").append(nmpTried).append(" cut ").append(nmpCut)
+                .append(" verify ").append(nmpVerify).append(" fail ").append(nmpVerifyFail)
+                .append(" | lmr tried ").append(lmrTried).append(" reduced ").append(lmrReduced)
+                .append(" re-search ").append(lmrResearched).append(" widened ").append(lmrWidened)
+                .append(" | iid tried ").append(iidTried).append(" used ").append(iidUsed)
+                .append(" | probcut tried ").append(probCutTried).append(" cut ").append(probCutCut)
+                .append(" | cycle hits ").append(cycleHits).append(" cut ").append(cycleCut)
+                .toString();
     }
 }
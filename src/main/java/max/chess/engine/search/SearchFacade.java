@@ -15,7 +15,13 @@ public final class SearchFacade {
 
     public SearchFacade(SearchConfig cfg) {
         this.ctx = new SearchContext(cfg);
-        // warm-ups
+    }
+
+    /**
+     * Builds the movegen and eval tables (class initialization), which the first search would pay for otherwise.
+     * Safe to call from any thread, concurrently with a search.
+     */
+    public static void warmUp() {
         max.chess.engine.movegen.MoveGenerator.warmUp();
         max.chess.engine.search.evaluator.PositionEvaluator.warmUp();
     }
@@ -46,13 +52,12 @@ public final class SearchFacade {
                 int[] pv = new int[] { r.bestMove() };
                 SearchResult tbSr = new SearchResult(r.bestMove(), score, 0, 0, 0, pv);
                 out.accept(tbSr.toUCIInfo());
-                out.accept(PawnEval.PAWN_HASH.toUCIInfo());
                 return tbSr;
             }
         }
 
         SearchResult sr = IterativeDeepening.run(game, ctx, stop, budgetNs, go.depth, out);
-        out.accept(PawnEval.PAWN_HASH.toUCIInfo());
+        if (ctx.cfg.debug) out.accept(PawnEval.PAWN_HASH.toUCIInfo());
 
         if (ctx.cfg.debug) {
             // Verify bestMove legality in the current position
@@ -0,0 +1,156 @@
+package max.chess.engine.search;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.game.board.Board;
+import max.chess.engine.movegen.Move;
+import max.chess.engine.movegen.pieces.Bishop;
+import max.chess.engine.movegen.pieces.King;
+import max.chess.engine.movegen.pieces.Knight;
+import max.chess.engine.movegen.pieces.Pawn;
+import max.chess.engine.movegen.pieces.Rook;
+import max.chess.engine.search.evaluator.PieceValues;
+import max.chess.engine.utils.ColorUtils;
+import max.chess.engine.utils.PieceUtils;
+
+/**
+ * Static exchange evaluation on the target square of a move.
+ * <p>
+ * The attackers of the square (both colors) are computed once; each capture removes the capturer from the
+ * occupancy and only re-adds the slider x-rays it uncovered. Pins and checks are ignored ; a king only captures
+ * when the square is no longer defended.
+ */
+final class StaticExchange {
+    private static final int[] VALUE = {
+            0,
+            PieceValues.PAWN_VALUE,
+            PieceValues.KNIGHT_VALUE,
+            PieceValues.BISHOP_VALUE,
+            PieceValues.ROOK_VALUE,
+            PieceValues.QUEEN_VALUE,
+            PieceValues.KING_VALUE
+    };
+
+    private StaticExchange() {}
+
+    /** Material balance of the exchange for the side to move, in centipawns. */
+    static int see(Game g, int move) {
+        final Board b = g.board();
+        final int us = g.currentPlayer;
+        final int from = Move.getStartPosition(move);
+        final int to = Move.getEndPosition(move);
+        final byte promo = Move.getPromotion(move);
+
+        long occ = b.gameBB ^ (1L << from);
+        int captured;
+        if (Move.isEnPassant(move)) {
+            occ ^= 1L << (ColorUtils.isWhite(us) ? to - 8 : to + 8);
+            captured = PieceUtils.PAWN;
+        } else {
+            captured = b.getPieceTypeAt(to);
+        }
+
+        final int[] gain = new int[32];
+        int d = 0;
+        gain[0] = VALUE[captured] + (promo != PieceUtils.NONE ? VALUE[promo] - VALUE[PieceUtils.PAWN] : 0);
+        int onSquare = promo != PieceUtils.NONE ? promo : b.getPieceTypeAt(from);
+
+        long attackers = attackersTo(b, to, occ) & occ;
+        int side = ColorUtils.switchColor(us);
+        while (true) {
+            final long sideAttackers = attackers & (ColorUtils.isWhite(side) ? b.whiteBB : b.blackBB);
+            if (sideAttackers == 0) break;
+            final int type = leastValuable(b, side, sideAttackers);
+            if (type == PieceUtils.KING && (attackers & ~sideAttackers) != 0) break; // square still defended
+
+            final long fromBB = Long.lowestOneBit(sideAttackers & b.piecesBB((byte) type, side));
+            d++;
+            gain[d] = VALUE[onSquare] - gain[d - 1];
+            onSquare = type;
+
+            occ ^= fromBB;
+            attackers = (attackers | xRays(b, to, occ, type)) & occ;
+            side = ColorUtils.switchColor(side);
+        }
+
+        while (--d >= 0) gain[d] = -Math.max(-gain[d], gain[d + 1]);
+        return gain[0];
+    }
+
+    /** Whether {@code see(g, move) >= threshold}, stopping as soon as the outcome is known. */
+    static boolean seeGE(Game g, int move, int threshold) {
+        final Board b = g.board();
+        final int us = g.currentPlayer;
+        final int from = Move.getStartPosition(move);
+        final int to = Move.getEndPosition(move);
+        final byte promo = Move.getPromotion(move);
+
+        long occ = b.gameBB ^ (1L << from);
+        int captured;
+        if (Move.isEnPassant(move)) {
+            occ ^= 1L << (ColorUtils.isWhite(us) ? to - 8 : to + 8);
+            captured = PieceUtils.PAWN;
+        } else {
+            captured = b.getPieceTypeAt(to);
+        }
+        final int promoDelta = promo != PieceUtils.NONE ? VALUE[promo] - VALUE[PieceUtils.PAWN] : 0;
+
+        // Even if the mover is taken for free, we keep 'swap' above the threshold
+        int swap = VALUE[captured] + promoDelta - threshold;
+        if (swap < 0) return false;
+        // Even losing the mover cannot bring us below the threshold
+        swap = VALUE[promo != PieceUtils.NONE ? promo : b.getPieceTypeAt(from)] - swap;
+        if (swap <= 0) return true;
+
+        long attackers = attackersTo(b, to, occ) & occ;
+        int side = us;
+        boolean result = true;
+        while (true) {
+            side = ColorUtils.switchColor(side);
+            final long sideAttackers = attackers & (ColorUtils.isWhite(side) ? b.whiteBB : b.blackBB);
+            if (sideAttackers == 0) break;
+            final int type = leastValuable(b, side, sideAttackers);
+            if (type == PieceUtils.KING) {
+                // the king may only take an undefended piece
+                return (attackers & ~sideAttackers) != 0 ? result : !result;
+            }
+
+            result = !result;
+            // 'swap' is now what the side to capture must at least win back
+            swap = VALUE[type] - swap;
+            if (swap < (result ? 1 : 0)) break;
+
+            occ ^= Long.lowestOneBit(sideAttackers & b.piecesBB((byte) type, side));
+            attackers = (attackers | xRays(b, to, occ, type)) & occ;
+        }
+        return result;
+    }
+
+    // Pieces of both colors attacking 'sq' through 'occ'
+    private static long attackersTo(Board b, int sq, long occ) {
+        final long queens = b.queenBB;
+        return (Pawn.getAttackBB(sq, ColorUtils.BLACK) & b.piecesBB(PieceUtils.PAWN, ColorUtils.WHITE))
+                | (Pawn.getAttackBB(sq, ColorUtils.WHITE) & b.piecesBB(PieceUtils.PAWN, ColorUtils.BLACK))
+                | (Knight.getAttackBB(sq) & b.knightBB)
+                | (King.getAttackBB(sq) & b.kingBB)
+                | (Bishop.getAttackBB(sq, occ) & (b.bishopBB | queens))
+                | (Rook.getAttackBB(sq, occ) & (b.rookBB | queens));
+    }
+
+    // Sliders uncovered on 'sq' once a piece of 'type' left its square (a pawn capture opens a diagonal)
+    private static long xRays(Board b, int sq, long occ, int type) {
+        return switch (type) {
+            case PieceUtils.PAWN, PieceUtils.BISHOP -> Bishop.getAttackBB(sq, occ) & (b.bishopBB | b.queenBB);
+            case PieceUtils.ROOK -> Rook.getAttackBB(sq, occ) & (b.rookBB | b.queenBB);
+            case PieceUtils.QUEEN -> (Bishop.getAttackBB(sq, occ) & (b.bishopBB | b.queenBB))
+                    | (Rook.getAttackBB(sq, occ) & (b.rookBB | b.queenBB));
+            default -> 0L;
+        };
+    }
+
+    private static int leastValuable(Board b, int side, long sideAttackers) {
+        for (byte type = PieceUtils.PAWN; type < PieceUtils.KING; type++) {
+            if ((sideAttackers & b.piecesBB(type, side)) != 0) return type;
+        }
+        return PieceUtils.KING;
+    }
+}
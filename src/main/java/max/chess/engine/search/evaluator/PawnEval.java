@@ -2,6 +2,8 @@ package max.chess.engine.search.evaluator;
 
 import max.chess.engine.game.board.Board;
 import max.chess.engine.movegen.utils.OrthogonalMoveUtils;
+import max.chess.engine.utils.ColorUtils;
+import max.chess.engine.utils.PieceUtils;
 
 public final class PawnEval {
     public static final PawnHash PAWN_HASH = new PawnHash(1 << 16); // 65k buckets * 2-way ≈ 131k entries
@@ -32,8 +34,8 @@ public final class PawnEval {
     }
 
     public static int evalPawnStructureWithHash(Board b, int phase256) {
-        final long wp = b.pawnBB & b.whiteBB;
-        final long bp = b.pawnBB & b.blackBB;
+        final long wp = b.piecesBB(PieceUtils.PAWN, ColorUtils.WHITE);
+        final long bp = b.piecesBB(PieceUtils.PAWN, ColorUtils.BLACK);
         if ((wp | bp) == 0) return 0;
 
         final PawnHash.Hit hit = new PawnHash.Hit();
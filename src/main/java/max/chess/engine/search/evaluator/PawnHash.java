@@ -53,7 +53,7 @@ public final class PawnHash {
     }
 
     public String toUCIInfo() {
-        StringBuilder sb = new StringBuilder("info")
+        StringBuilder sb = new StringBuilder("info string")
                 .append(" pawn hits ").append(hits)
                 .append(" pawn probes ").append(probes)
                 .append(" %: ").append(probes==0?0:100*hits/probes);
@@ -120,7 +120,7 @@ public class PositionEvaluator {
         }
 
 //        int pieceValueScore = getPieceValueScore(sideBB, game.board());
-        int pstScore = materialPlusPst(sideBB, game.board(), isWhiteTurn, gameProgress256);
+        int pstScore = materialPlusPst(game.board(), isWhiteTurn, gameProgress256);
         int mobilityScore = getPieceMobilityScore(sideBB, game.board(), gameProgress256);
         int castlingScore = getCastlingScore(game, currentPlayer, gameProgress256);
         int kingScore = getKingScore(game, currentPlayer, gameProgress256);
@@ -130,7 +130,7 @@ public class PositionEvaluator {
         int playerScore = passedPawnScore + tempoScore + bishopPairScore + kingScore + castlingScore + mobilityScore + pstScore;
 
 //        int opponentPieceValueScore = getPieceValueScore(oppositeSideBB, game.board());
-        int opponentPSTScore = materialPlusPst(oppositeSideBB, game.board(), !isWhiteTurn, gameProgress256);
+        int opponentPSTScore = materialPlusPst(game.board(), !isWhiteTurn, gameProgress256);
         int opponentMobilityScore = getPieceMobilityScore(oppositeSideBB, game.board(), gameProgress256);
         int opponentCastlingScore = getCastlingScore(game, oppositePlayer, gameProgress256);
         int opponentKingScore = getKingScore(game, oppositePlayer, gameProgress256);
@@ -185,10 +185,11 @@ public class PositionEvaluator {
             + pawnsScore;
     }
 
-    private static int materialPlusPst(long sideBB, Board b, boolean isWhite, int phase256) {
+    private static int materialPlusPst(Board b, boolean isWhite, int phase256) {
         int mg = 0, eg = 0;
+        final int color = isWhite ? ColorUtils.WHITE : ColorUtils.BLACK;
         // Pawns
-        long x = b.pawnBB & sideBB;
+        long x = b.piecesBB(PieceUtils.PAWN, color);
         while (x != 0) {
             int s = Long.numberOfTrailingZeros(x); x &= x - 1;
             int idx = isWhite ? s : mirrorV(s);
@@ -196,7 +197,7 @@ public class PositionEvaluator {
             eg += PAWN_VALUE + P_EG[idx];
         }
         // Knights
-        x = b.knightBB & sideBB;
+        x = b.piecesBB(PieceUtils.KNIGHT, color);
         while (x != 0) {
             int s = Long.numberOfTrailingZeros(x); x &= x - 1;
             int idx = isWhite ? s : mirrorV(s);
@@ -204,7 +205,7 @@ public class PositionEvaluator {
             eg += KNIGHT_VALUE + N_EG[idx];
         }
         // Bishops
-        x = b.bishopBB & sideBB;
+        x = b.piecesBB(PieceUtils.BISHOP, color);
         while (x != 0) {
             int s = Long.numberOfTrailingZeros(x); x &= x - 1;
             int idx = isWhite ? s : mirrorV(s);
@@ -212,7 +213,7 @@ public class PositionEvaluator {
             eg += BISHOP_VALUE + B_EG[idx];
         }
         // Rooks
-        x = b.rookBB & sideBB;
+        x = b.piecesBB(PieceUtils.ROOK, color);
         while (x != 0) {
             int s = Long.numberOfTrailingZeros(x); x &= x - 1;
             int idx = isWhite ? s : mirrorV(s);
@@ -220,7 +221,7 @@ public class PositionEvaluator {
             eg += ROOK_VALUE + R_EG[idx];
         }
         // Queens
-        x = b.queenBB & sideBB;
+        x = b.piecesBB(PieceUtils.QUEEN, color);
         while (x != 0) {
             int s = Long.numberOfTrailingZeros(x); x &= x - 1;
             int idx = isWhite ? s : mirrorV(s);
@@ -228,7 +229,7 @@ public class PositionEvaluator {
             eg += QUEEN_VALUE + Q_EG[idx];
         }
         // King (no base value added to score—mate handled by search)
-        x = b.kingBB & sideBB;
+        x = b.piecesBB(PieceUtils.KING, color);
         if (x != 0) {
             int s = Long.numberOfTrailingZeros(x);
             int idx = isWhite ? s : mirrorV(s);
@@ -709,15 +710,14 @@ public class PositionEvaluator {
         int kingIndex = kingPosition.getFlatIndex();
         int score = 0;
 
-        long oppBishopBB = board.bishopBB & (isWhite ? board.blackBB : board.whiteBB);
-        long oppKnightBB = board.knightBB & (isWhite ? board.blackBB : board.whiteBB);
-        long oppRookBB = board.rookBB & (isWhite ? board.blackBB : board.whiteBB);
-        long oppQueenBB = board.queenBB & (isWhite ? board.blackBB : board.whiteBB);
+        int enemyColor = isWhite ? ColorUtils.BLACK : ColorUtils.WHITE;
+        long oppBishopBB = board.piecesBB(PieceUtils.BISHOP, enemyColor);
+        long oppKnightBB = board.piecesBB(PieceUtils.KNIGHT, enemyColor);
+        long oppRookBB = board.piecesBB(PieceUtils.ROOK, enemyColor);
+        long oppQueenBB = board.piecesBB(PieceUtils.QUEEN, enemyColor);
 
         long kingMaskBB = King.getAttackBB(kingIndex);
 
-        int enemyColor = isWhite ? ColorUtils.BLACK : ColorUtils.WHITE;
-
         // Attack mask per piece type
         // knight - bishop
         long knightBishopAttackBB = MoveGenerator.doGetAttackBB(0, oppBishopBB, 0, oppKnightBB, 0, board.gameBB, enemyColor);
@@ -62,13 +62,26 @@ public final class TranspositionTable {
             return s;
         }
 
+        /** Debug stats as a single UCI "string" payload (StringBuilder only; runs on the search thread). */
         public String toInfoStringForUCI(TranspositionTable tt) {
-            return String.format("string TT: probes=%d hits=%d suff=%d (%.1f%%) exact=%d lower=%d upper=%d, cutoffs=%d, " +
-                            "stores=%d replSK=%d replOK=%d empty=%d, load=%.1f%%%n " +
-                            "seStores=%d, seHits=%d, seProbes=%d (%.1f%%)%n",
-                    probes, hits, hitsSufficient, tt.hitRate(), exactHits, lowerHits, upperHits,
-                    cutoffsFromTT, stores, replaceSameKey, replaceOtherKey, emptyWrites, tt.loadFactor(),
-                    seStores, seHits, seProbes, (seProbes==0?0.0:(100.0*seHits/seProbes)));
+            StringBuilder sb = new StringBuilder(256)
+                    .append("string TT: probes=").append(probes).append(" hits=").append(hits)
+                    .append(" suff=").append(hitsSufficient).append(" (");
+            appendTenths(sb, probes == 0 ? 0 : 1000L * hitsSufficient / probes).append("%)")
+                    .append(" exact=").append(exactHits).append(" lower=").append(lowerHits)
+                    .append(" upper=").append(upperHits).append(", cutoffs=").append(cutoffsFromTT)
+                    .append(", stores=").append(stores).append(" replSK=").append(replaceSameKey)
+                    .append(" replOK=").append(replaceOtherKey).append(" empty=").append(emptyWrites)
+                    .append(", load=");
+            appendTenths(sb, tt.hashfull()).append("%")
+                    .append(" seStores=").append(seStores).append(", seHits=").append(seHits)
+                    .append(", seProbes=").append(seProbes).append(" (");
+            appendTenths(sb, seProbes == 0 ? 0 : 1000L * seHits / seProbes).append("%)");
+            return sb.toString();
+        }
+
+        private static StringBuilder appendTenths(StringBuilder sb, long permille) {
+            return sb.append(permille / 10).append('.').append(permille % 10);
         }
     }
     private final Stats stats = new Stats();
@@ -116,6 +129,9 @@ public final class TranspositionTable {
 
     public double loadFactor() { return 100.0 * stats.filledSlots / slots; }
 
+    /** UCI hashfull: occupancy in permille. */
+    public int hashfull() { return (int) (1000L * stats.filledSlots / slots); }
+
     /** Call from search when a TT bound caused an immediate cutoff. */
     public void countCutoff() { stats.cutoffsFromTT++; }
 
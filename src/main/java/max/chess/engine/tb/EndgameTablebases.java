@@ -11,5 +11,7 @@ public interface EndgameTablebases extends AutoCloseable {
     Optional<TBRootResult> probeRoot(Game game, int maxPieces);
     /** Probe WDL at arbitrary nodes (side-to-move implicit in Game). */
     OptionalInt probeWDL(Game game, int maxPieces);
+    /** Optional: map and read in every table now, so that the first probes do not stall on page faults. */
+    default void prefault() {}
     @Override void close();
 }
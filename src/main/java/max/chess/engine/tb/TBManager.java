@@ -13,13 +13,29 @@ public final class TBManager {
     private volatile int maxPieces = 5;
     private volatile boolean useDTZ = true;
     private volatile String path = "syzygy/3-4-5/Syzygy345";
+    private volatile int probeDepth = 1;
+
+    /** Returned by {@link #probeWDLCached} when there is no TB result. */
+    public static final int WDL_NONE = -1;
+
+    // WDL cache for search nodes: one long per slot, (zobrist & ~0xF) | (wdl + 1), 0xF for "no result".
+    // Single long reads/writes, so concurrent searches may overwrite each other but never see a torn entry.
+    private static final int WDL_CACHE_BITS = 16;
+    private static final long WDL_KEY_MASK = ~0xFL;
+    private static final int WDL_NO_RESULT = 0xF;
+    private final long[] wdlCache = new long[1 << WDL_CACHE_BITS];
 
     private volatile EndgameTablebases provider = new NoopTablebases();
 
-    public void setEnabled(boolean v) { enabled = v; }
-    public void setMaxPieces(int n) { maxPieces = Math.max(0, Math.min(7, n)); }
+    public void setEnabled(boolean v) { enabled = v; clearCache(); }
+    public void setMaxPieces(int n) { maxPieces = Math.max(0, Math.min(7, n)); clearCache(); }
     public void setUseDTZ(boolean v) { useDTZ = v; }
     public void setPath(String p) { path = p; configureProvider(); }
+    /** Minimum remaining depth for in-search probes of positions with exactly {@code maxPieces} pieces. */
+    public void setProbeDepth(int d) { probeDepth = Math.max(0, d); }
+
+    public int maxPieces() { return maxPieces; }
+    public int probeDepth() { return probeDepth; }
 
     public void setProvider(EndgameTablebases p) { provider = (p != null) ? p : new NoopTablebases(); configureProvider(); }
 
@@ -34,6 +50,7 @@ public final class TBManager {
     }
 
     private void configureProvider() {
+        clearCache();
         try {
             var m = provider.getClass().getMethod("configure", String.class);
             m.setAccessible(true);
@@ -41,6 +58,11 @@ public final class TBManager {
         } catch (Throwable ignored) { /* provider may not support configure */ }
     }
 
+    /** Reads the provider's tables in ahead of the first probes; no-op when disabled. */
+    public void prefault() {
+        if (enabled) provider.prefault();
+    }
+
     /** Returns UCI of a TB best move at root if available. */
     public Optional<String> pickUci(Game game) {
         return probeRoot(game).map(r -> MoveIOUtils.writeAlgebraicNotation(r.bestMove()));
@@ -64,4 +86,38 @@ public final class TBManager {
         return optWdl;
     }
 
+    /**
+     * WDL probe for search nodes through the cache: 0..4 as {@link #probeWDL}, or {@link #WDL_NONE}.
+     * Failed probes are cached too, so a position missing from the tables only costs one probe.
+     */
+    public int probeWDLCached(Game game) {
+        if (!enabled) return WDL_NONE;
+        if (Long.bitCount(game.board().gameBB) > maxPieces) return WDL_NONE;
+        final long key = game.zobristKey();
+        final int slot = (int) (key >>> (64 - WDL_CACHE_BITS));
+        final long e = wdlCache[slot];
+        if (e != 0 && (e & WDL_KEY_MASK) == (key & WDL_KEY_MASK)) return decode(e);
+
+        final OptionalInt w = provider.probeWDL(game, maxPieces);
+        final int v = w.isPresent() ? w.getAsInt() + 1 : WDL_NO_RESULT;
+        wdlCache[slot] = (key & WDL_KEY_MASK) | v;
+        return w.isPresent() ? w.getAsInt() : WDL_NONE;
+    }
+
+    /** Cached WDL of the position with this zobrist key, without probing; {@link #WDL_NONE} on a miss. */
+    public int cachedWDL(long key) {
+        final long e = wdlCache[(int) (key >>> (64 - WDL_CACHE_BITS))];
+        if (e == 0 || (e & WDL_KEY_MASK) != (key & WDL_KEY_MASK)) return WDL_NONE;
+        return decode(e);
+    }
+
+    private static int decode(long e) {
+        final int v = (int) (e & 0xF);
+        return v == WDL_NO_RESULT ? WDL_NONE : v - 1;
+    }
+
+    private void clearCache() {
+        java.util.Arrays.fill(wdlCache, 0L);
+    }
+
 }
@@ -19,4 +19,16 @@ public class TBUtils {
             default -> 0; // draw
         };
     }
+
+    /**
+     * Score of a search node resolved by a TB hit. Wins and losses keep the static eval on top of the
+     * TB weight so the search still prefers the simplest won ending; draws are exact zeros.
+     */
+    public static int scoreFromWDL(int wdl, int staticEval) {
+        return switch (wdl) {
+            case SyzygyJNI.WDL_WIN  -> TB_WIN_CP + Math.max(0, staticEval);
+            case SyzygyJNI.WDL_LOSS -> TB_LOSS_CP + Math.min(0, staticEval);
+            default -> scoreFromWDL(wdl);
+        };
+    }
 }
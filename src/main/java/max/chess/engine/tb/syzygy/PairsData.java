@@ -0,0 +1,160 @@
+package max.chess.engine.tb.syzygy;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Decompressor of one Syzygy sub-table.
+ * <p>
+ * Values are stored as a stream of symbols split in fixed size blocks; each symbol is either a literal value or
+ * a pair of symbols (recursively), coded with a canonical Huffman code (longer codes numerically smaller).
+ * A sparse index gives, every {@code 2^idxBits} positions, the block and the offset in it of that position.
+ * The symbol table is decoded once on the heap; index, block sizes and blocks are read from the mapping.
+ */
+final class PairsData {
+    private final MemorySegment seg;
+    // non-zero when every position has the same value
+    private final boolean constant;
+    private final int constValue;
+
+    private final int blockSize;
+    private final int idxBits;
+    private final int minLen;
+    private final long[] base;      // by length - minLen, left aligned on 64 bits
+    private final int[] offset;     // first symbol of each length, by length - minLen
+    private final byte[] symLen;    // number of values a symbol expands to, minus one
+    private final short[] left;     // pair symbols: first half ; literals: the value
+    private final short[] right;    // pair symbols: second half ; literals: 0xfff
+
+    long indexTable;
+    long sizeTable;
+    long data;
+
+    // sizes, in bytes, of the index table, the size table and the blocks
+    final long indexTableSize;
+    final long sizeTableSize;
+    final long dataSize;
+
+    /** Header of a sub-table at {@code off}; {@link #end} is where the next structure starts. */
+    final long end;
+    final int flags;
+
+    PairsData(MemorySegment seg, long off, long tbSize, boolean wdl) {
+        this.seg = seg;
+        this.flags = TbTable.u8(seg, off);
+        if ((flags & 0x80) != 0) {
+            constant = true;
+            constValue = wdl ? TbTable.u8(seg, off + 1) : 0;
+            blockSize = idxBits = minLen = 0;
+            base = null;
+            offset = null;
+            symLen = null;
+            left = right = null;
+            indexTableSize = sizeTableSize = dataSize = 0;
+            end = off + 2;
+            return;
+        }
+        constant = false;
+        constValue = 0;
+
+        blockSize = TbTable.u8(seg, off + 1);
+        idxBits = TbTable.u8(seg, off + 2);
+        final long realNumBlocks = TbTable.u32(seg, off + 4);
+        final long numBlocks = realNumBlocks + TbTable.u8(seg, off + 3);
+        final int maxLen = TbTable.u8(seg, off + 8);
+        minLen = TbTable.u8(seg, off + 9);
+        final int h = maxLen - minLen + 1;
+        final int numSyms = TbTable.u16(seg, off + 10 + 2L * h);
+        final long symPat = off + 12 + 2L * h;
+        end = symPat + 3L * numSyms + (numSyms & 1);
+
+        final long numIndices = (tbSize + (1L << idxBits) - 1) >>> idxBits;
+        indexTableSize = 6 * numIndices;
+        sizeTableSize = 2 * numBlocks;
+        dataSize = realNumBlocks << blockSize;
+
+        left = new short[numSyms];
+        right = new short[numSyms];
+        for (int s = 0; s < numSyms; s++) {
+            final long w = symPat + 3L * s;
+            final int w0 = TbTable.u8(seg, w), w1 = TbTable.u8(seg, w + 1), w2 = TbTable.u8(seg, w + 2);
+            left[s] = (short) (((w1 & 0xf) << 8) | w0);
+            right[s] = (short) ((w2 << 4) | (w1 >>> 4));
+        }
+        symLen = new byte[numSyms];
+        final boolean[] done = new boolean[numSyms];
+        for (int s = 0; s < numSyms; s++) {
+            if (!done[s]) calcSymLen(s, done);
+        }
+
+        offset = new int[h];
+        for (int i = 0; i < h; i++) offset[i] = TbTable.u16(seg, off + 10 + 2L * i);
+        base = new long[h];
+        base[h - 1] = 0;
+        for (int i = h - 2; i >= 0; i--) base[i] = (base[i + 1] + offset[i] - offset[i + 1]) / 2;
+        for (int i = 0; i < h; i++) base[i] <<= 64 - (minLen + i);
+    }
+
+    private void calcSymLen(int s, boolean[] done) {
+        final int s2 = right[s];
+        if (s2 == 0x0fff) {
+            symLen[s] = 0;
+        } else {
+            final int s1 = left[s];
+            if (!done[s1]) calcSymLen(s1, done);
+            if (!done[s2]) calcSymLen(s2, done);
+            symLen[s] = (byte) ((symLen[s1] & 0xff) + (symLen[s2] & 0xff) + 1);
+        }
+        done[s] = true;
+    }
+
+    /** Raw 12-bit value stored for position {@code idx}. */
+    int value(long idx) {
+        if (constant) return constValue;
+
+        final long mainIdx = idx >>> idxBits;
+        int litIdx = (int) ((idx & ((1L << idxBits) - 1)) - (1L << (idxBits - 1)));
+        long block = TbTable.u32(seg, indexTable + 6 * mainIdx);
+        litIdx += TbTable.u16(seg, indexTable + 6 * mainIdx + 4);
+
+        if (litIdx < 0) {
+            while (litIdx < 0) litIdx += TbTable.u16(seg, sizeTable + 2 * --block) + 1;
+        } else {
+            while (litIdx > TbTable.u16(seg, sizeTable + 2 * block)) {
+                litIdx -= TbTable.u16(seg, sizeTable + 2 * block++) + 1;
+            }
+        }
+
+        long ptr = data + (block << blockSize);
+        long code = TbTable.u64BE(seg, ptr);
+        ptr += 8;
+        int bitCnt = 0; // number of "empty" bits in code
+        int sym;
+        while (true) {
+            int l = 0;
+            while (Long.compareUnsigned(code, base[l]) < 0) l++;
+            sym = offset[l] + (int) ((code - base[l]) >>> (64 - (l + minLen)));
+            final int len = (symLen[sym] & 0xff) + 1;
+            if (litIdx < len) break;
+            litIdx -= len;
+            code <<= l + minLen;
+            bitCnt += l + minLen;
+            if (bitCnt >= 32) {
+                bitCnt -= 32;
+                code |= TbTable.u32BE(seg, ptr) << bitCnt;
+                ptr += 4;
+            }
+        }
+
+        while (symLen[sym] != 0) {
+            final int s1 = left[sym];
+            final int len = (symLen[s1] & 0xff) + 1;
+            if (litIdx < len) {
+                sym = s1;
+            } else {
+                litIdx -= len;
+                sym = right[sym];
+            }
+        }
+        return left[sym];
+    }
+}
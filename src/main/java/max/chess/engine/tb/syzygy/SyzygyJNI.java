@@ -188,7 +188,7 @@ public final class SyzygyJNI implements EndgameTablebases {
         return extractClasspath("syzygy/3-4-5/Syzygy345");
     }
 
-    private static String extractClasspath(String root) throws IOException {
+    static String extractClasspath(String root) throws IOException {
         ClassLoader cl = Thread.currentThread().getContextClassLoader();
         var url = cl.getResource(root);
         if (url == null) return null;
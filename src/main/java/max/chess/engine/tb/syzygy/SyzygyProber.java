@@ -0,0 +1,263 @@
+package max.chess.engine.tb.syzygy;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import max.chess.engine.movegen.Move;
+import max.chess.engine.utils.PieceUtils;
+
+/**
+ * Per-thread probe state: a stack of positions and move buffers, one per recursion level, so a probe allocates
+ * nothing. Port of {@code probe_wdl}, {@code probe_dtz} and {@code probe_root} of Fathom's tbprobe.c.
+ */
+final class SyzygyProber {
+    private static final int MAX_PLY = 32;
+    private static final int MAX_MOVES = 256;
+    private static final int SCORE_ILLEGAL = Integer.MIN_VALUE;
+
+    private static final int[] WDL_TO_DTZ = {-1, -101, 0, 101, 1};
+
+    final TbPosition[] stack = new TbPosition[MAX_PLY + 2];
+    private final int[][] moves = new int[MAX_PLY + 2][MAX_MOVES];
+    private final int[] scores = new int[MAX_MOVES];
+    final int[] squares = new int[TbTable.MAX_PIECES];
+
+    /** 0: failed ; 1: ok ; 2: (WDL) a capture or en passant decides ; -1: (DTZ) other side to move only. */
+    int success;
+    private Long2ObjectMap<TbTable> tables;
+
+    // set by probeRoot
+    int rootMove;
+    int rootDtz;
+
+    SyzygyProber() {
+        for (int i = 0; i < stack.length; i++) stack[i] = new TbPosition();
+    }
+
+    void use(Long2ObjectMap<TbTable> tables) {
+        this.tables = tables;
+    }
+
+    // ---- tables ----
+
+    private int probeTable(TbPosition pos, int s, int type) {
+        final long key = TbTable.keyOf(pos, false);
+        if (type == TbTable.WDL && key == 0) return 0; // KvK
+        final TbTable t = tables.get(key);
+        if (t == null || (type == TbTable.DTZ && !t.hasDtz())) {
+            success = 0;
+            return 0;
+        }
+        return t.probe(pos, key, s, type, this);
+    }
+
+    // ---- WDL ----
+
+    // Alpha-beta over captures only, for positions without en passant rights
+    private int probeAb(int ply, int alpha, int beta) {
+        final TbPosition pos = stack[ply];
+        final TbPosition next = stack[ply + 1];
+        final int[] list = moves[ply];
+        final int n = pos.genCaptures(list);
+        for (int i = 0; i < n; i++) {
+            final int move = list[i];
+            if (!pos.isCapture(move) || !next.doMove(pos, move)) continue;
+            final int v = -probeAb(ply + 1, -beta, -alpha);
+            if (success == 0) return 0;
+            if (v > alpha) {
+                if (v >= beta) return v;
+                alpha = v;
+            }
+        }
+        final int v = probeTable(pos, 0, TbTable.WDL);
+        return Math.max(alpha, v);
+    }
+
+    /**
+     * WDL of {@code stack[ply]} for the side to move: -2 loss, -1 blessed loss, 0 draw, 1 cursed win, 2 win.
+     * {@link #success} is 2 when a winning capture or an en passant capture is the best move.
+     */
+    int probeWdl(int ply) {
+        success = 1;
+        final TbPosition pos = stack[ply];
+        final TbPosition next = stack[ply + 1];
+        final int[] list = moves[ply];
+
+        // Resolve captures: bestCap is the best capture without en passant, bestEp a better en passant capture
+        int n = pos.genCaptures(list);
+        int bestCap = -3, bestEp = -3;
+        for (int i = 0; i < n; i++) {
+            final int move = list[i];
+            if (!pos.isCapture(move) || !next.doMove(pos, move)) continue;
+            final int v = -probeAb(ply + 1, -2, -bestCap);
+            if (success == 0) return 0;
+            if (v > bestCap) {
+                if (v == 2) {
+                    success = 2;
+                    return 2;
+                }
+                if (!Move.isEnPassant(move)) bestCap = v;
+                else if (v > bestEp) bestEp = v;
+            }
+        }
+
+        final int v = probeTable(pos, 0, TbTable.WDL);
+        if (success == 0) return 0;
+
+        // max(v, bestCap) is the value without en passant rights, bestEp only counts when it is better
+        if (bestEp > bestCap) {
+            if (bestEp > v) {
+                success = 2;
+                return bestEp;
+            }
+            bestCap = bestEp;
+        }
+        if (bestCap >= v) {
+            success = 1 + (bestCap > 0 ? 1 : 0);
+            return bestCap;
+        }
+
+        // The table value is a stalemate when en passant is the only legal move
+        if (bestEp > -3 && v == 0) {
+            n = pos.genMoves(list);
+            int i = 0;
+            for (; i < n; i++) {
+                if (!Move.isEnPassant(list[i]) && next.doMove(pos, list[i])) break;
+            }
+            if (i == n && !pos.isCheck()) {
+                success = 2;
+                return bestEp;
+            }
+        }
+        return v;
+    }
+
+    // ---- DTZ ----
+
+    /**
+     * DTZ of {@code stack[ply]} for the side to move, in plies to a zeroing move, signed by the WDL; beyond
+     * +-100 the result is a cursed win or a blessed loss. May be one ply too far (see Fathom's tbprobe.c).
+     */
+    int probeDtz(int ply) {
+        final int wdl = probeWdl(ply);
+        if (success == 0) return 0;
+        if (wdl == 0) return 0;
+        // a winning capture, or en passant as the only best move
+        if (success == 2) return WDL_TO_DTZ[wdl + 2];
+
+        final TbPosition pos = stack[ply];
+        final TbPosition next = stack[ply + 1];
+        final int[] list = moves[ply];
+        int n = 0;
+
+        // When winning, a pawn move keeping the win zeroes the counter right away
+        if (wdl > 0) {
+            n = pos.genLegal(list, next);
+            for (int i = 0; i < n; i++) {
+                final int move = list[i];
+                if (Move.getPieceType(move) != PieceUtils.PAWN || pos.isCapture(move)) continue;
+                if (!next.doMove(pos, move)) continue;
+                final int v = -probeWdl(ply + 1);
+                if (success == 0) return 0;
+                if (v == wdl) return WDL_TO_DTZ[wdl + 2];
+            }
+        }
+
+        // The best move is not an en passant capture: wdl is the value without en passant rights
+        final int dtz = probeTable(pos, wdl, TbTable.DTZ);
+        if (success >= 0) return WDL_TO_DTZ[wdl + 2] + (wdl > 0 ? dtz : -dtz);
+
+        // The table only stores the other side to move: 1-ply search on the non-zeroing moves
+        int best;
+        if (wdl > 0) {
+            best = Integer.MAX_VALUE;
+        } else {
+            // a losing capture or pawn move gives -1 or -101 (and mate -1)
+            best = WDL_TO_DTZ[wdl + 2];
+            n = pos.genMoves(list);
+        }
+        for (int i = 0; i < n; i++) {
+            final int move = list[i];
+            if (pos.isCapture(move) || Move.getPieceType(move) == PieceUtils.PAWN) continue;
+            if (!next.doMove(pos, move)) continue;
+            final int v = -probeDtz(ply + 1);
+            if (v == 1 && next.isMate(moves[ply + 1], stack[ply + 2])) {
+                best = 1;
+            } else if (wdl > 0) {
+                if (v > 0 && v + 1 < best) best = v + 1;
+            } else {
+                if (v - 1 < best) best = v - 1;
+            }
+            if (success == 0) return 0;
+        }
+        return best;
+    }
+
+    // ---- root ----
+
+    /**
+     * Picks the move of {@code stack[0]} reaching the next zeroing move the fastest while winning, the slowest
+     * while losing, or one keeping the draw. Sets {@link #rootMove} (0 on failure, mate or stalemate) and
+     * {@link #rootDtz}.
+     */
+    void probeRoot() {
+        rootMove = 0;
+        final int dtz = probeDtz(0);
+        if (success == 0) return;
+        rootDtz = dtz;
+
+        final TbPosition pos = stack[0];
+        final TbPosition next = stack[1];
+        final int[] list = moves[0];
+        final int n = pos.genMoves(list);
+        int numDraw = 0;
+        for (int i = 0; i < n; i++) {
+            if (!next.doMove(pos, list[i])) {
+                scores[i] = SCORE_ILLEGAL;
+                continue;
+            }
+            int v;
+            if (dtz > 0 && next.isMate(moves[1], stack[2])) {
+                v = 1;
+            } else if (next.rule50 != 0) {
+                v = -probeDtz(1);
+                if (v > 0) v++;
+                else if (v < 0) v--;
+            } else {
+                v = WDL_TO_DTZ[-probeWdl(1) + 2];
+            }
+            if (success == 0) return;
+            if (v == 0) numDraw++;
+            scores[i] = v;
+        }
+
+        if (dtz > 0) {
+            // winning: the fastest zeroing win
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                final int v = scores[i];
+                if (v != SCORE_ILLEGAL && v > 0 && v < best) {
+                    best = v;
+                    rootMove = list[i];
+                }
+            }
+        } else if (dtz < 0) {
+            // losing: the longest resistance
+            int best = 0;
+            for (int i = 0; i < n; i++) {
+                final int v = scores[i];
+                if (v != SCORE_ILLEGAL && v < best) {
+                    best = v;
+                    rootMove = list[i];
+                }
+            }
+        } else if (numDraw > 0) {
+            // drawing: any drawing move, picked from the material key
+            long count = Long.remainderUnsigned(TbTable.keyOf(pos, !pos.whiteToMove), numDraw);
+            for (int i = 0; i < n; i++) {
+                if (scores[i] == 0 && count-- == 0) {
+                    rootMove = list[i];
+                    break;
+                }
+            }
+        }
+    }
+}
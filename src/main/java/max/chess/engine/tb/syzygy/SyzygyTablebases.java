@@ -0,0 +1,202 @@
+package max.chess.engine.tb.syzygy;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import max.chess.engine.game.Game;
+import max.chess.engine.movegen.MoveGenerator;
+import max.chess.engine.tb.EndgameTablebases;
+import max.chess.engine.tb.TBRootResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.regex.Pattern;
+
+/**
+ * Pure-Java Syzygy provider: reads .rtbw/.rtbz files directly, no native library.
+ * <p>
+ * {@link #configure(String)} takes a directory, several directories separated by {@link File#pathSeparator}, or a
+ * {@code classpath:} root (as {@link SyzygyJNI}); it only lists the tables, each file is mapped on its first
+ * probe. Probes are thread-safe: the tables are immutable once mapped and every thread gets its own
+ * {@link SyzygyProber}. Results follow {@link SyzygyJNI}: WDL 0 (loss) .. 4 (win).
+ */
+public final class SyzygyTablebases implements EndgameTablebases {
+    private static final String DEFAULT_PATH = "syzygy/3-4-5/Syzygy345";
+    private static final Pattern TABLE_NAME = Pattern.compile("K[QRBNP]*vK[QRBNP]*");
+    private static final String PIECE_CHARS = " PNBRQK";
+
+    private static final ThreadLocal<SyzygyProber> PROBERS = ThreadLocal.withInitial(SyzygyProber::new);
+
+    private volatile Long2ObjectMap<TbTable> tables = Long2ObjectMaps.emptyMap();
+    private volatile int maxCardinality = 0;
+    private volatile boolean configured = false;
+    private Arena arena;
+
+    public SyzygyTablebases() {
+        MoveGenerator.warmUp();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        ensureInit();
+        return maxCardinality > 0;
+    }
+
+    @Override
+    public Optional<TBRootResult> probeRoot(Game game, int maxPieces) {
+        final SyzygyProber p = prober(game, maxPieces);
+        if (p == null) return Optional.empty();
+        try {
+            p.probeRoot();
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+        if (p.success == 0 || p.rootMove == 0) return Optional.empty();
+        final int dtz = p.rootDtz;
+        final int rule50 = p.stack[0].rule50;
+        final int wdl;
+        if (dtz > 0) wdl = dtz + rule50 <= 100 ? SyzygyJNI.WDL_WIN : SyzygyJNI.WDL_CURSED_WIN;
+        else if (dtz < 0) wdl = -dtz + rule50 <= 100 ? SyzygyJNI.WDL_LOSS : SyzygyJNI.WDL_BLESSED_LOSS;
+        else wdl = SyzygyJNI.WDL_DRAW;
+        return Optional.of(new TBRootResult(p.rootMove, wdl, Math.abs(dtz)));
+    }
+
+    @Override
+    public OptionalInt probeWDL(Game game, int maxPieces) {
+        final SyzygyProber p = prober(game, maxPieces);
+        if (p == null) return OptionalInt.empty();
+        final int v;
+        try {
+            v = p.probeWdl(0);
+        } catch (RuntimeException e) {
+            return OptionalInt.empty();
+        }
+        if (p.success == 0) return OptionalInt.empty();
+        return OptionalInt.of(v + 2);
+    }
+
+    /** Maps every table and reads it in; a table mapped twice by its two keys is only read once. */
+    @Override
+    public void prefault() {
+        ensureInit();
+        final ReferenceOpenHashSet<TbTable> done = new ReferenceOpenHashSet<>();
+        for (TbTable t : tables.values()) {
+            if (!done.add(t)) continue;
+            try {
+                t.prefault();
+            } catch (RuntimeException e) {
+                return; // tables reconfigured meanwhile
+            }
+        }
+    }
+
+    // The calling thread's prober, loaded with the position; null if the position is out of the tables
+    private SyzygyProber prober(Game game, int maxPieces) {
+        ensureInit();
+        final int pieces = Long.bitCount(game.board().gameBB);
+        if (pieces > Math.min(maxPieces, maxCardinality)) return null;
+        if (game.whiteCanCastleKingSide || game.whiteCanCastleQueenSide
+                || game.blackCanCastleKingSide || game.blackCanCastleQueenSide) return null;
+        final SyzygyProber p = PROBERS.get();
+        p.use(tables);
+        p.stack[0].set(game);
+        return p;
+    }
+
+    private void ensureInit() {
+        if (configured) return;
+        synchronized (this) {
+            if (!configured) configure(System.getProperty("syzygy.path", DEFAULT_PATH));
+        }
+    }
+
+    public synchronized void configure(String pathOrClasspath) {
+        closeTables();
+        configured = true;
+        try {
+            String path = pathOrClasspath;
+            if (path == null || path.isBlank()) path = DEFAULT_PATH;
+            if (path.startsWith("classpath:")) path = SyzygyJNI.extractClasspath(path.substring("classpath:".length()));
+            if (path == null) return;
+
+            final Map<String, Path> wdlFiles = new HashMap<>();
+            final Map<String, Path> dtzFiles = new HashMap<>();
+            for (String dir : path.split(Pattern.quote(File.pathSeparator))) {
+                final Path root = Paths.get(dir.trim());
+                if (!Files.isDirectory(root)) continue;
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(root)) {
+                    for (Path f : files) {
+                        final String file = f.getFileName().toString();
+                        final int dot = file.lastIndexOf('.');
+                        if (dot < 0 || !TABLE_NAME.matcher(file.substring(0, dot)).matches()) continue;
+                        final String suffix = file.substring(dot);
+                        if (suffix.equals(TbTable.SUFFIX[TbTable.WDL])) wdlFiles.putIfAbsent(file.substring(0, dot), f);
+                        else if (suffix.equals(TbTable.SUFFIX[TbTable.DTZ])) dtzFiles.putIfAbsent(file.substring(0, dot), f);
+                    }
+                }
+            }
+
+            final Arena tablesArena = Arena.ofShared();
+            final Long2ObjectOpenHashMap<TbTable> byKey = new Long2ObjectOpenHashMap<>();
+            int cardinality = 0;
+            for (Map.Entry<String, Path> e : wdlFiles.entrySet()) {
+                final String name = e.getKey();
+                final int[] pcs = pieceCounts(name);
+                if (pcs == null) continue;
+                final TbTable t = new TbTable(name, pcs, e.getValue(), dtzFiles.get(name), tablesArena);
+                byKey.put(t.key, t);
+                byKey.put(TbTable.keyOf(pcs, true), t);
+                cardinality = Math.max(cardinality, t.num);
+            }
+            arena = tablesArena;
+            tables = byKey;
+            maxCardinality = cardinality;
+        } catch (IOException | RuntimeException e) {
+            closeTables();
+        }
+    }
+
+    // Piece counts by Fathom code (1..6 white pawn..king, 9..14 black) of a name such as KRPvKR
+    private static int[] pieceCounts(String name) {
+        final int[] pcs = new int[16];
+        int color = 0;
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (c == 'v') {
+                color = 8;
+                continue;
+            }
+            pcs[PIECE_CHARS.indexOf(c) | color]++;
+        }
+        final int n = name.length() - 1;
+        return n > TbTable.MAX_PIECES ? null : pcs;
+    }
+
+    private void closeTables() {
+        tables = Long2ObjectMaps.emptyMap();
+        maxCardinality = 0;
+        if (arena != null) {
+            try {
+                arena.close();
+            } catch (RuntimeException ignored) {
+                // still in use by a probe: left to the GC
+            }
+            arena = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeTables();
+    }
+}
@@ -0,0 +1,229 @@
+package max.chess.engine.tb.syzygy;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.game.board.Board;
+import max.chess.engine.movegen.Move;
+import max.chess.engine.movegen.pieces.Bishop;
+import max.chess.engine.movegen.pieces.King;
+import max.chess.engine.movegen.pieces.Knight;
+import max.chess.engine.movegen.pieces.Pawn;
+import max.chess.engine.movegen.pieces.Rook;
+import max.chess.engine.utils.ColorUtils;
+import max.chess.engine.utils.PieceUtils;
+
+/**
+ * Bitboard position the probe code walks through (captures and the 1-ply DTZ search), copied from the game
+ * once: probing never touches the caller's {@link Game} nor the shared move generator, so probes from several
+ * threads don't interfere. No castling (tables don't have it). Moves use the engine encoding.
+ */
+final class TbPosition {
+    private static final long RANKS_1_8 = 0xFF000000000000FFL;
+
+    long white, black, kings, queens, rooks, bishops, knights, pawns;
+    int rule50;
+    int ep; // 0 when no en passant capture is possible
+    boolean whiteToMove;
+
+    void set(Game game) {
+        final Board b = game.board();
+        white = b.whiteBB;
+        black = b.blackBB;
+        kings = b.kingBB;
+        queens = b.queenBB;
+        rooks = b.rookBB;
+        bishops = b.bishopBB;
+        knights = b.knightBB;
+        pawns = b.pawnBB;
+        rule50 = game.halfMoveClock;
+        whiteToMove = ColorUtils.isWhite(game.currentPlayer);
+        ep = 0;
+        if (b.enPassantIndex > 0 && b.enPassantIndex < 64
+                && (pawnAttacks(b.enPassantIndex, !whiteToMove) & pawns & (whiteToMove ? white : black)) != 0) {
+            ep = b.enPassantIndex;
+        }
+    }
+
+    long pieces(boolean whitePieces, int type) {
+        final long mask = whitePieces ? white : black;
+        return switch (type) {
+            case PieceUtils.PAWN -> pawns & mask;
+            case PieceUtils.KNIGHT -> knights & mask;
+            case PieceUtils.BISHOP -> bishops & mask;
+            case PieceUtils.ROOK -> rooks & mask;
+            case PieceUtils.QUEEN -> queens & mask;
+            default -> kings & mask;
+        };
+    }
+
+    int pieceCount() {
+        return Long.bitCount(white | black);
+    }
+
+    /** All captures, underpromotions included, not checked for legality. */
+    int genCaptures(int[] moves) {
+        return generate(moves, true);
+    }
+
+    /** All moves, not checked for legality. */
+    int genMoves(int[] moves) {
+        return generate(moves, false);
+    }
+
+    /** Legal moves only. */
+    int genLegal(int[] moves, TbPosition scratch) {
+        final int n = genMoves(moves);
+        int legal = 0;
+        for (int i = 0; i < n; i++) {
+            if (scratch.doMove(this, moves[i])) moves[legal++] = moves[i];
+        }
+        return legal;
+    }
+
+    private int generate(int[] moves, boolean capturesOnly) {
+        final long occ = white | black;
+        final long us = whiteToMove ? white : black;
+        final long them = whiteToMove ? black : white;
+        final long targets = capturesOnly ? them : ~us;
+        int n = 0;
+
+        final int king = Long.numberOfTrailingZeros(kings & us);
+        n = add(moves, n, king, King.getAttackBB(king) & targets, PieceUtils.KING);
+        for (long b = us & queens; b != 0; b &= b - 1) {
+            final int from = Long.numberOfTrailingZeros(b);
+            n = add(moves, n, from, (Bishop.getAttackBB(from, occ) | Rook.getAttackBB(from, occ)) & targets, PieceUtils.QUEEN);
+        }
+        for (long b = us & rooks; b != 0; b &= b - 1) {
+            final int from = Long.numberOfTrailingZeros(b);
+            n = add(moves, n, from, Rook.getAttackBB(from, occ) & targets, PieceUtils.ROOK);
+        }
+        for (long b = us & bishops; b != 0; b &= b - 1) {
+            final int from = Long.numberOfTrailingZeros(b);
+            n = add(moves, n, from, Bishop.getAttackBB(from, occ) & targets, PieceUtils.BISHOP);
+        }
+        for (long b = us & knights; b != 0; b &= b - 1) {
+            final int from = Long.numberOfTrailingZeros(b);
+            n = add(moves, n, from, Knight.getAttackBB(from) & targets, PieceUtils.KNIGHT);
+        }
+        for (long b = us & pawns; b != 0; b &= b - 1) {
+            final int from = Long.numberOfTrailingZeros(b);
+            long att = pawnAttacks(from, whiteToMove);
+            if (ep != 0 && (att & (1L << ep)) != 0) moves[n++] = Move.asBytesEnPassant(from, ep);
+            att &= them;
+            if (!capturesOnly) {
+                final int next = whiteToMove ? from + 8 : from - 8;
+                if ((occ & (1L << next)) == 0) {
+                    att |= 1L << next;
+                    final int next2 = whiteToMove ? from + 16 : from - 16;
+                    if ((whiteToMove ? from >>> 3 == 1 : from >>> 3 == 6) && (occ & (1L << next2)) == 0) {
+                        att |= 1L << next2;
+                    }
+                }
+            }
+            for (; att != 0; att &= att - 1) {
+                final int to = Long.numberOfTrailingZeros(att);
+                if (((1L << to) & RANKS_1_8) != 0) {
+                    moves[n++] = Move.asBytes(from, to, PieceUtils.PAWN, PieceUtils.QUEEN);
+                    moves[n++] = Move.asBytes(from, to, PieceUtils.PAWN, PieceUtils.KNIGHT);
+                    moves[n++] = Move.asBytes(from, to, PieceUtils.PAWN, PieceUtils.ROOK);
+                    moves[n++] = Move.asBytes(from, to, PieceUtils.PAWN, PieceUtils.BISHOP);
+                } else {
+                    moves[n++] = Move.asBytes(from, to, PieceUtils.PAWN);
+                }
+            }
+        }
+        return n;
+    }
+
+    private static int add(int[] moves, int n, int from, long targets, byte pieceType) {
+        for (; targets != 0; targets &= targets - 1) {
+            moves[n++] = Move.asBytes(from, Long.numberOfTrailingZeros(targets), pieceType);
+        }
+        return n;
+    }
+
+    boolean isCapture(int move) {
+        return Move.isEnPassant(move) || ((whiteToMove ? black : white) & (1L << Move.getEndPosition(move))) != 0;
+    }
+
+    /** Plays {@code move} from {@code pos} into this position; false if it leaves the mover in check. */
+    boolean doMove(TbPosition pos, int move) {
+        final int from = Move.getStartPosition(move);
+        final int to = Move.getEndPosition(move);
+        final long fromBB = 1L << from, toBB = 1L << to;
+        final byte promo = Move.getPromotion(move);
+
+        whiteToMove = !pos.whiteToMove;
+        white = moveBit(pos.white, fromBB, toBB);
+        black = moveBit(pos.black, fromBB, toBB);
+        kings = moveBit(pos.kings, fromBB, toBB);
+        queens = moveBit(pos.queens, fromBB, toBB);
+        rooks = moveBit(pos.rooks, fromBB, toBB);
+        bishops = moveBit(pos.bishops, fromBB, toBB);
+        knights = moveBit(pos.knights, fromBB, toBB);
+        pawns = moveBit(pos.pawns, fromBB, toBB);
+        ep = 0;
+        if (promo != PieceUtils.NONE) {
+            pawns &= ~toBB;
+            switch (promo) {
+                case PieceUtils.QUEEN -> queens |= toBB;
+                case PieceUtils.ROOK -> rooks |= toBB;
+                case PieceUtils.BISHOP -> bishops |= toBB;
+                default -> knights |= toBB;
+            }
+            rule50 = 0;
+        } else if ((fromBB & pos.pawns) != 0) {
+            rule50 = 0;
+            if (to - from == 16 && (pawnAttacks(from + 8, true) & pos.pawns & pos.black) != 0) {
+                ep = from + 8;
+            } else if (from - to == 16 && (pawnAttacks(from - 8, false) & pos.pawns & pos.white) != 0) {
+                ep = from - 8;
+            } else if (to == pos.ep) {
+                final long captured = ~(1L << (pos.whiteToMove ? to - 8 : to + 8));
+                white &= captured;
+                black &= captured;
+                pawns &= captured;
+            }
+        } else if ((toBB & (pos.white | pos.black)) != 0) {
+            rule50 = 0;
+        } else {
+            rule50 = pos.rule50 + 1;
+        }
+        // the side that just moved may not be in check
+        return !attacked(Long.numberOfTrailingZeros(kings & (whiteToMove ? black : white)), whiteToMove);
+    }
+
+    private static long moveBit(long bb, long fromBB, long toBB) {
+        return (bb & ~toBB & ~fromBB) | ((bb & fromBB) != 0 ? toBB : 0);
+    }
+
+    boolean isCheck() {
+        return attacked(Long.numberOfTrailingZeros(kings & (whiteToMove ? white : black)), !whiteToMove);
+    }
+
+    /** In check with no legal move. */
+    boolean isMate(int[] moves, TbPosition scratch) {
+        if (!isCheck()) return false;
+        final int n = genMoves(moves);
+        for (int i = 0; i < n; i++) {
+            if (scratch.doMove(this, moves[i])) return false;
+        }
+        return true;
+    }
+
+    // Whether 'sq' is attacked by the pieces of the given color
+    private boolean attacked(int sq, boolean byWhite) {
+        final long occ = white | black;
+        final long them = byWhite ? white : black;
+        final long queensThem = queens & them;
+        return (King.getAttackBB(sq) & kings & them) != 0
+                || (Knight.getAttackBB(sq) & knights & them) != 0
+                || (pawnAttacks(sq, !byWhite) & pawns & them) != 0
+                || (Rook.getAttackBB(sq, occ) & (rooks & them | queensThem)) != 0
+                || (Bishop.getAttackBB(sq, occ) & (bishops & them | queensThem)) != 0;
+    }
+
+    // Squares a pawn of the given color on 'sq' attacks
+    private static long pawnAttacks(int sq, boolean whitePawn) {
+        return Pawn.getAttackBB(sq, whitePawn ? ColorUtils.WHITE : ColorUtils.BLACK);
+    }
+}
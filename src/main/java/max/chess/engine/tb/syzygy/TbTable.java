@@ -0,0 +1,355 @@
+package max.chess.engine.tb.syzygy;
+
+import max.chess.engine.tb.syzygy.TbEncoding.EncInfo;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One material signature (e.g. KRPvKR) and its WDL/DTZ files, mapped on first probe.
+ * Port of the table layout and {@code probe_table} of Fathom's tbprobe.c.
+ */
+final class TbTable {
+    static final int MAX_PIECES = 7;
+
+    static final int WDL = 0;
+    static final int DTZ = 1;
+
+    static final String[] SUFFIX = {".rtbw", ".rtbz"};
+    private static final int[] MAGIC = {0x5d23e871, 0xa50c66d7};
+
+    private static final int[] WDL_TO_MAP = {1, 3, 0, 2, 0};
+    private static final int[] PA_FLAGS = {8, 0, 0, 0, 4};
+
+    private static final ValueLayout.OfShort U16 = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt U32 = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt U32_BE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong U64_BE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    final String name;
+    final long key;
+    final int num;
+    final boolean symmetric;
+    final boolean hasPawns;
+    final boolean kkEnc;
+    // leading color first: the side with the fewest (but some) pawns
+    final int[] pawns = new int[2];
+
+    private final Path[] files = new Path[2];
+    private final Arena arena;
+    private volatile Data wdl;
+    private volatile Data dtz;
+    private volatile boolean error;
+
+    /** Mapped file and the decoding parameters of its sub-tables. */
+    private static final class Data {
+        MemorySegment seg;
+        // index t + num * side ; for pawns t is the file of the leading pawn
+        EncInfo[] ei;
+        int[] dtzFlags;
+        long[][] dtzMap; // [t][wdl map] -> offset of the first entry
+    }
+
+    /** {@code pcs} counts pieces by Fathom code: 1..6 white pawn..king, 9..14 black pawn..king. */
+    TbTable(String name, int[] pcs, Path wdlFile, Path dtzFile, Arena arena) {
+        this.name = name;
+        this.arena = arena;
+        this.files[WDL] = wdlFile;
+        this.files[DTZ] = dtzFile;
+        this.key = keyOf(pcs, false);
+        this.symmetric = key == keyOf(pcs, true);
+        this.hasPawns = pcs[1] != 0 || pcs[9] != 0;
+
+        int n = 0, unique = 0;
+        for (int c : pcs) {
+            n += c;
+            if (c == 1) unique++;
+        }
+        this.num = n;
+        this.kkEnc = !hasPawns && unique == 2;
+        if (hasPawns) {
+            pawns[0] = pcs[1];
+            pawns[1] = pcs[9];
+            if (pcs[9] != 0 && (pcs[1] == 0 || pcs[1] > pcs[9])) {
+                pawns[0] = pcs[9];
+                pawns[1] = pcs[1];
+            }
+        }
+    }
+
+    boolean hasDtz() { return files[DTZ] != null; }
+
+    /**
+     * Raw value of the position from table {@code type}: WDL -2..2, or DTZ in plies for a position of WDL {@code s}.
+     * {@code p.success} is set to 0 on failure, to -1 when the DTZ table only stores the other side to move.
+     */
+    int probe(TbPosition pos, long posKey, int s, int type, SyzygyProber p) {
+        if (error) {
+            p.success = 0;
+            return 0;
+        }
+        Data d = type == WDL ? wdl : dtz;
+        if (d == null) {
+            d = load(type);
+            if (d == null) {
+                p.success = 0;
+                return 0;
+            }
+        }
+
+        final boolean flip, bside;
+        if (!symmetric) {
+            flip = posKey != key;
+            bside = pos.whiteToMove == flip;
+        } else {
+            flip = !pos.whiteToMove;
+            bside = false;
+        }
+
+        final int[] sq = p.squares;
+        EncInfo ei;
+        int t = 0;
+        int flags = 0;
+        long idx;
+        if (!hasPawns) {
+            if (type == DTZ) {
+                flags = d.dtzFlags[0];
+                if ((flags & 1) != (bside ? 1 : 0) && !symmetric) {
+                    p.success = -1;
+                    return 0;
+                }
+            }
+            ei = d.ei[type == DTZ || !bside ? 0 : 1];
+            for (int i = 0; i < num; ) i = fillSquares(pos, ei.pieces, flip, 0, sq, i);
+            idx = TbEncoding.encode(sq, ei, this, TbEncoding.PIECE_ENC);
+        } else {
+            final int mirror = flip ? 0x38 : 0;
+            int i = fillSquares(pos, d.ei[0].pieces, flip, mirror, sq, 0);
+            t = TbEncoding.leadingPawn(sq, this);
+            if (type == DTZ) {
+                flags = d.dtzFlags[t];
+                if ((flags & 1) != (bside ? 1 : 0) && !symmetric) {
+                    p.success = -1;
+                    return 0;
+                }
+            }
+            ei = d.ei[type == WDL ? t + 4 * (bside ? 1 : 0) : t];
+            while (i < num) i = fillSquares(pos, ei.pieces, flip, mirror, sq, i);
+            idx = TbEncoding.encode(sq, ei, this, TbEncoding.FILE_ENC);
+        }
+
+        final int w = ei.precomp.value(idx);
+        if (type == WDL) return (w & 0xff) - 2;
+
+        int v = w;
+        if ((flags & 2) != 0) {
+            final long map = d.dtzMap[t][WDL_TO_MAP[s + 2]];
+            v = (flags & 16) == 0 ? u8(d.seg, map + v) : u16(d.seg, map + 2L * v);
+        }
+        if ((flags & PA_FLAGS[s + 2]) == 0 || (s & 1) != 0) v *= 2;
+        return v;
+    }
+
+    // Squares of the pieces of code pc[i] (colors swapped when flipping), consecutive for like pieces
+    private static int fillSquares(TbPosition pos, byte[] pc, boolean flip, int mirror, int[] p, int i) {
+        boolean white = pc[i] < 8;
+        if (flip) white = !white;
+        long bb = pos.pieces(white, pc[i] & 7);
+        do {
+            p[i++] = Long.numberOfTrailingZeros(bb) ^ mirror;
+            bb &= bb - 1;
+        } while (bb != 0);
+        return i;
+    }
+
+    /** Maps both files now if not done yet and reads their pages in. */
+    void prefault() {
+        for (int type = WDL; type <= DTZ; type++) {
+            Data d = type == WDL ? wdl : dtz;
+            if (d == null) d = load(type);
+            if (d != null) d.seg.load();
+        }
+    }
+
+    private synchronized Data load(int type) {
+        Data d = type == WDL ? wdl : dtz;
+        if (d != null || error) return d;
+        try {
+            d = init(type);
+        } catch (IOException | RuntimeException e) {
+            d = null;
+        }
+        if (d == null) {
+            // a missing DTZ file only makes DTZ probes fail
+            if (type == WDL) error = true;
+            return null;
+        }
+        if (type == WDL) wdl = d;
+        else dtz = d;
+        return d;
+    }
+
+    private Data init(int type) throws IOException {
+        final Path file = files[type];
+        if (file == null) return null;
+
+        final MemorySegment seg;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = ch.size();
+            if ((size & 63) != 16) return null; // incomplete file
+            seg = ch.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+        }
+        if (seg.get(U32, 0) != MAGIC[type]) return null;
+
+        final Data d = new Data();
+        d.seg = seg;
+        final boolean split = type != DTZ && (u8(seg, 4) & 0x01) != 0;
+        final int numTables = hasPawns ? 4 : 1;
+        final int enc = hasPawns ? TbEncoding.FILE_ENC : TbEncoding.PIECE_ENC;
+        d.ei = new EncInfo[numTables * (type == DTZ ? 1 : 2)];
+
+        long off = 5;
+        final long[][] tbSize = new long[numTables][2];
+        for (int t = 0; t < numTables; t++) {
+            d.ei[t] = new EncInfo();
+            tbSize[t][0] = TbEncoding.initEncInfo(d.ei[t], this, seg, off, 0, t, enc);
+            if (split) {
+                d.ei[numTables + t] = new EncInfo();
+                tbSize[t][1] = TbEncoding.initEncInfo(d.ei[numTables + t], this, seg, off, 4, t, enc);
+            }
+            off += num + 1 + (hasPawns && pawns[1] != 0 ? 1 : 0);
+        }
+        off += off & 1;
+
+        if (type == DTZ) d.dtzFlags = new int[numTables];
+        for (int t = 0; t < numTables; t++) {
+            final PairsData pd = new PairsData(seg, off, tbSize[t][0], type == WDL);
+            d.ei[t].precomp = pd;
+            off = pd.end;
+            if (type == DTZ) d.dtzFlags[t] = pd.flags;
+            if (split) {
+                final PairsData pd2 = new PairsData(seg, off, tbSize[t][1], type == WDL);
+                d.ei[numTables + t].precomp = pd2;
+                off = pd2.end;
+            }
+        }
+
+        if (type == DTZ) {
+            d.dtzMap = new long[numTables][4];
+            for (int t = 0; t < numTables; t++) {
+                if ((d.dtzFlags[t] & 2) == 0) continue;
+                if ((d.dtzFlags[t] & 16) == 0) {
+                    for (int i = 0; i < 4; i++) {
+                        d.dtzMap[t][i] = off + 1;
+                        off += 1 + u8(seg, off);
+                    }
+                } else {
+                    off += off & 1;
+                    for (int i = 0; i < 4; i++) {
+                        d.dtzMap[t][i] = off + 2;
+                        off += 2 + 2L * u16(seg, off);
+                    }
+                }
+            }
+            off += off & 1;
+        }
+
+        for (int t = 0; t < numTables; t++) {
+            off = place(d.ei[t].precomp, off, 0);
+            if (split) off = place(d.ei[numTables + t].precomp, off, 0);
+        }
+        for (int t = 0; t < numTables; t++) {
+            off = place(d.ei[t].precomp, off, 1);
+            if (split) off = place(d.ei[numTables + t].precomp, off, 1);
+        }
+        for (int t = 0; t < numTables; t++) {
+            off = place(d.ei[t].precomp, (off + 0x3f) & ~0x3fL, 2);
+            if (split) off = place(d.ei[numTables + t].precomp, (off + 0x3f) & ~0x3fL, 2);
+        }
+        return d;
+    }
+
+    // Sets where the index table (0), size table (1) or blocks (2) of a sub-table start; returns their end
+    private static long place(PairsData pd, long off, int part) {
+        switch (part) {
+            case 0 -> { pd.indexTable = off; return off + pd.indexTableSize; }
+            case 1 -> { pd.sizeTable = off; return off + pd.sizeTableSize; }
+            default -> { pd.data = off; return off + pd.dataSize; }
+        }
+    }
+
+    // ---- material keys ----
+
+    private static final long PRIME_WHITE_QUEEN  = 0xA3EC1ABC71E90863L; // 11811845319353239651
+    private static final long PRIME_WHITE_ROOK   = 0x985DEB9FC49333F9L; // 10979190538029446137
+    private static final long PRIME_WHITE_BISHOP = 0xAADC1A2BE446234DL; // 12311744257139811149
+    private static final long PRIME_WHITE_KNIGHT = 0xD2FB81862830191FL; // 15202887380319082783
+    private static final long PRIME_WHITE_PAWN   = 0xEC0ADE190C0F6003L; // 17008651141875982339
+    private static final long PRIME_BLACK_QUEEN  = 0xD6E4E47D24962951L; // 15484752644942473553
+    private static final long PRIME_BLACK_ROOK   = 0xFD7866B439B94495L; // 18264461213049635989
+    private static final long PRIME_BLACK_BISHOP = 0xD5A4C95928F2FBE3L; // 15394650811035483107
+    private static final long PRIME_BLACK_KNIGHT = 0xBAEB854CD3259441L; // 13469005675588064321
+    private static final long PRIME_BLACK_PAWN   = 0xA24F0F571BB202E7L; // 11695583624105689831
+
+    /** Material key of a position; {@code mirror} swaps the colors. KvK is 0. */
+    static long keyOf(TbPosition pos, boolean mirror) {
+        final long white = mirror ? pos.black : pos.white;
+        final long black = mirror ? pos.white : pos.black;
+        return Long.bitCount(white & pos.queens) * PRIME_WHITE_QUEEN
+                + Long.bitCount(white & pos.rooks) * PRIME_WHITE_ROOK
+                + Long.bitCount(white & pos.bishops) * PRIME_WHITE_BISHOP
+                + Long.bitCount(white & pos.knights) * PRIME_WHITE_KNIGHT
+                + Long.bitCount(white & pos.pawns) * PRIME_WHITE_PAWN
+                + Long.bitCount(black & pos.queens) * PRIME_BLACK_QUEEN
+                + Long.bitCount(black & pos.rooks) * PRIME_BLACK_ROOK
+                + Long.bitCount(black & pos.bishops) * PRIME_BLACK_BISHOP
+                + Long.bitCount(black & pos.knights) * PRIME_BLACK_KNIGHT
+                + Long.bitCount(black & pos.pawns) * PRIME_BLACK_PAWN;
+    }
+
+    static long keyOf(int[] pcs, boolean mirror) {
+        final int m = mirror ? 8 : 0;
+        return pcs[5 ^ m] * PRIME_WHITE_QUEEN
+                + pcs[4 ^ m] * PRIME_WHITE_ROOK
+                + pcs[3 ^ m] * PRIME_WHITE_BISHOP
+                + pcs[2 ^ m] * PRIME_WHITE_KNIGHT
+                + pcs[1 ^ m] * PRIME_WHITE_PAWN
+                + pcs[13 ^ m] * PRIME_BLACK_QUEEN
+                + pcs[12 ^ m] * PRIME_BLACK_ROOK
+                + pcs[11 ^ m] * PRIME_BLACK_BISHOP
+                + pcs[10 ^ m] * PRIME_BLACK_KNIGHT
+                + pcs[9 ^ m] * PRIME_BLACK_PAWN;
+    }
+
+    // ---- raw reads; blocks are read 4 bytes past what is decoded, zeros past the end of the file ----
+
+    static int u8(MemorySegment seg, long off) {
+        return seg.get(ValueLayout.JAVA_BYTE, off) & 0xff;
+    }
+
+    static int u16(MemorySegment seg, long off) {
+        return seg.get(U16, off) & 0xffff;
+    }
+
+    static long u32(MemorySegment seg, long off) {
+        return seg.get(U32, off) & 0xffffffffL;
+    }
+
+    static long u32BE(MemorySegment seg, long off) {
+        if (off + 4 <= seg.byteSize()) return seg.get(U32_BE, off) & 0xffffffffL;
+        long v = 0;
+        for (int i = 0; i < 4; i++) v = (v << 8) | (off + i < seg.byteSize() ? u8(seg, off + i) : 0);
+        return v;
+    }
+
+    static long u64BE(MemorySegment seg, long off) {
+        if (off + 8 <= seg.byteSize()) return seg.get(U64_BE, off);
+        return (u32BE(seg, off) << 32) | u32BE(seg, off + 4);
+    }
+}
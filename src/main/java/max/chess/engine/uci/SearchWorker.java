@@ -0,0 +1,148 @@
+package max.chess.engine.uci;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Long-lived search thread owned by {@link UciServer}.
+ *
+ * One thread is started once and parked between searches, so every "go" runs on the
+ * same JIT-warm thread against the same engine (and therefore the same SearchContext).
+ *
+ * Handshake:
+ *  - {@link #start} waits for the previous search to be fully finished, then hands the job over.
+ *  - {@link #stopAndWait} raises the stop flag and blocks until the job has reported its bestmove.
+ *  - Each job reports exactly one bestmove line, even if the engine throws.
+ */
+final class SearchWorker {
+    private final UciEngine engine;
+    private final Consumer<String> send;
+    private final Consumer<String> info;
+
+    private final AtomicBoolean stopFlag = new AtomicBoolean(false);
+    private final Object lock = new Object();
+    private final Thread thread;
+
+    // guarded by lock
+    private UciServer.GoParams pending;
+    private boolean searching;
+    private boolean shutdown;
+
+    SearchWorker(UciEngine engine, Consumer<String> send, Consumer<String> info) {
+        this.engine = Objects.requireNonNull(engine);
+        this.send = Objects.requireNonNull(send);
+        this.info = Objects.requireNonNull(info);
+        this.thread = new Thread(this::loop, "uci-search");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /** Queue a new search. Any running search is stopped and waited for first. */
+    void start(UciServer.GoParams gp) {
+        Objects.requireNonNull(gp);
+        stopAndWait();
+        synchronized (lock) {
+            if (shutdown) return;
+            stopFlag.set(false);
+            pending = gp;
+            searching = true;
+            lock.notifyAll();
+        }
+    }
+
+    /** Request the current search to stop and block until its bestmove has been sent. */
+    void stopAndWait() {
+        synchronized (lock) {
+            if (!searching) return;
+            stopFlag.set(true);
+        }
+        engine.onStopHint();
+        awaitIdle();
+    }
+
+    /** True while a search is queued or running. */
+    boolean isSearching() {
+        synchronized (lock) {
+            return searching;
+        }
+    }
+
+    /** Stop any running search and terminate the worker thread. */
+    void shutdown() {
+        stopAndWait();
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitIdle() {
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (searching) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void loop() {
+        while (true) {
+            UciServer.GoParams gp;
+            synchronized (lock) {
+                while (pending == null && !shutdown) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ignored) {
+                        // only shutdown ends the worker
+                    }
+                }
+                if (pending == null) return; // shutdown with nothing queued
+                gp = pending;
+                pending = null;
+            }
+
+            try {
+                runOne(gp);
+            } finally {
+                synchronized (lock) {
+                    searching = false;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void runOne(UciServer.GoParams gp) {
+        String bestmove = null;
+        String ponder = null;
+        try {
+            UciResult res = engine.search(gp, stopFlag, info);
+            if (res != null) {
+                bestmove = res.bestmove;
+                ponder = res.ponder;
+            }
+        } catch (Throwable t) {
+            send.accept("info string ERROR: " + t.getMessage());
+            t.printStackTrace();
+        }
+        // UCI requires exactly one bestmove per go, whatever happened above
+        if (bestmove == null || bestmove.isEmpty()) {
+            send.accept("bestmove 0000");
+        } else if (ponder != null && !ponder.isEmpty()) {
+            send.accept("bestmove " + bestmove + " ponder " + ponder);
+        } else {
+            send.accept("bestmove " + bestmove);
+        }
+    }
+}
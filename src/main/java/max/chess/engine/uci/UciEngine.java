@@ -30,6 +30,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
         /** Optional hint when GUI sent "stop" (you can set your own flag). */
         default void onStopHint() {}
 
+        /**
+         * "bench [depth] [threads] [hashMb]": fixed-depth search over a built-in position suite.
+         * Values <= 0 mean "engine default".
+         */
+        default void bench(int depth, int threads, int hashMb, java.util.function.Consumer<String> out) {
+            out.accept("info string bench not supported");
+        }
+
         /** Debug hook for "print" command if you want it. */
         default void debugDump(java.util.function.Consumer<String> out) {}
     }
\ No newline at end of file
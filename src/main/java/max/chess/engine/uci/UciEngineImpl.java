@@ -1,10 +1,11 @@
 package max.chess.engine.uci;
 
 import max.chess.engine.book.BookManager;
+import max.chess.engine.book.BookMergePolicy;
 import max.chess.engine.book.BookPolicy;
 import max.chess.engine.game.Game;
 import max.chess.engine.game.board.utils.BoardGenerator;
-import max.chess.engine.movegen.Move;
+import max.chess.engine.search.Bench;
 import max.chess.engine.search.SearchConfig;
 import max.chess.engine.search.SearchFacade;
 import max.chess.engine.search.SearchResult;
@@ -12,12 +13,18 @@ import max.chess.engine.utils.notations.FENUtils;
 import max.chess.engine.utils.notations.MoveIOUtils;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 public class UciEngineImpl implements UciEngine {
     private Game game;
+    // what `game` was built from, for incremental "position" handling
+    private String appliedFen;
+    private final List<String> appliedMoves = new ArrayList<>();
 
     private boolean warmedUp = false;
 
@@ -39,49 +46,41 @@ public class UciEngineImpl implements UciEngine {
     private volatile int tbMaxPieces = 5;
     private volatile boolean tbUseDTZ = true;
     private volatile boolean tbProbeInSearch = false; // default off; enable explicitly when benchmarking it
+    private volatile int tbProbeDepth = 1;
     private volatile String syzygyPath = System.getProperty("syzygy.path", "syzygy/3-4-5/Syzygy345");
 
     private volatile boolean staticEvalOnly = false;
-    public final SearchConfig cfg = new SearchConfig.Builder()
-            .debug(Boolean.parseBoolean(System.getProperty("debug", "false")))
-            .useTT(Boolean.parseBoolean(System.getProperty("tt.enabled", "true")))
-            .ttSizeMb(Integer.parseInt(System.getProperty("tt.size", "64")))
-            .useNullMove(true).nullBaseReduction(2).nullMinDepth(3).nullVerifyDepth(0)
-            .useLMR(true).lmrMinDepth(3).lmrMinMove(4).lmrBase(1).lmrMax(3)
-            .lmrReduceCaptures(false).lmrReduceChecks(false)
-            .lmrNoReduceTTTrusted(true).lmrNoReduceKiller(true)
-            .lmrHistorySkip(4000)
-            .useFutility(true).useExtendedFutility(true).useReverseFutility(true)
-            .futilityMargin1(100).futilityMargin2(200).futilityMargin3(300)
-            .reverseFutilityMargin(100)
-            .useProbCut(Boolean.parseBoolean(System.getProperty("probcut.enabled", "true")))
-            .probCutMinDepth(5)
-            .probCutReduction(2)
-            .probCutMargin(120)
-            .probCutMaxMoves(8)
-            .probCutRequireSEEPositive(true)
-            .probCutVictimMin(max.chess.engine.search.evaluator.PieceValues.ROOK_VALUE)
-            .build();
+    // read the mapped book/TB files in at load time rather than on the first probes
+    private volatile boolean prefaultTables = Boolean.parseBoolean(System.getProperty("prefault.enabled", "false"));
+    public final SearchConfig cfg = searchConfig(Integer.parseInt(System.getProperty("tt.size", "64")));
 
     private final SearchFacade engine = new SearchFacade(cfg);;
 
-    public UciEngineImpl() {
-        // Try default book at startup (doesn't fail if missing)
-        if(ownBook) {
-            try {
-                book.loadAuto(bookFileOrDir);
-            } catch (Throwable ignored) {
-            }
-            syncBookPolicy();
-        }
+    // Book mapping, TB init and warm-ups run on virtual threads; "isready", book/TB options and search wait for them
+    private static final Executor PRELOAD = r -> Thread.ofVirtual().name("preload").start(r);
+    private volatile CompletableFuture<Void> preload;
 
+    public UciEngineImpl() {
         // TB init: look for an implementation via ServiceLoader; falls back to Noop
+        // (the engine only gets the tablebases once the provider is there)
+        CompletableFuture<Void> tbInit = CompletableFuture.completedFuture(null);
         if(useSyzygy) {
-            tb.loadProvider();
-            syncTBPolicy();
+            tbInit = CompletableFuture.runAsync(() -> {
+                tb.loadProvider();
+                syncTBPolicy();
+                if (prefaultTables) tb.prefault();
+            }, PRELOAD);
+        } else {
+            engine.setTablebases(tb, tbProbeInSearch);
         }
 
-        engine.setTablebases(tb, tbProbeInSearch);
+        // Try default book at startup (doesn't fail if missing)
+        CompletableFuture<Void> bookInit = CompletableFuture.completedFuture(null);
+        if(ownBook) {
+            bookInit = CompletableFuture.runAsync(this::loadBook, PRELOAD);
+        }
+
+        preload = CompletableFuture.allOf(tbInit, bookInit, CompletableFuture.runAsync(SearchFacade::warmUp, PRELOAD));
     }
 
     static {
@@ -90,35 +89,46 @@ public class UciEngineImpl implements UciEngine {
 
     @Override
     public void newGame() {
+        appliedFen = null; // force a full rebuild on the next "position"
+        appliedMoves.clear();
         pliesPlayed = 0;
         book.setPliesPlayed(0);
     }
 
     @Override
     public void onIsReady() {
+        awaitPreload();
         UciEngine.super.onIsReady();
     }
 
     @Override
     public void setOption(String name, String value) {
+        awaitPreload(); // options touch the book and TB the preload is still setting up
         switch (name.toLowerCase()) {
             case "staticevalonly" -> { staticEvalOnly = Boolean.parseBoolean(value); }
+            case "prefaulttables" -> { prefaultTables = Boolean.parseBoolean(value); }
             // Book options
             case "ownbook" -> { ownBook = Boolean.parseBoolean(value); book.setEnabled(ownBook); }
             case "bookfile" -> {
                 bookFileOrDir = value;
-                try { book.loadAuto(bookFileOrDir); } catch (Exception ignored) {}
+                preload = CompletableFuture.runAsync(this::loadBook, PRELOAD);
             }
             case "bookmaxplies" -> { bookMaxPlies = clampInt(value, 0, 200, 20); syncBookPolicy(); }
             case "bookminweight" -> { bookMinWeight = clampInt(value, 0, 65535, 2); syncBookPolicy(); }
             case "bookrandomness" -> { bookRandomness = clampInt(value, 0, 100, 15); syncBookPolicy(); }
             case "bookprefermainline" -> { bookPreferMainline = Boolean.parseBoolean(value); syncBookPolicy(); }
+            case "bookmerge" -> book.setMergePolicy(BookMergePolicy.parse(value, BookMergePolicy.FIRST_HIT));
             // TB options
             case "usesyzygy" -> { useSyzygy = Boolean.parseBoolean(value); syncTBPolicy(); }
             case "syzygymaxpieces" -> { tbMaxPieces = clampInt(value, 0, 7, 5); syncTBPolicy(); }
             case "syzygyusedtz" -> { tbUseDTZ = Boolean.parseBoolean(value); syncTBPolicy(); }
             case "syzygyprobeinsearch" -> { tbProbeInSearch = Boolean.parseBoolean(value); syncTBPolicy(); }
-            case "syzygypath" -> { syzygyPath = value; syncTBPolicy(); }
+            case "syzygyprobedepth" -> { tbProbeDepth = clampInt(value, 0, 100, 1); tb.setProbeDepth(tbProbeDepth); }
+            case "syzygypath" -> {
+                syzygyPath = value;
+                syncTBPolicy();
+                if (useSyzygy && prefaultTables) preload = CompletableFuture.runAsync(tb::prefault, PRELOAD);
+            }
 
             default -> { /* pass through */ }
         }
@@ -132,17 +142,41 @@ public class UciEngineImpl implements UciEngine {
 
     @Override
     public void setPositionFEN(String fen, List<String> uciMoves) {
-        game = FENUtils.getBoardFrom(fen);
-        uciMoves.forEach(move -> game.playSimpleMove(Move.fromAlgebraicNotation(move)));
+        // GUIs resend the whole game on every move: when the new command only extends the
+        // previous one, keep the current Game and play the new tail instead of re-parsing everything.
+        int from = appliedMoves.size();
+        if (game == null || !fen.equals(appliedFen) || !extendsAppliedMoves(uciMoves)) {
+            game = FENUtils.getBoardFrom(fen);
+            appliedFen = fen;
+            appliedMoves.clear();
+            from = 0;
+        }
+        for (int i = from, n = uciMoves.size(); i < n; i++) {
+            String uci = uciMoves.get(i);
+            int move = MoveIOUtils.parseUciMove(game, uci);
+            if (move == 0) throw new IllegalArgumentException("Cannot parse UCI move " + uci);
+            game.commitMove(move); // recorded in the game history, for repetitions
+            appliedMoves.add(uci);
+        }
         pliesPlayed = uciMoves.size();
         book.setPliesPlayed(pliesPlayed);
     }
 
+    private boolean extendsAppliedMoves(List<String> uciMoves) {
+        final int n = appliedMoves.size();
+        if (uciMoves.size() < n) return false;
+        for (int i = n - 1; i >= 0; i--) { // most recent moves are the likeliest to differ
+            if (!appliedMoves.get(i).equals(uciMoves.get(i))) return false;
+        }
+        return true;
+    }
+
     @Override
     public UciResult search(UciServer.GoParams go, AtomicBoolean stopFlag, Consumer<String> infoSink) {
         if (game == null) {
             return UciResult.best("0000");
         }
+        awaitPreload();
 
         // --------------------- BOOK PROBE ---------------------------
         if (ownBook) {
@@ -167,8 +201,8 @@ public class UciEngineImpl implements UciEngine {
         }
 
         go.staticEvalOnly = staticEvalOnly;
+        // per-depth info lines (incl. the final one) are emitted by the search itself
         SearchResult searchResult = engine.findBestMove(game, stopFlag, go, infoSink);
-        infoSink.accept(searchResult.toUCIInfo());
         return UciResult.best(MoveIOUtils.writeAlgebraicNotation(searchResult.move()));
     }
 
@@ -183,11 +217,63 @@ public class UciEngineImpl implements UciEngine {
     }
 
 
+    @Override
+    public void bench(int depth, int threads, int hashMb, Consumer<String> out) {
+        if (threads > 1) {
+            out.accept("info string bench: search is single-threaded, ignoring threads " + threads);
+        }
+        int d = depth > 0 ? depth : Bench.DEFAULT_DEPTH;
+        int mb = hashMb > 0 ? hashMb : Bench.DEFAULT_HASH_MB;
+        // own SearchConfig/SearchFacade: the game's TT and heuristics are left untouched
+        Bench.run(searchConfig(mb), d, out);
+    }
+
+    /** The engine's search settings; also used by bench with its own TT size. */
+    static SearchConfig searchConfig(int ttSizeMb) {
+        return new SearchConfig.Builder()
+                .debug(Boolean.parseBoolean(System.getProperty("debug", "false")))
+                .useTT(Boolean.parseBoolean(System.getProperty("tt.enabled", "true")))
+                .ttSizeMb(ttSizeMb)
+                .useNullMove(true).nullBaseReduction(2).nullMinDepth(3).nullVerifyDepth(0)
+                .useLMR(true).lmrMinDepth(3).lmrMinMove(4).lmrBase(1).lmrMax(3)
+                .lmrReduceCaptures(false).lmrReduceChecks(false)
+                .lmrNoReduceTTTrusted(true).lmrNoReduceKiller(true)
+                .lmrHistorySkip(4000)
+                .useFutility(true).useExtendedFutility(true).useReverseFutility(true)
+                .futilityMargin1(100).futilityMargin2(200).futilityMargin3(300)
+                .reverseFutilityMargin(100)
+                .useProbCut(Boolean.parseBoolean(System.getProperty("probcut.enabled", "true")))
+                .probCutMinDepth(5)
+                .probCutReduction(2)
+                .probCutMargin(120)
+                .probCutMaxMoves(8)
+                .probCutRequireSEEPositive(true)
+                .probCutVictimMin(max.chess.engine.search.evaluator.PieceValues.ROOK_VALUE)
+                .build();
+    }
+
     private static int clampInt(String s, int lo, int hi, int dflt) {
         try { int v = Integer.parseInt(s); return Math.min(hi, Math.max(lo, v)); }
         catch (Exception ignored) { return dflt; }
     }
 
+    private void loadBook() {
+        try {
+            book.loadAuto(bookFileOrDir);
+            if (prefaultTables) book.prefault();
+        } catch (Throwable ignored) {
+        }
+        syncBookPolicy();
+    }
+
+    private void awaitPreload() {
+        try {
+            preload.join();
+        } catch (RuntimeException ignored) {
+            // each step swallows its own failures; nothing is left to wait for
+        }
+    }
+
     private void syncBookPolicy() {
         book.setPolicy(new BookPolicy(bookMaxPlies, bookMinWeight, bookRandomness, bookPreferMainline));
         book.setEnabled(ownBook);
@@ -197,6 +283,7 @@ public class UciEngineImpl implements UciEngine {
         tb.setEnabled(useSyzygy);
         tb.setMaxPieces(tbMaxPieces);
         tb.setUseDTZ(tbUseDTZ);
+        tb.setProbeDepth(tbProbeDepth);
         tb.setPath(syzygyPath);
 
         // If disabled, hide TB entirely from the search context
@@ -0,0 +1,102 @@
+package max.chess.engine.uci;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous UCI output stage.
+ *
+ * Producers (the UCI loop and the search worker) only enqueue lines into a bounded queue;
+ * a single writer thread drains it in batches and flushes stdout once per batch.
+ *
+ * - {@link #info} never blocks: if the GUI reads so slowly that the queue is full, the line is dropped.
+ * - {@link #send} is for protocol lines (uciok, readyok, bestmove...) that must not be lost;
+ *   it only waits if the queue is full.
+ */
+final class UciOutput implements AutoCloseable {
+    private static final int CAPACITY = 1024;
+    private static final int BATCH = 64;
+
+    private final ArrayBlockingQueue<String> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Writer out;
+    private final Thread writer;
+    private volatile boolean closed;
+    private final AtomicLong dropped = new AtomicLong();
+
+    UciOutput(OutputStream os) {
+        this.out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.US_ASCII), 1 << 14);
+        this.writer = new Thread(this::drainLoop, "uci-output");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /** Enqueue a line that must reach the GUI. */
+    void send(String line) {
+        if (closed) return;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(line);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /** Enqueue an informational line; dropped instead of blocking when the queue is full. */
+    void info(String line) {
+        if (closed) return;
+        if (!queue.offer(line)) dropped.incrementAndGet();
+    }
+
+    /** Number of info lines dropped because the GUI did not keep up. */
+    long dropped() { return dropped.get(); }
+
+    /** Flush everything already queued and stop the writer thread. */
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        final ArrayList<String> batch = new ArrayList<>(BATCH);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                String first;
+                try {
+                    first = queue.poll(50, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    continue; // re-check closed; remaining lines are still drained
+                }
+                if (first == null) continue;
+                out.write(first);
+                out.write('\n');
+                queue.drainTo(batch, BATCH);
+                for (int i = 0, n = batch.size(); i < n; i++) {
+                    out.write(batch.get(i));
+                    out.write('\n');
+                }
+                batch.clear();
+                out.flush();
+            }
+        } catch (IOException e) {
+            // GUI closed the pipe; nothing left to talk to
+        }
+    }
+}
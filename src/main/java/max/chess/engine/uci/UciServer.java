@@ -1,11 +1,8 @@
 package max.chess.engine.uci;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
@@ -22,17 +19,17 @@ public final class UciServer {
     private final String author;
     private final UciEngine engine;
 
-    private final PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII)), true);
+    private final UciOutput out = new UciOutput(System.out);
     private final BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
 
-    private Thread searchThread;
-    private final AtomicBoolean stopFlag = new AtomicBoolean(false);
+    private final SearchWorker worker;
     private volatile GoParams lastGo; // in case you care about ponderhit semantics
 
     public UciServer(String name, String author, UciEngine engine) {
         this.name = Objects.requireNonNull(name);
         this.author = Objects.requireNonNull(author);
         this.engine = Objects.requireNonNull(engine);
+        this.worker = new SearchWorker(engine, this::send, this::sendInfo);
     }
 
     /** Run the UCI loop on the current thread. */
@@ -54,8 +51,10 @@ public final class UciServer {
                 } else if (line.startsWith("setoption")) {
                     handleSetOption(line);
                 } else if (line.equals("ucinewgame")) {
+                    requestStopAndJoin(); // never reset state under a running search
                     engine.newGame();
                 } else if (line.startsWith("position")) {
+                    requestStopAndJoin();
                     handlePosition(line);
                 } else if (line.startsWith("go")) {
                     handleGo(line);
@@ -66,8 +65,10 @@ public final class UciServer {
                     GoParams lg = lastGo;
                     if (lg != null) lg.ponderHit.set(true);
                 } else if (line.equals("quit")) {
-                    requestStopAndJoin();
                     break;
+                } else if (line.equals("bench") || line.startsWith("bench ")) {
+                    requestStopAndJoin();
+                    handleBench(line);
                 } else if (line.equals("print")) { // handy debug
                     engine.debugDump(this::send);
                 } else {
@@ -76,6 +77,9 @@ public final class UciServer {
             }
         } catch (IOException e) {
             // exit silently; GUIs sometimes close pipes abruptly
+        } finally {
+            worker.shutdown();
+            out.close(); // flushes the final bestmove before we exit
         }
     }
 
@@ -151,29 +155,17 @@ public final class UciServer {
     private void handleGo(String line) {
         GoParams gp = parseGo(line);
         lastGo = gp;
-        requestStopAndJoin(); // ensure no previous search running
-        stopFlag.set(false);
-        searchThread = new Thread(() -> {
-            try {
-                UciResult res = engine.search(gp, stopFlag, this::sendInfo);
-                if (res == null || res.bestmove == null || res.bestmove.isEmpty()) {
-                    // UCI requires bestmove anyway
-                    send("bestmove 0000");
-                } else {
-                    if (res.ponder != null && !res.ponder.isEmpty())
-                        send("bestmove " + res.bestmove + " ponder " + res.ponder);
-                    else
-                        send("bestmove " + res.bestmove);
-                }
-            } catch (Throwable t) {
-                send("string info ERROR: "+t.getMessage());
-                t.printStackTrace();
-                // As a last resort, don't crash the GUI
-                send("bestmove 0000");
-            }
-        }, "uci-search");
-        searchThread.setDaemon(true);
-        searchThread.start();
+        // the worker stops and fully joins any previous search before starting this one
+        worker.start(gp);
+    }
+
+    private void handleBench(String line) {
+        // bench [depth] [threads] [hashMb]; runs on the UCI thread, like perft-style debug commands
+        String[] t = line.split("\\s+");
+        int depth = t.length > 1 ? (int) parseLong(t, 1) : 0;
+        int threads = t.length > 2 ? (int) parseLong(t, 2) : 1;
+        int hashMb = t.length > 3 ? (int) parseLong(t, 3) : 0;
+        engine.bench(depth, threads, hashMb, this::send);
     }
 
     private GoParams parseGo(String line) {
@@ -206,24 +198,19 @@ public final class UciServer {
     /* -------------------- lifecycle helpers -------------------- */
 
     private void requestStopAndJoin() {
-        Thread t = searchThread;
-        if (t != null && t.isAlive()) {
-            stopFlag.set(true);
-            engine.onStopHint(); // optional hook to nudge your search
-            try { t.join(100); } catch (InterruptedException ignored) {}
-        }
+        worker.stopAndWait();
     }
 
-    private synchronized void send(String line) {
-        out.println(line);
-        out.flush();
+    private void send(String line) {
+        out.send(line);
     }
 
+    /** Info lines never block the search thread; they are dropped if the GUI stops reading. */
     private void sendInfo(String infoLine) {
         if (infoLine == null || infoLine.isEmpty()) return;
         // Ensure the line already starts with "info"; your engine should format it
-        if (!infoLine.startsWith("info")) send("info " + infoLine);
-        else send(infoLine);
+        if (!infoLine.startsWith("info")) out.info("info " + infoLine);
+        else out.info(infoLine);
     }
 
     /* -------------------- types you implement -------------------- */
@@ -37,6 +37,23 @@ public class PieceUtils {
     public static byte toPieceCode(int code) { return (byte) (code & PIECE_TYPE_MASK); }
     public static byte toColor(int code) { return (byte) (code & COLOR_MASK); }
 
+    // Index into Board.pieceBB: white pieces 0..5, black pieces 6..11 (branchless on the sign of the color)
+    public static int pieceIndex(int pieceType, int color) {
+        return (pieceType - 1) + (6 & (color >> 31));
+    }
+
+    // 4-bit square code of Board.pieceAt: piece type in bits 0-2, color bit set for black
+    public static int squareCode(int pieceType, int color) {
+        return pieceType | (COLOR_MASK & (color >> 31));
+    }
+
+    public static int squareColor(int squareCode) {
+        if(squareCode == NONE) {
+            return 0;
+        }
+        return (squareCode & COLOR_MASK) != 0 ? ColorUtils.BLACK : ColorUtils.WHITE;
+    }
+
     public static byte encode(byte piece, byte color) {
         return (byte) (color << 3 | piece);
     }
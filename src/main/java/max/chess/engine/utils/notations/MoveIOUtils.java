@@ -4,8 +4,17 @@ import max.chess.engine.common.PieceType;
 import max.chess.engine.common.Position;
 import max.chess.engine.utils.PieceUtils;
 import max.chess.engine.game.board.utils.BoardUtils;
+import max.chess.engine.game.Game;
+import max.chess.engine.game.board.Board;
 import max.chess.engine.game.board.MovePlayed;
 import max.chess.engine.movegen.Move;
+import max.chess.engine.movegen.MoveGenerator;
+import max.chess.engine.movegen.pieces.Bishop;
+import max.chess.engine.movegen.pieces.King;
+import max.chess.engine.movegen.pieces.Knight;
+import max.chess.engine.movegen.pieces.Rook;
+import max.chess.engine.movegen.utils.OrthogonalMoveUtils;
+import max.chess.engine.utils.ColorUtils;
 
 import java.util.Arrays;
 import java.util.List;
@@ -29,15 +38,263 @@ public class MoveIOUtils {
         return algebraicNotationLetter+initialPosition+take+targetPosition+promotion+enPassant+checkInfo;
     }
 
+    /** UCI long algebraic notation, promotion in lowercase (e.g. e7e8q): see {@link #appendUci}. */
     public static String writeAlgebraicNotation(Move move) {
-        String initialPosition = getSquareFromPosition(Position.of(move.startPosition()));
-        String targetPosition = getSquareFromPosition(Position.of(move.endPosition()));
-        String promotedPiece = move.promotion() == PieceUtils.NONE ? "" : getAlgebraicNotationLetter(PieceUtils.toPieceType(move.promotion()));
-        return initialPosition+targetPosition+promotedPiece;
+        return writeAlgebraicNotation(Move.asBytes(move.startPosition(), move.endPosition(), PieceUtils.NONE, move.promotion()));
     }
 
     public static String writeAlgebraicNotation(int move) {
-        return writeAlgebraicNotation(Move.fromBytes(move));
+        return appendUci(new StringBuilder(5), move).toString();
+    }
+
+    /**
+     * Append a packed move in UCI long algebraic notation (e.g. e2e4, e7e8q) without
+     * allocating intermediate strings. Used by the search info reporter, and behind
+     * {@link #writeAlgebraicNotation(int)} for the best move, book and tablebase moves.
+     */
+    public static StringBuilder appendUci(StringBuilder sb, int move) {
+        if (move == 0) return sb.append("0000");
+        final int from = Move.getStartPosition(move);
+        final int to = Move.getEndPosition(move);
+        sb.append((char) ('a' + (from & 7))).append((char) ('1' + (from >>> 3)))
+          .append((char) ('a' + (to & 7))).append((char) ('1' + (to >>> 3)));
+        switch (Move.getPromotion(move)) {
+            case PieceUtils.KNIGHT -> sb.append('n');
+            case PieceUtils.BISHOP -> sb.append('b');
+            case PieceUtils.ROOK -> sb.append('r');
+            case PieceUtils.QUEEN -> sb.append('q');
+            default -> { }
+        }
+        return sb;
+    }
+
+    /**
+     * Parse a UCI move (e.g. e2e4, e1g1, e7e8q) straight into the packed int encoding used by
+     * {@link max.chess.engine.game.Game#playMove(int)}, filling the piece type and the castle /
+     * en-passant flags from the current position. Allocation-free.
+     *
+     * @return the packed move, or 0 if the text is malformed or the origin square is empty
+     */
+    public static int parseUciMove(Game game, CharSequence uci) {
+        final int len = uci.length();
+        if (len < 4 || len > 5) return 0;
+        final int from = parseSquare(uci.charAt(0), uci.charAt(1));
+        final int to = parseSquare(uci.charAt(2), uci.charAt(3));
+        if (from < 0 || to < 0) return 0;
+
+        byte promotion = PieceUtils.NONE;
+        if (len == 5) {
+            promotion = switch (uci.charAt(4)) {
+                case 'n', 'N' -> PieceUtils.KNIGHT;
+                case 'b', 'B' -> PieceUtils.BISHOP;
+                case 'r', 'R' -> PieceUtils.ROOK;
+                case 'q', 'Q' -> PieceUtils.QUEEN;
+                default -> PieceUtils.NONE;
+            };
+            if (promotion == PieceUtils.NONE) return 0;
+        }
+        return resolveMove(game, from, to, promotion);
+    }
+
+    /**
+     * Packed move from its squares and promotion piece, with the piece type and the castle / en-passant flags read
+     * from the current position; the promotion is ignored for pieces other than pawns. Legality is not checked.
+     * Allocation-free.
+     *
+     * @return the packed move, or 0 if the origin square is empty
+     */
+    public static int resolveMove(Game game, int from, int to, byte promotion) {
+        final Board board = game.board();
+        final byte pieceType = board.getPieceTypeAt(from);
+        if (pieceType == PieceUtils.NONE) return 0;
+
+        if (pieceType == PieceUtils.KING) {
+            if (from == 4 && to == 6) return Move.CASTLE_KING_SIDE_WHITE_MOVE;
+            if (from == 4 && to == 2) return Move.CASTLE_QUEEN_SIDE_WHITE_MOVE;
+            if (from == 60 && to == 62) return Move.CASTLE_KING_SIDE_BLACK_MOVE;
+            if (from == 60 && to == 58) return Move.CASTLE_QUEEN_SIDE_BLACK_MOVE;
+        }
+
+        if (pieceType == PieceUtils.PAWN) {
+            if (promotion != PieceUtils.NONE) return Move.asBytes(from, to, pieceType, promotion);
+            // diagonal step onto an empty square can only be en passant
+            if ((from & 7) != (to & 7) && board.getPieceTypeAt(to) == PieceUtils.NONE) {
+                return Move.asBytesEnPassant(from, to);
+            }
+        }
+        return Move.asBytes(from, to, pieceType);
+    }
+
+    /**
+     * Parse a SAN move (e.g. e4, Nbd7, exd5, O-O, e8=Q+) into the packed int encoding. The origin is resolved
+     * from the pieces that reach the target square, each candidate checked with
+     * {@link MoveGenerator#isLegal}: no move list is generated. Allocation-free.
+     *
+     * @return the packed move, or 0 if the text is malformed, illegal or ambiguous
+     */
+    public static int parseSanMove(Game game, CharSequence san) {
+        int len = san.length();
+        while (len > 0 && "+#!?".indexOf(san.charAt(len - 1)) >= 0) len--;
+        if (len < 2) return 0;
+
+        final boolean white = ColorUtils.isWhite(game.currentPlayer);
+        final char first = san.charAt(0);
+        if (first == 'O' || first == '0') {
+            final int castle;
+            if (len == 5) castle = white ? Move.CASTLE_QUEEN_SIDE_WHITE_MOVE : Move.CASTLE_QUEEN_SIDE_BLACK_MOVE;
+            else if (len == 3) castle = white ? Move.CASTLE_KING_SIDE_WHITE_MOVE : Move.CASTLE_KING_SIDE_BLACK_MOVE;
+            else return 0;
+            return MoveGenerator.isLegal(game, castle) ? castle : 0;
+        }
+
+        int start = 0;
+        byte pieceType = PieceUtils.PAWN;
+        switch (first) {
+            case 'N' -> pieceType = PieceUtils.KNIGHT;
+            case 'B' -> pieceType = PieceUtils.BISHOP;
+            case 'R' -> pieceType = PieceUtils.ROOK;
+            case 'Q' -> pieceType = PieceUtils.QUEEN;
+            case 'K' -> pieceType = PieceUtils.KING;
+            default -> { }
+        }
+        if (pieceType != PieceUtils.PAWN) start = 1;
+
+        byte promotion = PieceUtils.NONE;
+        if (pieceType == PieceUtils.PAWN) {
+            promotion = switch (san.charAt(len - 1)) {
+                case 'N', 'n' -> PieceUtils.KNIGHT;
+                case 'B' -> PieceUtils.BISHOP;    // 'b' is a file
+                case 'R', 'r' -> PieceUtils.ROOK;
+                case 'Q', 'q' -> PieceUtils.QUEEN;
+                default -> PieceUtils.NONE;
+            };
+            if (promotion != PieceUtils.NONE) {
+                len--;
+                if (len > 0 && san.charAt(len - 1) == '=') len--;
+            }
+        }
+        if (len - start < 2) return 0;
+        final int to = parseSquare(san.charAt(len - 2), san.charAt(len - 1));
+        if (to < 0) return 0;
+
+        // disambiguation between the piece letter and the target: file, rank or both, and 'x'
+        int fromFile = -1, fromRank = -1;
+        for (int i = start; i < len - 2; i++) {
+            final char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') fromFile = c - 'a';
+            else if (c >= '1' && c <= '8') fromRank = c - '1';
+            else if (c != 'x' && c != ':' && c != '-') return 0;
+        }
+
+        final Board board = game.board();
+        long fromBB;
+        if (pieceType == PieceUtils.PAWN) {
+            final int back = white ? -8 : 8;
+            if (fromFile >= 0 && fromFile != (to & 7)) {
+                if (Math.abs(fromFile - (to & 7)) != 1 || to + back < 0 || to + back > 63) return 0;
+                final int from = ((to + back) & ~7) | fromFile;
+                if (to == board.enPassantIndex) {
+                    final int ep = Move.asBytesEnPassant(from, to);
+                    return MoveGenerator.isLegal(game, ep) ? ep : 0;
+                }
+                fromBB = 1L << from;
+            } else {
+                // single push, else double push through an empty square
+                final int one = to + back;
+                if (one < 0 || one > 63) return 0;
+                fromBB = board.getPieceTypeAt(one) != PieceUtils.NONE || one + back < 0 || one + back > 63
+                        ? 1L << one
+                        : 1L << (one + back);
+            }
+        } else {
+            fromBB = switch (pieceType) {
+                case PieceUtils.KNIGHT -> Knight.getAttackBB(to);
+                case PieceUtils.BISHOP -> Bishop.getAttackBB(to, board.gameBB);
+                case PieceUtils.ROOK -> Rook.getAttackBB(to, board.gameBB);
+                case PieceUtils.QUEEN -> Bishop.getAttackBB(to, board.gameBB) | Rook.getAttackBB(to, board.gameBB);
+                default -> King.getAttackBB(to);
+            };
+        }
+        fromBB &= board.piecesBB(pieceType, game.currentPlayer);
+        if (fromFile >= 0 && pieceType != PieceUtils.PAWN) fromBB &= OrthogonalMoveUtils.FILES[fromFile];
+        if (fromRank >= 0) fromBB &= 0xFFL << (fromRank << 3);
+
+        int found = 0;
+        while (fromBB != 0) {
+            final int from = Long.numberOfTrailingZeros(fromBB);
+            fromBB &= fromBB - 1;
+            final int move = Move.asBytes(from, to, pieceType, promotion);
+            if (!MoveGenerator.isLegal(game, move)) continue;
+            if (found != 0) return 0; // ambiguous
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * Append a legal packed move in SAN (e.g. Nbd7, exd6, e8=Q+, O-O#) for the current position, the inverse of
+     * {@link #parseSanMove}. Other pieces reaching the target are checked with {@link MoveGenerator#isLegal} for
+     * the disambiguation; only a checking move is played (and undone) to tell check from mate.
+     */
+    public static StringBuilder appendSan(StringBuilder sb, Game game, int move) {
+        final int from = Move.getStartPosition(move);
+        final int to = Move.getEndPosition(move);
+        final byte pieceType = Move.getPieceType(move);
+        final Board board = game.board();
+
+        if (Move.isCastleKingSide(move)) {
+            sb.append("O-O");
+        } else if (Move.isCastleQueenSide(move)) {
+            sb.append("O-O-O");
+        } else {
+            final boolean capture = Move.isEnPassant(move) || board.getPieceTypeAt(to) != PieceUtils.NONE;
+            if (pieceType == PieceUtils.PAWN) {
+                if (capture) sb.append((char) ('a' + (from & 7)));
+            } else {
+                sb.append(getAlgebraicNotationLetter(PieceUtils.toPieceType(pieceType)));
+                long others = switch (pieceType) {
+                    case PieceUtils.KNIGHT -> Knight.getAttackBB(to);
+                    case PieceUtils.BISHOP -> Bishop.getAttackBB(to, board.gameBB);
+                    case PieceUtils.ROOK -> Rook.getAttackBB(to, board.gameBB);
+                    case PieceUtils.QUEEN -> Bishop.getAttackBB(to, board.gameBB) | Rook.getAttackBB(to, board.gameBB);
+                    default -> 0L;
+                };
+                others &= board.piecesBB(pieceType, game.currentPlayer) & ~(1L << from);
+                boolean ambiguous = false, sameFile = false, sameRank = false;
+                while (others != 0) {
+                    final int other = Long.numberOfTrailingZeros(others);
+                    others &= others - 1;
+                    if (!MoveGenerator.isLegal(game, Move.asBytes(other, to, pieceType))) continue;
+                    ambiguous = true;
+                    sameFile |= (other & 7) == (from & 7);
+                    sameRank |= (other >>> 3) == (from >>> 3);
+                }
+                if (ambiguous) {
+                    if (!sameFile) sb.append((char) ('a' + (from & 7)));
+                    else if (!sameRank) sb.append((char) ('1' + (from >>> 3)));
+                    else sb.append((char) ('a' + (from & 7))).append((char) ('1' + (from >>> 3)));
+                }
+            }
+            if (capture) sb.append('x');
+            sb.append((char) ('a' + (to & 7))).append((char) ('1' + (to >>> 3)));
+            final byte promotion = Move.getPromotion(move);
+            if (promotion != PieceUtils.NONE) {
+                sb.append('=').append(getAlgebraicNotationLetter(PieceUtils.toPieceType(promotion)));
+            }
+        }
+
+        if (MoveGenerator.givesCheck(game, move)) {
+            final long changes = game.playMove(move);
+            final boolean mate = game.getLegalMovesCount(true) == 0;
+            game.undoMove(changes);
+            sb.append(mate ? '#' : '+');
+        }
+        return sb;
+    }
+
+    private static int parseSquare(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') return -1;
+        return ((rank - '1') << 3) | (file - 'a');
     }
 
     private static String getAlgebraicNotationLetter(PieceType pieceType) {
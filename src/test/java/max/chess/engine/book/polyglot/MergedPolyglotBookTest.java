@@ -0,0 +1,117 @@
+package max.chess.engine.book.polyglot;
+
+import max.chess.engine.book.BookMergePolicy;
+import max.chess.engine.book.BookPolicy;
+import max.chess.engine.game.Game;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.engine.utils.notations.MoveIOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MergedPolyglotBookTest {
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String AFTER_E4_FEN = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+    private static final BookPolicy DETERMINISTIC = new BookPolicy(20, 0, 0, true);
+
+    @Test
+    void mergePoliciesShouldCombineTheBooks() throws IOException {
+        long start = FENUtils.getBoardFrom(START_FEN).zobristKey();
+        long afterE4 = FENUtils.getBoardFrom(AFTER_E4_FEN).zobristKey();
+        // first book: e4 100, d4 60 ; second book: d4 80, c4 120 and an answer to e4
+        Path first = writeBook(new long[]{start, start}, new short[]{poly(12, 28), poly(11, 27)}, new int[]{100, 60});
+        Path second = writeBook(sorted(start, afterE4), sorted(start, afterE4, poly(11, 27), poly(10, 26), poly(52, 36)),
+                Long.compareUnsigned(start, afterE4) < 0 ? new int[]{80, 120, 30} : new int[]{30, 80, 120});
+
+        try (var book = new MergedPolyglotBook(List.of(new PolyglotBook(first), new PolyglotBook(second)),
+                BookMergePolicy.FIRST_HIT, MergedPolyglotBook.DEFAULT_CACHE_SIZE)) {
+            assertEquals(2, book.size());
+            assertEquals("e2e4", probe(book, START_FEN));
+            // twice: the second one is served by the cache
+            assertEquals("e7e5", probe(book, AFTER_E4_FEN), "missing from the first book");
+            assertEquals("e7e5", probe(book, AFTER_E4_FEN));
+
+            book.setMergePolicy(BookMergePolicy.WEIGHT_SUM);
+            assertEquals("d2d4", probe(book, START_FEN), "d4 weighs 60 + 80");
+
+            book.setMergePolicy(BookMergePolicy.MAX_WEIGHT);
+            assertEquals("c2c4", probe(book, START_FEN));
+            assertEquals("c2c4", probe(book, START_FEN));
+
+            assertEquals(0, book.probeMove(FENUtils.getBoardFrom("4k3/8/8/8/8/8/8/4K3 w - - 0 1"), DETERMINISTIC, 1L));
+        }
+    }
+
+    @Test
+    void bothCastleEncodingsShouldMergeIntoOneMove() throws IOException {
+        String fen = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1";
+        long key = FENUtils.getBoardFrom(fen).zobristKey();
+        // king-takes-rook in the first book, the king's landing square in the second
+        Path first = writeBook(new long[]{key, key}, new short[]{poly(4, 7), poly(4, 3)}, new int[]{50, 70});
+        Path second = writeBook(new long[]{key}, new short[]{poly(4, 6)}, new int[]{40});
+
+        try (var book = new MergedPolyglotBook(List.of(new PolyglotBook(first), new PolyglotBook(second)),
+                BookMergePolicy.WEIGHT_SUM, MergedPolyglotBook.DEFAULT_CACHE_SIZE)) {
+            assertEquals("e1g1", probe(book, fen), "O-O weighs 50 + 40");
+        }
+    }
+
+    @Test
+    void cacheShouldNotChangeTheRandomPick() throws IOException {
+        long start = FENUtils.getBoardFrom(START_FEN).zobristKey();
+        Path path = writeBook(new long[]{start, start, start}, new short[]{poly(12, 28), poly(11, 27), poly(10, 26)},
+                new int[]{10, 10, 10});
+        var random = new BookPolicy(20, 0, 100, true);
+        try (var cached = new MergedPolyglotBook(List.of(new PolyglotBook(path)), BookMergePolicy.FIRST_HIT, 2);
+             var single = new PolyglotBook(path)) {
+            Game game = FENUtils.getBoardFrom(START_FEN);
+            for (long seed = 0; seed < 32; seed++) {
+                assertEquals(single.probeMove(game, random, seed), cached.probeMove(game, random, seed));
+            }
+        }
+    }
+
+    @Test
+    void policyNamesShouldParse() {
+        assertEquals(BookMergePolicy.WEIGHT_SUM, BookMergePolicy.parse("Sum", BookMergePolicy.FIRST_HIT));
+        assertEquals(BookMergePolicy.MAX_WEIGHT, BookMergePolicy.parse("max", BookMergePolicy.FIRST_HIT));
+        assertEquals(BookMergePolicy.FIRST_HIT, BookMergePolicy.parse("bogus", BookMergePolicy.FIRST_HIT));
+    }
+
+    private static String probe(MergedPolyglotBook book, String fen) {
+        int move = book.probeMove(FENUtils.getBoardFrom(fen), DETERMINISTIC, 1L);
+        assertNotEquals(0, move);
+        return MoveIOUtils.writeAlgebraicNotation(move);
+    }
+
+    // keys for the second book: the start position twice and the position after e4 once, in file order
+    private static long[] sorted(long start, long afterE4) {
+        return Long.compareUnsigned(start, afterE4) < 0 ? new long[]{start, start, afterE4} : new long[]{afterE4, start, start};
+    }
+
+    private static short[] sorted(long start, long afterE4, short d4, short c4, short e5) {
+        return Long.compareUnsigned(start, afterE4) < 0 ? new short[]{d4, c4, e5} : new short[]{e5, d4, c4};
+    }
+
+    private static Path writeBook(long[] keys, short[] moves, int[] weights) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(16 * keys.length).order(ByteOrder.BIG_ENDIAN);
+        for (int i = 0; i < keys.length; i++) {
+            bb.putLong(keys[i]).putShort(moves[i]).putShort((short) weights[i]).putInt(0);
+        }
+        Path tmp = Files.createTempFile("merged-book", ".bin");
+        Files.write(tmp, bb.array());
+        tmp.toFile().deleteOnExit();
+        return tmp;
+    }
+
+    private static short poly(int from, int to) {
+        return (short) (((from & 0x3F) << 6) | (to & 0x3F));
+    }
+}
@@ -0,0 +1,160 @@
+package max.chess.engine.book.polyglot;
+
+import max.chess.engine.book.BookPolicy;
+import max.chess.engine.game.Game;
+import max.chess.engine.movegen.Move;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.engine.utils.notations.MoveIOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PolyglotBookBuilderTest {
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PGN = """
+            [Event "a"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 {Morphy} 4. Ba4 Nf6 5. O-O Be7 1-0
+
+            [Event "b"]
+            [Result "1/2-1/2"]
+
+            1. e4 c5 (1... e5 2. Nf3) 2. Nf3 d6 $1 3. d4 cxd4 4. Nxd4 Nf6
+            5. Nc3 a6 1/2-1/2
+
+            [Event "c"]
+            [Result "0-1"]
+
+            1. d4 d5 2. c4 e6 0-1
+
+            [Event "d"]
+            [FEN "4k3/P7/8/8/8/8/8/4K3 w - - 0 1"]
+            [Result "1-0"]
+
+            1. a8=Q+ Kd7 1-0
+
+            [Event "unfinished"]
+            [Result "*"]
+
+            1. e4 e5 *
+
+            [Event "illegal"]
+            [Result "0-1"]
+
+            1. e4 Ke7 0-1
+            """;
+
+    @Test
+    void sanMovesShouldResolveAgainstThePosition() {
+        Game game = FENUtils.getBoardFrom("r3k2r/1p1n4/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+        assertTrue(Move.isEnPassant(MoveIOUtils.parseSanMove(game, "exd6")));
+        assertEquals(Move.CASTLE_QUEEN_SIDE_WHITE_MOVE, MoveIOUtils.parseSanMove(game, "O-O-O"));
+        assertEquals(Move.CASTLE_KING_SIDE_WHITE_MOVE, MoveIOUtils.parseSanMove(game, "0-0+"));
+        assertEquals("a1d1", uci(game, "Rd1"));
+        assertEquals(0, MoveIOUtils.parseSanMove(game, "Ke3x"));
+
+        Game rooks = FENUtils.getBoardFrom("R7/8/8/7k/8/8/8/R3K3 w - - 0 1");
+        assertEquals(0, MoveIOUtils.parseSanMove(rooks, "Ra4"), "two rooks reach a4");
+        assertEquals("a1a4", uci(rooks, "R1a4"));
+        assertEquals("a8a4", uci(rooks, "R8a4!?"));
+
+        Game promo = FENUtils.getBoardFrom("3r3k/4P3/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals("e7d8n", uci(promo, "exd8=N"));
+        assertEquals("e7e8q", uci(promo, "e8Q+"));
+        assertEquals(0, MoveIOUtils.parseSanMove(promo, "e8"), "a pawn reaching the last rank must promote");
+    }
+
+    @Test
+    void buildsABookFromPgn() throws Exception {
+        Path pgn = Files.createTempFile("games", ".pgn");
+        Path single = Files.createTempFile("book-single", ".bin");
+        Path spilled = Files.createTempFile("book-spilled", ".bin");
+        try {
+            Files.writeString(pgn, PGN);
+            var stats = new PolyglotBookBuilder().threads(1).build(pgn, single);
+            assertEquals(4, stats.games());
+            assertEquals(2, stats.skippedGames());
+
+            // two slices and a run file every few entries: the merge must give the same book
+            new PolyglotBookBuilder().threads(2).maxEntriesInMemory(4).build(pgn, spilled);
+            assertArrayEquals(Files.readAllBytes(single), Files.readAllBytes(spilled));
+
+            var deterministic = new BookPolicy(20, 0, 0, true);
+            try (var book = new PolyglotBook(single)) {
+                Game game = FENUtils.getBoardFrom(START_FEN);
+                // e4 scored a win and a draw, d4 only lost
+                assertEquals("e2e4", uci(book.probeMove(game, deterministic, 1L)));
+                game.playMove(MoveIOUtils.parseUciMove(game, "e2e4"));
+                assertEquals("c7c5", uci(book.probeMove(game, deterministic, 1L)));
+
+                Game promo = FENUtils.getBoardFrom("4k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+                assertEquals("a7a8q", uci(book.probeMove(promo, deterministic, 1L)));
+
+                // castling is written the Polyglot way and read back
+                Game ruyLopez = FENUtils.getBoardFrom("r1bqkb1r/1ppp1ppp/p1n2n2/4p3/B3P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 2 5");
+                assertEquals(Move.CASTLE_KING_SIDE_WHITE_MOVE, book.probeMove(ruyLopez, deterministic, 1L));
+            }
+
+            new PolyglotBookBuilder().minGames(2).build(pgn, single);
+            try (var book = new PolyglotBook(single)) {
+                Game game = FENUtils.getBoardFrom(START_FEN);
+                assertEquals("e2e4", uci(book.probeMove(game, deterministic, 1L)));
+                game.playMove(MoveIOUtils.parseUciMove(game, "e2e4"));
+                assertEquals(0, book.probeMove(game, deterministic, 1L), "c5 was played once");
+            }
+        } finally {
+            Files.deleteIfExists(pgn);
+            Files.deleteIfExists(single);
+            Files.deleteIfExists(spilled);
+        }
+    }
+
+    @Test
+    void castlesWrittenWithZerosAreKept() throws Exception {
+        Path pgn = Files.createTempFile("games", ".pgn");
+        Path out = Files.createTempFile("book", ".bin");
+        try {
+            // a draw: both sides' moves scored, so both castles make the book
+            Files.writeString(pgn, """
+                    [Event "zeros"]
+                    [Result "1/2-1/2"]
+
+                    1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. 0-0 Nf6 5.d3 0-0 1/2-1/2
+                    """);
+            var stats = new PolyglotBookBuilder().threads(1).build(pgn, out);
+            assertEquals(1, stats.games());
+            assertEquals(0, stats.skippedGames());
+
+            var deterministic = new BookPolicy(20, 0, 0, true);
+            try (var book = new PolyglotBook(out)) {
+                Game game = FENUtils.getBoardFrom(START_FEN);
+                for (String uci : new String[] {"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5"}) {
+                    game.playMove(MoveIOUtils.parseUciMove(game, uci));
+                }
+                assertEquals(Move.CASTLE_KING_SIDE_WHITE_MOVE, book.probeMove(game, deterministic, 1L));
+                game.playMove(Move.CASTLE_KING_SIDE_WHITE_MOVE);
+                game.playMove(MoveIOUtils.parseUciMove(game, "g8f6"));
+                game.playMove(MoveIOUtils.parseUciMove(game, "d2d3"));
+                assertEquals(Move.CASTLE_KING_SIDE_BLACK_MOVE, book.probeMove(game, deterministic, 1L),
+                        "\"5.d3\" is a move number glued to the move, the game goes on");
+            }
+        } finally {
+            Files.deleteIfExists(pgn);
+            Files.deleteIfExists(out);
+        }
+    }
+
+    private static String uci(Game game, String san) {
+        return uci(MoveIOUtils.parseSanMove(game, san));
+    }
+
+    private static String uci(int move) {
+        assertNotEquals(0, move);
+        return MoveIOUtils.writeAlgebraicNotation(move);
+    }
+}
@@ -21,7 +21,7 @@ public class PolyglotBookTest {
     @Test
     void picksBestMoveFromMiniBook() throws Exception {
         String fen = "8/P7/8/8/4K3/1R6/5R2/k7 w - - 0 1";
-        Path bin = makeMiniBook(fen); // a7a8Q weight = 120, e2e4 weight=100, d2d4 weight=50
+        Path bin = makeMiniBook(fen); // a7a8q weight = 120, e2e4 weight=100, d2d4 weight=50
         try (var book = new PolyglotBook(bin)) {
             var game = FENUtils.getBoardFrom(fen);
             var mv = book.pickMove(game, BookPolicy.defaults() /* randomness=15% but best wins */, 123L);
@@ -31,10 +31,94 @@ public class PolyglotBookTest {
             var mv2 = book.pickMove(game, deterministic, 123L);
             assertTrue(mv2.isPresent());
             String uci = max.chess.engine.utils.notations.MoveIOUtils.writeAlgebraicNotation(mv2.get());
-            assertEquals("a7a8Q", uci, "deterministic should pick highest weight");
+            assertEquals("a7a8q", uci, "deterministic should pick highest weight");
         }
     }
 
+    @Test
+    void findsEntriesRunningAcrossAPageBoundary() throws Exception {
+        String fen = "8/P7/8/8/4K3/1R6/5R2/k7 w - - 0 1";
+        long key = max.chess.engine.game.ZobristHashKeys.getHashKey(FENUtils.getBoardFrom(fen));
+
+        // 255 filler keys below it and 745 above: its three entries start on the last slot of the first 4 KB page
+        ByteBuffer bb = ByteBuffer.allocate((1000 + 3) * 16).order(ByteOrder.BIG_ENDIAN);
+        for (int i = 0; i < 255; i++) {
+            bb.putLong(key - 1000 + i).putShort((short) 0).putShort((short) 1).putInt(0);
+        }
+        bb.putLong(key).putShort(poly(12, 28, 0)).putShort((short) 100).putInt(0);
+        bb.putLong(key).putShort(poly(48, 56, toPromoNibble(PieceUtils.QUEEN))).putShort((short) 120).putInt(0);
+        bb.putLong(key).putShort(poly(11, 27, 0)).putShort((short) 50).putInt(0);
+        for (int i = 0; i < 745; i++) {
+            bb.putLong(key + 1 + i).putShort((short) 0).putShort((short) 1).putInt(0);
+        }
+        Path tmp = Files.createTempFile("paged-book", ".bin");
+        tmp.toFile().deleteOnExit();
+        Files.write(tmp, bb.array());
+
+        try (var book = new PolyglotBook(tmp)) {
+            var mv = book.pickMove(FENUtils.getBoardFrom(fen), new BookPolicy(20, 2, 0, true), 123L);
+            assertTrue(mv.isPresent());
+            assertEquals("a7a8q", max.chess.engine.utils.notations.MoveIOUtils.writeAlgebraicNotation(mv.get()));
+        }
+    }
+
+    @Test
+    void streamBookIsExtractedAndMapped() throws Exception {
+        String fen = "8/P7/8/8/4K3/1R6/5R2/k7 w - - 0 1";
+        Path bin = makeMiniBook(fen);
+        try (var in = Files.newInputStream(bin); var book = new PolyglotBook(in)) {
+            assertTrue(book.isLoaded());
+            var mv = book.pickMove(FENUtils.getBoardFrom(fen), new BookPolicy(20, 2, 0, true), 123L);
+            assertEquals("a7a8q", max.chess.engine.utils.notations.MoveIOUtils.writeAlgebraicNotation(mv.orElseThrow()));
+        }
+    }
+
+    @Test
+    void gameKeyShouldMatchPolyglotReferenceKeys() {
+        // http://hgm.nubati.net/book_format.html: the book is probed with the incremental key, from FEN or moves
+        String[][] cases = {
+                {"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", "823c9b50fd114196"},
+                {"rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2", "0756b94461c50fb0"},
+                {"rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", "22a48b5a8e47ff78"},
+                {"rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4", "00fdd303c946bdd9"},
+                {"rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3", "3c8123ea7b067637"},
+                {"rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4", "5c3f9b829b279560"},
+        };
+        for (String[] c : cases) {
+            assertEquals(Long.parseUnsignedLong(c[1], 16), FENUtils.getBoardFrom(c[0]).zobristKey(), c[0]);
+        }
+
+        Game game = FENUtils.getBoardFrom("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        for (String uci : new String[]{"a2a4", "b7b5", "h2h4", "b5b4", "c2c4"}) {
+            game.playMove(max.chess.engine.utils.notations.MoveIOUtils.parseUciMove(game, uci));
+        }
+        assertEquals(Long.parseUnsignedLong("3c8123ea7b067637", 16), game.zobristKey());
+    }
+
+    @Test
+    void decodesPolyglotCastlingAndEnPassant() throws Exception {
+        // castling is stored as the king taking its rook (e1h1), en passant as a plain pawn capture
+        String castleFen = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1";
+        String epFen = "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1";
+        try (var castle = new PolyglotBook(writeBook(castleFen, poly(4, 7, 0)));
+             var ep = new PolyglotBook(writeBook(epFen, poly(36, 43, 0)))) {
+            var deterministic = new BookPolicy(20, 0, 0, true);
+            assertEquals(max.chess.engine.movegen.Move.CASTLE_KING_SIDE_WHITE_MOVE,
+                    castle.probeMove(FENUtils.getBoardFrom(castleFen), deterministic, 1L));
+            int mv = ep.probeMove(FENUtils.getBoardFrom(epFen), deterministic, 1L);
+            assertTrue(max.chess.engine.movegen.Move.isEnPassant(mv), "e5d6 should decode as en passant");
+        }
+    }
+
+    private static Path writeBook(String fen, short move) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(16).order(ByteOrder.BIG_ENDIAN);
+        bb.putLong(FENUtils.getBoardFrom(fen).zobristKey()).putShort(move).putShort((short) 10).putInt(0);
+        Path tmp = Files.createTempFile("one-move-book", ".bin");
+        Files.write(tmp, bb.array());
+        tmp.toFile().deleteOnExit();
+        return tmp;
+    }
+
     private static Path makeMiniBook(String fen) throws IOException {
         var game = FENUtils.getBoardFrom(fen);
         long key = max.chess.engine.game.ZobristHashKeys.getHashKey(game);
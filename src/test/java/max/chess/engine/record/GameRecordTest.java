@@ -0,0 +1,184 @@
+package max.chess.engine.record;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.engine.utils.notations.MoveIOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class GameRecordTest {
+    // castles both ways, en passant and an under-promotion
+    private static final String FEN = "r3k2r/1P6/8/8/5p2/8/4P3/R3K2R w KQkq - 0 1";
+    private static final String[] MOVES = {"e2e4", "f4e3", "e1c1", "e8g8", "b7b8n", "e3e2"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void gamesComeBackFromTheLog() throws IOException {
+        Path log = dir.resolve("games.log");
+        GameRecord annotated = record(FEN, MOVES, true).result(GameRecord.Result.DRAW);
+        GameRecord plain = record(null, new String[] {"e2e4", "e7e5", "g1f3"}, false);
+        try (GameRecordWriter writer = new GameRecordWriter(log)) {
+            writer.write(annotated);
+            writer.write(plain);
+        }
+
+        GameRecord read = new GameRecord();
+        try (GameRecordReader reader = new GameRecordReader(log)) {
+            assertTrue(reader.next(read));
+            assertSame(annotated, read, true);
+            assertTrue(reader.next(read));
+            assertSame(plain, read, false);
+            assertFalse(reader.next(read));
+        }
+    }
+
+    @Test
+    void anExistingLogIsAppendedTo() throws IOException {
+        Path log = dir.resolve("games.log");
+        for (int i = 0; i < 3; i++) {
+            try (GameRecordWriter writer = new GameRecordWriter(log)) {
+                writer.write(record(null, new String[] {"d2d4"}, false));
+            }
+        }
+        assertEquals(3, count(log));
+    }
+
+    @Test
+    void aTornLastFrameEndsTheLog() throws IOException {
+        Path log = dir.resolve("games.log");
+        try (GameRecordWriter writer = new GameRecordWriter(log)) {
+            writer.write(record(FEN, MOVES, true));
+            writer.write(record(FEN, MOVES, true));
+        }
+        try (FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 5);
+        }
+        assertEquals(1, count(log));
+    }
+
+    @Test
+    void reopeningCutsOffATornLastFrame() throws IOException {
+        Path log = dir.resolve("games.log");
+        GameRecord record = record(FEN, MOVES, true);
+        try (GameRecordWriter writer = new GameRecordWriter(log)) {
+            writer.write(record);
+            writer.write(record);
+        }
+        try (FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 5);
+        }
+        try (GameRecordWriter writer = new GameRecordWriter(log)) {
+            writer.write(record);
+            writer.write(record);
+        }
+
+        GameRecord read = new GameRecord();
+        int n = 0;
+        try (GameRecordReader reader = new GameRecordReader(log)) {
+            while (reader.next(read)) {
+                assertSame(record, read, true);
+                n++;
+            }
+        }
+        assertEquals(3, n);
+    }
+
+    @Test
+    void somethingElseIsNotALog() throws IOException {
+        Path other = Files.writeString(dir.resolve("games.pgn"), "[Event \"?\"]\n");
+        assertThrows(IOException.class, () -> new GameRecordReader(other));
+        assertThrows(IOException.class, () -> new GameRecordWriter(other));
+    }
+
+    @Test
+    void parallelWritersLoseNoGame() throws Exception {
+        Path log = dir.resolve("games.log");
+        final int workers = 8, games = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try (GameRecordWriter writer = new GameRecordWriter(log)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                final int id = w;
+                futures.add(pool.submit(() -> {
+                    GameRecord record = new GameRecord();
+                    for (int g = 0; g < games; g++) {
+                        record.reset(null);
+                        Game game = FENUtils.getBoardFrom(GameRecord.START_FEN);
+                        // the depth tells the worker and the time the game apart
+                        for (String uci : new String[] {"g1f3", "g8f6", "f3g1", "f6g8"}) {
+                            int move = MoveIOUtils.parseUciMove(game, uci);
+                            record.add(move, 10, id, g);
+                            game.playMove(move);
+                        }
+                        writer.write(record);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+            assertEquals((long) workers * games, writer.games());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        GameRecord read = new GameRecord();
+        try (GameRecordReader reader = new GameRecordReader(log)) {
+            while (reader.next(read)) {
+                assertEquals(4, read.size());
+                assertTrue(seen.add(read.depth(0) * games + read.timeMs(0)));
+            }
+        }
+        assertEquals(workers * games, seen.size());
+    }
+
+    private static GameRecord record(String fen, String[] moves, boolean annotated) {
+        GameRecord record = new GameRecord(fen);
+        Game game = FENUtils.getBoardFrom(fen == null ? GameRecord.START_FEN : fen);
+        for (int i = 0; i < moves.length; i++) {
+            int move = MoveIOUtils.parseUciMove(game, moves[i]);
+            if (annotated) record.add(move, i % 2 == 0 ? 35 * i : -29000 + i, i + 1, 100 * i);
+            else record.add(move);
+            game.playMove(move);
+        }
+        return record;
+    }
+
+    private static void assertSame(GameRecord expected, GameRecord actual, boolean annotated) {
+        assertEquals(expected.startFen(), actual.startFen());
+        assertEquals(expected.result(), actual.result());
+        assertEquals(annotated, actual.annotated());
+        assertArrayEquals(expected.moves(), actual.moves());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.eval(i), actual.eval(i));
+            assertEquals(expected.depth(i), actual.depth(i));
+            assertEquals(expected.timeMs(i), actual.timeMs(i));
+        }
+    }
+
+    private static int count(Path log) throws IOException {
+        int n = 0;
+        GameRecord read = new GameRecord();
+        try (GameRecordReader reader = new GameRecordReader(log)) {
+            while (reader.next(read)) n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,94 @@
+package max.chess.engine.record;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.search.evaluator.GameValues;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.engine.utils.notations.MoveIOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class PgnExportTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void sanDisambiguatesAndMarksChecks() {
+        Game queens = FENUtils.getBoardFrom("4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1");
+        assertEquals("Qa1b2", san(queens, "a1b2"));
+        assertEquals("Qcb2", san(queens, "c1b2"));
+        assertEquals("Q3b2", san(queens, "a3b2"));
+        assertEquals("Qe7#", san(FENUtils.getBoardFrom("4k3/8/4K3/8/8/8/8/4Q3 w - - 0 1"), "e1e7"));
+
+        Game game = FENUtils.getBoardFrom("r3k2r/1P6/8/8/5p2/8/4P3/R3K2R w KQkq - 0 1");
+        for (String[] step : new String[][] {{"e2e4", "e4"}, {"f4e3", "fxe3"}, {"e1c1", "O-O-O"},
+                {"e8g8", "O-O"}, {"b7b8n", "b8=N"}, {"e3e2", "e2"}}) {
+            int move = MoveIOUtils.parseUciMove(game, step[0]);
+            assertEquals(step[1], MoveIOUtils.appendSan(new StringBuilder(), game, move).toString());
+            assertEquals(move, MoveIOUtils.parseSanMove(game, step[1]));
+            game.playMove(move);
+        }
+    }
+
+    @Test
+    void exportWritesTagsMovetextAndComments() {
+        GameRecord record = new GameRecord("4k3/8/4K3/8/8/8/8/7Q b - - 0 40");
+        Game game = FENUtils.getBoardFrom(record.startFen());
+        // mated in two plies, then mate in one
+        int move = MoveIOUtils.parseUciMove(game, "e8f8");
+        record.add(move, -GameValues.CHECKMATE_VALUE + 2, 20, 1500);
+        game.playMove(move);
+        record.add(MoveIOUtils.parseUciMove(game, "h1h8"), GameValues.CHECKMATE_VALUE - 1, 20, 1500);
+        record.result(GameRecord.Result.WHITE_WINS);
+
+        String pgn = PgnExport.appendPgn(new StringBuilder(), record, Map.of("White", "MaxBot", "Round", "7")).toString();
+        assertEquals("""
+                [Event "?"]
+                [Site "?"]
+                [Date "????.??.??"]
+                [Round "7"]
+                [White "MaxBot"]
+                [Black "?"]
+                [Result "1-0"]
+                [SetUp "1"]
+                [FEN "4k3/8/4K3/8/8/8/8/7Q b - - 0 40"]
+
+                40... Kf8 {-M1/20 1.500s} 41. Qh8# {+M1/20 1.500s} 1-0
+
+                """, pgn);
+    }
+
+    @Test
+    void longGamesWrapAtEightyColumns() throws IOException {
+        GameRecord record = new GameRecord();
+        Game game = FENUtils.getBoardFrom(GameRecord.START_FEN);
+        for (int i = 0; i < 40; i++) {
+            int move = MoveIOUtils.parseUciMove(game, new String[] {"g1f3", "g8f6", "f3g1", "f6g8"}[i % 4]);
+            record.add(move);
+            game.playMove(move);
+        }
+        Path log = dir.resolve("games.log"), pgn = dir.resolve("games.pgn");
+        try (GameRecordWriter writer = new GameRecordWriter(log)) {
+            writer.write(record);
+            writer.write(record.result(GameRecord.Result.DRAW));
+        }
+
+        assertEquals(2, PgnExport.export(log, pgn, Map.of("Event", "selfplay")));
+        String text = Files.readString(pgn);
+        assertTrue(text.contains("[Event \"selfplay\"]"));
+        assertTrue(text.contains("1. Nf3 Nf6 2. Ng1 Ng8"));
+        assertTrue(text.contains("20. Ng1 Ng8 *\n"));
+        assertTrue(text.contains("20. Ng1 Ng8\n1/2-1/2\n"), "the result wraps too");
+        for (String line : text.split("\n")) assertTrue(line.length() <= 80, line);
+    }
+
+    private static String san(Game game, String uci) {
+        return MoveIOUtils.appendSan(new StringBuilder(), game, MoveIOUtils.parseUciMove(game, uci)).toString();
+    }
+}
@@ -0,0 +1,107 @@
+package max.chess.engine.search;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.game.board.utils.BoardGenerator;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.engine.utils.notations.MoveIOUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class RepetitionTest {
+    private static final String[] KNIGHT_DANCE = {"b1c3", "b8c6", "c3b1", "c6b8"};
+
+    private final SearchContext ctx = new SearchContext(new SearchConfig.Builder().useTT(false).build());
+
+    @Test
+    void secondOccurrenceInsideTheTreeIsADraw() {
+        Game game = FENUtils.getBoardFrom(BoardGenerator.STANDARD_GAME);
+        root(game);
+        int ply = 0;
+        for (String uci : KNIGHT_DANCE) {
+            ply = play(game, uci, ply);
+            // back to the root position at ply 4: only its second occurrence
+            assertFalse(Repetition.isDraw(game, ctx, ply), "ply " + ply);
+        }
+        ply = play(game, "b1c3", ply);
+        assertTrue(Repetition.isDraw(game, ctx, ply), "Nc3 again repeats ply 1");
+    }
+
+    @Test
+    void thirdOccurrenceCountsTheGameHistory() {
+        Game game = FENUtils.getBoardFrom(BoardGenerator.STANDARD_GAME);
+        for (String uci : KNIGHT_DANCE) game.commitMove(MoveIOUtils.parseUciMove(game, uci));
+        assertFalse(game.isThreefoldRepetition());
+
+        root(game);
+        int ply = 0;
+        for (String uci : KNIGHT_DANCE) ply = play(game, uci, ply);
+        assertTrue(Repetition.isDraw(game, ctx, ply), "start position for the third time");
+    }
+
+    @Test
+    void repetitionsDoNotReachAcrossANullMove() {
+        Game game = FENUtils.getBoardFrom("4k3/8/8/8/8/8/8/4K2R w - - 0 1");
+        root(game);
+        int ply = play(game, "h1g1", 0);
+
+        game.playNullMove();
+        ply++;
+        ctx.keyStack[ply] = game.zobristKey();
+        ctx.pliesFromNull[ply] = 0;
+
+        // the black king triangulates back: ply 1 again, only reachable through the null move
+        for (String uci : new String[] {"g1h1", "e8d8", "h1g1", "d8d7", "g1h1", "d7e8", "h1g1"}) {
+            ply = play(game, uci, ply);
+            assertFalse(Repetition.isDraw(game, ctx, ply), "ply " + ply);
+        }
+        assertEquals(ctx.keyStack[1], ctx.keyStack[ply]);
+    }
+
+    @Test
+    void aMoveBackToAnEarlierPositionOfTheLineIsAnUpcomingCycle() {
+        Game game = FENUtils.getBoardFrom("4k3/8/8/8/8/8/8/4K2R w - - 0 1");
+        root(game);
+        int ply = 0;
+        for (String uci : new String[] {"h1h2", "e8d8", "h2h3"}) {
+            ply = play(game, uci, ply);
+            assertFalse(Repetition.hasUpcomingCycle(game, ctx, ply), "ply " + ply);
+        }
+        ply = play(game, "d8e8", ply);
+        assertTrue(Repetition.hasUpcomingCycle(game, ctx, ply), "Rh2 gets back to ply 1");
+        ply = play(game, "h3h2", ply);
+        assertTrue(Repetition.hasUpcomingCycle(game, ctx, ply), "Kd8 gets back to ply 2");
+    }
+
+    @Test
+    void aBlockedMoveIsNoCycle() {
+        // Rh1 went round to h3 while the black king walked back: Rh1 would repeat ply 1 but for the h2 bishop
+        assertFalse(cycleAfterTheRookWalk("4k3/8/8/8/8/8/7B/4K2R w - - 0 1"));
+        assertTrue(cycleAfterTheRookWalk("4k3/8/8/8/8/8/8/4K2R w - - 0 1"));
+    }
+
+    private boolean cycleAfterTheRookWalk(String fen) {
+        Game game = FENUtils.getBoardFrom(fen);
+        root(game);
+        int ply = 0;
+        for (String uci : new String[] {"e1f1", "e8d8", "h1g1", "d8d7", "g1g3", "d7d8", "g3h3", "d8e8"}) {
+            ply = play(game, uci, ply);
+        }
+        return Repetition.hasUpcomingCycle(game, ctx, ply);
+    }
+
+    private void root(Game game) {
+        ctx.keyStack[0] = game.zobristKey();
+        ctx.pliesFromNull[0] = game.halfMoveClock;
+    }
+
+    // what Negamax records when it enters the child node
+    private int play(Game game, String uci, int ply) {
+        game.playMove(MoveIOUtils.parseUciMove(game, uci));
+        ctx.keyStack[ply + 1] = game.zobristKey();
+        ctx.pliesFromNull[ply + 1] = ctx.pliesFromNull[ply] + 1;
+        return ply + 1;
+    }
+}
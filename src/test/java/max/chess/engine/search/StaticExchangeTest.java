@@ -0,0 +1,130 @@
+package max.chess.engine.search;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.game.board.Board;
+import max.chess.engine.movegen.Move;
+import max.chess.engine.movegen.pieces.Bishop;
+import max.chess.engine.movegen.pieces.King;
+import max.chess.engine.movegen.pieces.Knight;
+import max.chess.engine.movegen.pieces.Pawn;
+import max.chess.engine.movegen.pieces.Rook;
+import max.chess.engine.search.evaluator.PieceValues;
+import max.chess.engine.utils.ColorUtils;
+import max.chess.engine.utils.PieceUtils;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.engine.utils.notations.MoveIOUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+final class StaticExchangeTest {
+    private static final int[] THRESHOLDS = {-900, -320, -100, -1, 0, 1, 100, 230, 500};
+
+    @Test
+    void exchangesShouldBeValuedOnThePieceLeftOnTheSquare() {
+        // QxP defended by a pawn: the queen is lost for a pawn
+        assertEquals(PieceValues.PAWN_VALUE - PieceValues.QUEEN_VALUE, see("4k3/8/3p4/4p3/8/8/8/4QK2 w - - 0 1", "e1e5"));
+        // RxP, PxR, RxP with the second rook x-raying through the first
+        assertEquals(2 * PieceValues.PAWN_VALUE - PieceValues.ROOK_VALUE, see("4k3/8/3p4/4p3/8/8/4R3/4RK2 w - - 0 1", "e2e5"));
+        // the queen behind the capturing bishop takes it back
+        assertEquals(PieceValues.KNIGHT_VALUE - PieceValues.BISHOP_VALUE, see("4k3/8/8/4n3/3B4/8/8/q3K3 w - - 0 1", "d4e5"));
+        // the king may not take back a defended piece
+        assertEquals(PieceValues.PAWN_VALUE, see("8/8/8/3k4/4p3/8/4R3/K3R3 w - - 0 1", "e2e4"));
+        assertEquals(PieceValues.PAWN_VALUE - PieceValues.ROOK_VALUE, see("8/8/8/3k4/4p3/8/8/K3R3 w - - 0 1", "e1e4"));
+    }
+
+    @Test
+    void seeShouldMatchTheReferenceSwap() {
+        for (String fen : Bench.positions()) {
+            Game game = FENUtils.getBoardFrom(fen);
+            assertMatchesReference(game);
+            for (int move : game.getLegalMoves()) {
+                long undo = game.playMove(move);
+                assertMatchesReference(game);
+                game.undoMove(undo);
+            }
+        }
+    }
+
+    private static void assertMatchesReference(Game game) {
+        for (int move : game.getLegalMoves()) {
+            String where = FENUtils.getFENFromBoard(game) + " " + Move.fromBytes(move);
+            int see = StaticExchange.see(game, move);
+            assertEquals(referenceSee(game, move), see, where);
+            for (int threshold : THRESHOLDS) {
+                assertEquals(see >= threshold, StaticExchange.seeGE(game, move, threshold), where + " >= " + threshold);
+            }
+        }
+    }
+
+    private static int see(String fen, String uciMove) {
+        Game game = FENUtils.getBoardFrom(fen);
+        int move = MoveIOUtils.parseUciMove(game, uciMove);
+        int see = StaticExchange.see(game, move);
+        assertEquals(see >= 0, StaticExchange.seeGE(game, move, 0));
+        assertEquals(referenceSee(game, move), see, fen + " " + uciMove);
+        assertFalse(StaticExchange.seeGE(game, move, see + 1));
+        return see;
+    }
+
+    // Swap list recomputing every attacker from scratch at each step
+    private static int referenceSee(Game game, int move) {
+        final Board b = game.board();
+        final int to = Move.getEndPosition(move);
+        final byte promo = Move.getPromotion(move);
+        long occ = b.gameBB & ~(1L << Move.getStartPosition(move));
+        int captured = b.getPieceTypeAt(to);
+        if (Move.isEnPassant(move)) {
+            occ &= ~(1L << (ColorUtils.isWhite(game.currentPlayer) ? to - 8 : to + 8));
+            captured = PieceUtils.PAWN;
+        }
+
+        int[] gain = new int[32];
+        int d = 0;
+        gain[0] = value(captured) + (promo != PieceUtils.NONE ? value(promo) - PieceValues.PAWN_VALUE : 0);
+        int onSquare = promo != PieceUtils.NONE ? promo : Move.getPieceType(move);
+        int side = ColorUtils.switchColor(game.currentPlayer);
+        while (true) {
+            long from = 0;
+            int type = PieceUtils.PAWN;
+            for (; type <= PieceUtils.KING; type++) {
+                from = attacks(to, type, side, occ) & b.piecesBB((byte) type, side) & occ;
+                if (from != 0) break;
+            }
+            if (from == 0) break;
+            if (type == PieceUtils.KING && isAttacked(b, to, ColorUtils.switchColor(side), occ)) break;
+
+            d++;
+            gain[d] = value(onSquare) - gain[d - 1];
+            onSquare = type;
+            occ &= ~Long.lowestOneBit(from);
+            side = ColorUtils.switchColor(side);
+        }
+        while (--d >= 0) gain[d] = -Math.max(-gain[d], gain[d + 1]);
+        return gain[0];
+    }
+
+    private static boolean isAttacked(Board b, int sq, int by, long occ) {
+        for (int type = PieceUtils.PAWN; type <= PieceUtils.KING; type++) {
+            if ((attacks(sq, type, by, occ) & b.piecesBB((byte) type, by) & occ) != 0) return true;
+        }
+        return false;
+    }
+
+    // Squares from which a piece of 'type' and 'color' attacks 'sq'
+    private static long attacks(int sq, int type, int color, long occ) {
+        return switch (type) {
+            case PieceUtils.PAWN -> Pawn.getAttackBB(sq, ColorUtils.switchColor(color));
+            case PieceUtils.KNIGHT -> Knight.getAttackBB(sq);
+            case PieceUtils.BISHOP -> Bishop.getAttackBB(sq, occ);
+            case PieceUtils.ROOK -> Rook.getAttackBB(sq, occ);
+            case PieceUtils.QUEEN -> Bishop.getAttackBB(sq, occ) | Rook.getAttackBB(sq, occ);
+            default -> King.getAttackBB(sq);
+        };
+    }
+
+    private static int value(int type) {
+        return type == PieceUtils.NONE ? 0 : PieceValues.pieceTypeToValue(type);
+    }
+}
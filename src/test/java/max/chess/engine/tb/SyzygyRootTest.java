@@ -65,7 +65,7 @@ final class SyzygyRootTest {
         assertTrue(best.isPresent(), "Root probe should return a best move");
         // “c7c8q” is the canonical UCI; some TBs may pick underpromotion in rare cases,
         // but here promotion to queen is the stable answer.
-        assertEquals("c7c8Q", best.get(), "Expected promotion suggested by TB");
+        assertEquals("c7c8q", best.get(), "Expected promotion suggested by TB");
     }
 
     @Test
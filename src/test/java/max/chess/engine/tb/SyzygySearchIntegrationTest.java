@@ -34,6 +34,6 @@ final class SyzygySearchIntegrationTest {
         var result = uci.search(goParams, new AtomicBoolean(false), uciMessages::add);
 
         assertTrue(!"0000".equals(result.bestmove), "Engine should return a UCI move from TB");
-        assertTrue(uciMessages.contains("info string tb move c7c8Q"), "Root probe should bypass normal eval");
+        assertTrue(uciMessages.contains("info string tb move c7c8q"), "Root probe should bypass normal eval");
     }
 }
@@ -67,6 +67,26 @@ final class SyzygyWdlTest {
         assertTrue(SyzygyJNI.isDraw(wdl.getAsInt()), "Opposite-color bishops 4-man is draw");
     }
 
+    @Test
+    void kqkIsWinForTheQueenSide() {
+        // WK e1, WQ a1, BK e8: won with either side to move
+        var white = tb.probeWDL(FENUtils.getBoardFrom("4k3/8/8/8/8/8/8/Q3K3 w - - 0 1"));
+        var black = tb.probeWDL(FENUtils.getBoardFrom("4k3/8/8/8/8/8/8/Q3K3 b - - 0 1"));
+        assertTrue(white.isPresent() && black.isPresent(), "WDL must be present for 3-man");
+        assertEquals(SyzygyJNI.WDL_WIN, white.getAsInt());
+        assertEquals(SyzygyJNI.WDL_LOSS, black.getAsInt());
+    }
+
+    @Test
+    void dtzOfWinningPromotionIsOnePly() {
+        // c7c8=Q zeroes the 50-move counter right away
+        Game g = FENUtils.getBoardFrom("k7/2P5/2K5/8/8/8/8/8 w - - 0 1");
+        var root = tb.probeRoot(g);
+        assertTrue(root.isPresent(), "Root probe must be present for 3-man");
+        assertEquals(SyzygyJNI.WDL_WIN, root.get().wdl());
+        assertEquals(1, root.get().dtz());
+    }
+
     @Test
     void wdlPresentWhenEpAvailable() {
         // White: Kd1, Pd5; Black: Ke8, Pe5; last move e7-e5 -> EP at e6
@@ -0,0 +1,67 @@
+package max.chess.engine.tb;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.tb.syzygy.SyzygyJNI;
+import max.chess.engine.utils.notations.FENUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class TBManagerCacheTest {
+
+    // Answers WIN for KQvK only and counts the calls
+    private static final class CountingTablebases implements EndgameTablebases {
+        int probes;
+
+        @Override public boolean isAvailable() { return true; }
+        @Override public Optional<TBRootResult> probeRoot(Game game, int maxPieces) { return Optional.empty(); }
+
+        @Override
+        public OptionalInt probeWDL(Game game, int maxPieces) {
+            probes++;
+            return game.board().queenBB != 0 ? OptionalInt.of(SyzygyJNI.WDL_WIN) : OptionalInt.empty();
+        }
+
+        @Override public void close() {}
+    }
+
+    @Test
+    void repeatedProbesHitTheCache() {
+        TBManager tb = new TBManager();
+        CountingTablebases provider = new CountingTablebases();
+        tb.setProvider(provider);
+        Game g = FENUtils.getBoardFrom("4k3/8/8/8/8/8/8/Q3K3 w - - 0 1");
+
+        assertEquals(TBManager.WDL_NONE, tb.cachedWDL(g.zobristKey()));
+        for (int i = 0; i < 3; i++) assertEquals(SyzygyJNI.WDL_WIN, tb.probeWDLCached(g));
+        assertEquals(1, provider.probes);
+        assertEquals(SyzygyJNI.WDL_WIN, tb.cachedWDL(g.zobristKey()));
+    }
+
+    @Test
+    void failedProbesAreCachedToo() {
+        TBManager tb = new TBManager();
+        CountingTablebases provider = new CountingTablebases();
+        tb.setProvider(provider);
+        Game g = FENUtils.getBoardFrom("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+
+        assertEquals(TBManager.WDL_NONE, tb.probeWDLCached(g));
+        assertEquals(TBManager.WDL_NONE, tb.probeWDLCached(g));
+        assertEquals(1, provider.probes);
+    }
+
+    @Test
+    void tooManyPiecesNeverReachTheProvider() {
+        TBManager tb = new TBManager();
+        CountingTablebases provider = new CountingTablebases();
+        tb.setProvider(provider);
+        tb.setMaxPieces(3);
+        Game g = FENUtils.getBoardFrom("4k3/8/8/8/8/8/3P4/Q3K3 w - - 0 1");
+
+        assertEquals(TBManager.WDL_NONE, tb.probeWDLCached(g));
+        assertEquals(0, provider.probes);
+    }
+}
@@ -42,6 +42,25 @@ public class UciEngineBookIntegrationTest {
         assertTrue(info.get() == null || info.get().contains("book move"));
     }
 
+    @Test
+    void bookLoadedInTheBackgroundIsThereOnceReady() throws Exception {
+        Path bin = makeMiniBook();
+
+        UciEngineImpl uci = new UciEngineImpl();
+        uci.setOption("PrefaultTables", "true");
+        uci.setOption("OwnBook", "true");
+        uci.setOption("BookFile", bin.toString());
+        uci.setOption("BookRandomness", "0");
+        uci.onIsReady();
+
+        uci.setPositionStartpos(List.of());
+        var go = new UciServer.GoParams();
+        go.movetime = 1;
+        var res = uci.search(go, new AtomicBoolean(false), s -> { });
+
+        assertEquals("e2e4", res.bestmove);
+    }
+
     private static Path makeMiniBook() throws IOException {
         var game = FENUtils.getBoardFrom(BoardGenerator.STANDARD_GAME);
         long key = max.chess.engine.game.ZobristHashKeys.getHashKey(game);
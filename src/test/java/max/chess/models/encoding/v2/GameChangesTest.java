@@ -10,38 +10,27 @@ public class GameChangesTest {
     @ValueSource(longs = {65535, (1L << 31) -1})
     public void testMovePlayed(long movePlayed) {
         // When
-        long gameChanges = GameChanges.asBytes(movePlayed, 0, false, false, false, false, 0);
+        long gameChanges = GameChanges.asBytes(movePlayed, 0, false, false, false, false);
 
         // then
         assert GameChanges.getMovePlayed(gameChanges) == movePlayed;
     }
 
     @ParameterizedTest
-    @ValueSource(bytes = {0, 1, 2, 3, 4, 5, 63})
+    @ValueSource(ints = {0, 1, 2, 3, 4, 5, 63, 64, 99, 150})
     public void testPreviousHalfMoveClock(int previousHalfMoveClock) {
         // When
-        long gameChanges = GameChanges.asBytes(0, previousHalfMoveClock, false, false, false, false, 0);
+        long gameChanges = GameChanges.asBytes(0, previousHalfMoveClock, false, false, false, false);
 
         // then
         assert GameChanges.getPreviousHalfMoveClock(gameChanges) == previousHalfMoveClock;
     }
 
-
-    @ParameterizedTest
-    @ValueSource(ints = {0, 1, 2, 3, 4, 5, 255})
-    public void testPreviousEpoch(int previousEpoch) {
-        // When
-        long gameChanges = GameChanges.asBytes(0, 0, false, false, false, false, previousEpoch);
-
-        // then
-        assert GameChanges.getPreviousEpoch(gameChanges) == previousEpoch;
-    }
-
     @ParameterizedTest
     @ValueSource(booleans = {true, false})
     public void testPreviousWhiteCanCastleKingSide(boolean previousWhiteCanCastleKingSide) {
         // When
-        long gameChanges = GameChanges.asBytes(0, 0, previousWhiteCanCastleKingSide, false, false, false, 0);
+        long gameChanges = GameChanges.asBytes(0, 0, previousWhiteCanCastleKingSide, false, false, false);
 
         // then
         assert GameChanges.getPreviousWhiteCanCastleKingSide(gameChanges) == previousWhiteCanCastleKingSide;
@@ -51,7 +40,7 @@ public class GameChangesTest {
     @ValueSource(booleans = {true, false})
     public void testPreviousWhiteCanCastleQueenSide(boolean previousWhiteCanCastleQueenSide) {
         // When
-        long gameChanges = GameChanges.asBytes(0, 0, false, previousWhiteCanCastleQueenSide, false, false, 0);
+        long gameChanges = GameChanges.asBytes(0, 0, false, previousWhiteCanCastleQueenSide, false, false);
 
         // then
         assert GameChanges.getPreviousWhiteCanCastleQueenSide(gameChanges) == previousWhiteCanCastleQueenSide;
@@ -61,7 +50,7 @@ public class GameChangesTest {
     @ValueSource(booleans = {true, false})
     public void testPreviousBlackCanCastleKingSide(boolean previousBlackCanCastleKingSide) {
         // When
-        long gameChanges = GameChanges.asBytes(0, 0, false, false, previousBlackCanCastleKingSide, false, 0);
+        long gameChanges = GameChanges.asBytes(0, 0, false, false, previousBlackCanCastleKingSide, false);
 
         // then
         assert GameChanges.getPreviousBlackCanCastleKingSide(gameChanges) == previousBlackCanCastleKingSide;
@@ -71,7 +60,7 @@ public class GameChangesTest {
     @ValueSource(booleans = {true, false})
     public void testPreviousBlackCanCastleQueenSide(boolean previousBlackCanCastleQueenSide) {
         // When
-        long gameChanges = GameChanges.asBytes(0, 0, false, false, false, previousBlackCanCastleQueenSide, 0);
+        long gameChanges = GameChanges.asBytes(0, 0, false, false, false, previousBlackCanCastleQueenSide);
 
         // then
         assert GameChanges.getPreviousBlackCanCastleQueenSide(gameChanges) == previousBlackCanCastleQueenSide;
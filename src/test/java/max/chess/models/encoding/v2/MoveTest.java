@@ -1,6 +1,10 @@
 package max.chess.models.encoding.v2;
 
+import max.chess.engine.game.Game;
+import max.chess.engine.game.board.utils.BoardGenerator;
 import max.chess.engine.utils.PieceUtils;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.engine.utils.notations.MoveIOUtils;
 import max.chess.engine.movegen.Move;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -78,4 +82,38 @@ public class MoveTest {
         // then
         assert Move.isEnPassant(move);
     }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1"
+    })
+    public void testParseUciMoveMatchesGeneratedMoves(String fen) {
+        // Given
+        Game game = FENUtils.getBoardFrom(fen);
+        int[] moves = new int[256];
+        int n = game.getLegalMoves(moves);
+
+        for (int i = 0; i < n; i++) {
+            // When
+            String uci = MoveIOUtils.writeAlgebraicNotation(moves[i]);
+            int parsed = MoveIOUtils.parseUciMove(game, uci);
+
+            // then
+            assert parsed == moves[i] : uci + " parsed as " + parsed + " expected " + moves[i];
+        }
+    }
+
+    @Test
+    public void testParseUciMoveRejectsMalformedInput() {
+        Game game = FENUtils.getBoardFrom(BoardGenerator.STANDARD_GAME);
+
+        assert MoveIOUtils.parseUciMove(game, "e2") == 0;
+        assert MoveIOUtils.parseUciMove(game, "i2i4") == 0;
+        assert MoveIOUtils.parseUciMove(game, "e3e4") == 0; // empty origin square
+        assert MoveIOUtils.parseUciMove(game, "e2e4x") == 0;
+    }
 }
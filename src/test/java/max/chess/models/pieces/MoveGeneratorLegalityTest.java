@@ -0,0 +1,185 @@
+package max.chess.models.pieces;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.movegen.Move;
+import max.chess.engine.movegen.MoveGenerator;
+import max.chess.engine.utils.PieceUtils;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.engine.utils.notations.MoveIOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Pin rays / en passant legality, without make-unmake verification in movegen
+public class MoveGeneratorLegalityTest {
+
+    @Test
+    public void enPassantShouldBeIllegal_whenBothPawnsLeavingTheRankDiscoverCheck() {
+        // White king a5, rook h5: exd6 e.p. removes d5 and e5 at once
+        Game game = afterDoublePush("3k4/3p4/8/K3P2r/8/8/8/8 b - - 0 1");
+
+        assertFalse(hasEnPassant(game.getLegalMoves()));
+    }
+
+    @Test
+    public void enPassantShouldBeIllegal_whenCapturingPawnIsPinnedOnADiagonal() {
+        // Bishop h8 pins e5 against the king on a1
+        Game game = afterDoublePush("3k3b/3p4/8/4P3/8/8/8/K7 b - - 0 1");
+
+        assertFalse(hasEnPassant(game.getLegalMoves()));
+    }
+
+    @Test
+    public void enPassantShouldBeLegal_whenNothingIsDiscovered() {
+        Game game = afterDoublePush("3k4/3p4/8/K3P3/8/8/8/8 b - - 0 1");
+
+        assertTrue(hasEnPassant(game.getLegalMoves()));
+    }
+
+    @Test
+    public void pinnedRookShouldOnlyMoveAlongThePinRay() {
+        // Rook e2 pinned by the rook on e8: e3..e7 and the capture on e8
+        Game game = FENUtils.getBoardFrom("4r2k/8/8/8/8/8/4R3/4K3 w - - 0 1");
+
+        int rookMoves = 0;
+        for (int move : game.getLegalMoves()) {
+            if (Move.getPieceType(move) != PieceUtils.ROOK) continue;
+            rookMoves++;
+            assertEquals(4, Move.getEndPosition(move) & 7, "rook left the e-file: " + Move.fromBytes(move));
+        }
+        assertEquals(6, rookMoves);
+    }
+
+    @Test
+    public void pinnedKnightShouldNotMove() {
+        Game game = FENUtils.getBoardFrom("7k/8/8/8/4q3/8/2N5/1K6 w - - 0 1");
+
+        for (int move : game.getLegalMoves()) {
+            assertTrue(Move.getPieceType(move) != PieceUtils.KNIGHT, "pinned knight moved: " + Move.fromBytes(move));
+        }
+    }
+
+    @Test
+    public void castleShouldBeIllegal_whenKingCrossesAnAttackedSquare() {
+        // Rook d8 covers d1 (queen side passage) but not b1
+        Game game = FENUtils.getBoardFrom("3r3k/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+
+        boolean queenSide = false, kingSide = false;
+        for (int move : game.getLegalMoves()) {
+            queenSide |= move == Move.CASTLE_QUEEN_SIDE_WHITE_MOVE;
+            kingSide |= move == Move.CASTLE_KING_SIDE_WHITE_MOVE;
+        }
+        assertFalse(queenSide);
+        assertTrue(kingSide);
+    }
+
+    @Test
+    public void attackStateShouldFollowMakeAndUndo() {
+        // Qe2 pins the knight e7, Qa4+ checks along a4-e8: each undo must drop the cached state
+        Game game = FENUtils.getBoardFrom("4k3/4n3/8/8/8/8/8/3QK3 w - - 0 1");
+        assertFalse(game.inCheck());
+        assertEquals(0L, game.board().pinnedBB());
+
+        long undo = game.playMove(MoveIOUtils.parseUciMove(game, "d1e2"));
+        assertFalse(game.inCheck());
+        assertEquals(1L << 52, game.board().pinnedBB(), "knight e7 should be pinned");
+        assertEquals(0L, game.board().pinRaysBB()[52] & (1L << 51), "pin ray left the e-file");
+
+        game.undoMove(undo);
+        assertEquals(0L, game.board().pinnedBB());
+        long undoCheck = game.playMove(MoveIOUtils.parseUciMove(game, "d1a4"));
+        assertTrue(game.inCheck());
+        assertEquals(1L << 24, game.board().checkersBB());
+        game.undoMove(undoCheck);
+        assertFalse(game.inCheck());
+    }
+
+    private static final String[] PERFT_FENS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+    };
+
+    @Test
+    public void isLegalShouldAgreeWithTheGenerator() {
+        // Every move seen anywhere in the small trees is probed in every node: foreign TT / killer moves
+        for (String fen : PERFT_FENS) {
+            Game game = FENUtils.getBoardFrom(fen);
+            Set<Integer> pool = new HashSet<>();
+            collectMoves(game, 2, pool);
+            assertLegalityMatches(game, 2, pool);
+        }
+    }
+
+    @Test
+    public void givesCheckShouldMatchPlayingTheMove() {
+        for (String fen : PERFT_FENS) {
+            assertGivesCheckMatches(FENUtils.getBoardFrom(fen), 3);
+        }
+        // check by the castling rook, discovered by en passant, check by the promoted piece
+        assertGivesCheckMatches(FENUtils.getBoardFrom("5k2/8/8/8/8/8/8/4K2R w K - 0 1"), 1);
+        assertGivesCheckMatches(afterDoublePush("8/3p4/8/R3P2k/8/8/8/K7 b - - 0 1"), 1);
+        assertGivesCheckMatches(FENUtils.getBoardFrom("7k/3P4/8/8/8/8/8/K2R4 w - - 0 1"), 1);
+    }
+
+    private static void assertGivesCheckMatches(Game game, int depth) {
+        for (int move : game.getLegalMoves()) {
+            boolean predicted = MoveGenerator.givesCheck(game, move);
+            long undo = game.playMove(move);
+            assertEquals(game.inCheck(), predicted, FENUtils.getFENFromBoard(game) + " after " + Move.fromBytes(move));
+            if (depth > 1) {
+                assertGivesCheckMatches(game, depth - 1);
+            }
+            game.undoMove(undo);
+        }
+    }
+
+    private static void collectMoves(Game game, int depth, Set<Integer> pool) {
+        for (int move : game.getLegalMoves()) {
+            pool.add(move);
+            if (depth > 1) {
+                long undo = game.playMove(move);
+                collectMoves(game, depth - 1, pool);
+                game.undoMove(undo);
+            }
+        }
+    }
+
+    private static void assertLegalityMatches(Game game, int depth, Set<Integer> pool) {
+        int[] legalMoves = game.getLegalMoves();
+        Set<Integer> legal = new HashSet<>();
+        for (int move : legalMoves) legal.add(move);
+        for (int move : pool) {
+            assertEquals(legal.contains(move), MoveGenerator.isLegal(game, move),
+                    FENUtils.getFENFromBoard(game) + " " + Move.fromBytes(move));
+        }
+        if (depth > 1) {
+            for (int move : legalMoves) {
+                long undo = game.playMove(move);
+                assertLegalityMatches(game, depth - 1, pool);
+                game.undoMove(undo);
+            }
+        }
+    }
+
+    // Black plays d7d5 so the en passant square comes from an actual move
+    private static Game afterDoublePush(String fen) {
+        Game game = FENUtils.getBoardFrom(fen);
+        game.playMove(MoveIOUtils.parseUciMove(game, "d7d5"));
+        return game;
+    }
+
+    private static boolean hasEnPassant(int[] moves) {
+        for (int move : moves) {
+            if (Move.isEnPassant(move)) return true;
+        }
+        return false;
+    }
+}
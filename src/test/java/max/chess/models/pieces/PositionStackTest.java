@@ -0,0 +1,66 @@
+package max.chess.models.pieces;
+
+import max.chess.engine.game.Game;
+import max.chess.engine.game.PositionStack;
+import max.chess.engine.game.board.utils.BoardGenerator;
+import max.chess.engine.movegen.MoveGenerator;
+import max.chess.engine.utils.notations.FENUtils;
+import max.chess.models.pieces.perft.PerftTestSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PositionStackTest {
+    private static final int DEPTH = 3;
+    private final int[][] buffers = new int[DEPTH][218];
+
+    @Test
+    public void copyMakePerftShouldMatchExpectedCountsAndRestorePositions() {
+        for (Map.Entry<String, Map<Integer, Long>> entry : PerftTestSet.PERFT_TEST_FEN_MAP.entrySet()) {
+            Game game = BoardGenerator.from(entry.getKey());
+            PositionStack stack = new PositionStack(game, 16);
+            String fen = FENUtils.getFENFromBoard(game);
+            long key = game.zobristKey();
+
+            assertEquals(entry.getValue().get(DEPTH), perft(game, stack, DEPTH, 0), entry.getKey());
+            assertEquals(0, stack.ply());
+            assertEquals(fen, FENUtils.getFENFromBoard(game));
+            assertEquals(key, game.zobristKey());
+        }
+    }
+
+    @Test
+    public void loadedSnapshotShouldReproduceThePosition() {
+        Game source = BoardGenerator.from("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        long[] snapshot = new long[PositionStack.SLOT_SIZE];
+        new PositionStack(source, 1).copyCurrent(snapshot, 0);
+
+        Game target = BoardGenerator.newStandardGameBoard();
+        PositionStack.load(target, snapshot, 0);
+
+        assertEquals(source.zobristKey(), target.zobristKey());
+        assertEquals(MoveGenerator.perft(source, 3), MoveGenerator.perft(target, 3));
+        for (int i = 0; i < 64; i++) {
+            assertEquals(source.board().getPieceTypeAt(i), target.board().getPieceTypeAt(i));
+        }
+    }
+
+    private long perft(Game game, PositionStack stack, int depth, int ply) {
+        if (depth == 0) return 1;
+        int[] moves = buffers[ply];
+        int n = MoveGenerator.generateMoves(game, moves);
+        long nodes = 0;
+        for (int i = 0; i < n; i++) {
+            String fen = FENUtils.getFENFromBoard(game);
+            long key = game.zobristKey();
+            stack.playMove(moves[i]);
+            nodes += perft(game, stack, depth - 1, ply + 1);
+            stack.undoMove();
+            assertEquals(key, game.zobristKey());
+            assertEquals(fen, FENUtils.getFENFromBoard(game));
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,26 @@
+package max.chess.models.pieces.magic_bitboard;
+
+import max.chess.engine.movegen.pieces.Bishop;
+import max.chess.engine.movegen.pieces.Rook;
+import max.chess.engine.movegen.pieces.SliderAttacks;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SliderAttacksTest {
+    @Test
+    public void packedLookupsShouldMatchRookAndBishop() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 20_000; i++) {
+            // sparse and dense occupancies
+            long occ = (i & 1) == 0 ? random.nextLong() & random.nextLong() : random.nextLong() | random.nextLong();
+            for (int sq = 0; sq < 64; sq++) {
+                assertEquals(Rook.getAttackBB(sq, occ), SliderAttacks.rookAttacks(sq, occ));
+                assertEquals(Bishop.getAttackBB(sq, occ), SliderAttacks.bishopAttacks(sq, occ));
+                assertEquals(Rook.getAttackBB(sq, occ) | Bishop.getAttackBB(sq, occ), SliderAttacks.queenAttacks(sq, occ));
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import max.chess.engine.game.board.utils.BoardGenerator;
 import max.chess.engine.game.Game;
 import max.chess.engine.game.GameCache;
 import max.chess.engine.movegen.Move;
+import max.chess.engine.movegen.MoveGenerator;
 import max.chess.models.pieces.perft.PerftTestSet;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -23,6 +24,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 // https://www.chessprogramming.org/Perft_Results
 public class PerftFullTest {
     private final static long MAX_TARGET_NODE_COUNT = 100_000_000L;
@@ -70,6 +73,24 @@ public class PerftFullTest {
         }
     }
 
+    // Same expectations through the streaming perft of the move generator (bulk-counted leaves)
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("getPerftTestSet")
+    public void runBulkCountPerftTest(String testName, String fen, Map<Integer, Long> expectedResults) {
+        for(Map.Entry<Integer, Long> expectedResult : expectedResults.entrySet()) {
+            if(expectedResult.getValue() > MAX_TARGET_NODE_COUNT) {
+                continue;
+            }
+            Game game = BoardGenerator.from(fen);
+            Instant start = Instant.now();
+            long result = MoveGenerator.perft(game, expectedResult.getKey());
+            Duration perftDuration = Duration.between(start, Instant.now());
+            System.out.println("BULK PERFT AT DEPTH "+expectedResult.getKey()+" COMPLETED IN "+perftDuration+" FOR FEN "+fen
+                    + (perftDuration.toMillis() == 0 ? "" : " - "+(result / perftDuration.toMillis() * 1000)+" nps"));
+            assertEquals(expectedResult.getValue(), result, "depth "+expectedResult.getKey()+" for fen "+fen);
+        }
+    }
+
     public static void resetZobristCache() {
         GameCache.clearZobristCache();
     }
@@ -5,7 +5,6 @@ import max.chess.engine.game.Game;
 import max.chess.engine.game.GameCache;
 import max.chess.engine.movegen.Move;
 import max.chess.engine.movegen.MoveGenerator;
-import max.chess.engine.movegen.utils.CheckUtils;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
@@ -41,7 +40,6 @@ public class PerftTest {
         long perftResult = runPerftTest(PERFT_DEPTH);
         Duration perftDuration = Duration.between(startOfPerft, Instant.now());
         GameCache.printZobristCacheReport();
-        CheckUtils.printChecksReport();
         MoveGenerator.printGeneratorReport();
         System.out.println("*************************");
         System.out.println("*************************");
@@ -139,7 +137,6 @@ public class PerftTest {
         System.out.println("Warm up done !");
 
         MoveGenerator.clearGeneratorReport();
-        CheckUtils.clearChecksReport();
         GameCache.clearZobristCache();
     }
 }